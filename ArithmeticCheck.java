@@ -0,0 +1,770 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/* This program checks the arithmetic of LargeInteger, PackedLargeInteger and ModularContext against
+   java.math.BigInteger, on random operands. Every result is compared digit for digit with the one of
+   BigInteger, and the first difference stops the program with the operation and the seed to run it again.
+
+   Operands are drawn with many 9s and many 0s more often than plain random digits would give them (see
+   operand), since those are the ones whose carries and borrows run across whole blocks of limbs. The checks
+   cover:
+   - every tier of PackedLargeInteger.multiply and square, each forced from the top of the product down by
+     its own thresholds, then the thresholds of this machine and ParallelMultiplication, and the algorithms that
+     LargeInteger offers by name;
+   - the loops on vectors of columns (see ColumnKernels) against the scalar ones, when they are loaded. The
+     rest of the checks use whichever of the two is on, so running the program with and without
+     --add-modules jdk.incubator.vector (or with -DvectorKernels=false) checks both ways;
+   - division, with schoolbook long division and with Newton's reciprocal;
+   - ModularContext with Montgomery's reduction (moduli coprime with 10) and Barrett's (moduli that are not);
+   - MutableLargeInteger, with operands that are the accumulator itself and buffers that have to grow;
+   - BinaryLargeInteger, its products and shifts, and its conversions from and to decimal on both sides of
+     their base case;
+   - MappedLargeInteger, whose operands and results are files in a temporary directory, with blocks small
+     enough that every product is made of several of them;
+   - LargeIntegerIO, with LargeInteger and PackedLargeInteger written and read back in both formats, through
+     files and through other channels, and numbers larger than its buffer;
+   - the product trees of ProductTree, with factors of one limb and more, factorials and binomial coefficients,
+     and the sums of many terms of PackedLargeInteger.sum;
+   - the batches of multiplyAll and sumAll, whose pairs often share an operand with the pair before them;
+   - ProductCache, its hits on operands equal by value and in either order, its bound, and the equals and
+     hashCode of LargeInteger that its keys rely on;
+   - RandomOperands, whose operands must have exactly the digits asked for and only depend on the seed, not on
+     the number of threads that generate a batch.
+
+   The arguments are the seed (random by default) and the number of rounds of each check (200 by default). */
+class ArithmeticCheck {
+
+    private static final int MAX = Integer.MAX_VALUE;
+
+    private static Random random;
+    private static long checks;
+
+
+
+    public static void main (String[] args) throws IOException {
+        long seed = args.length > 0 ? Long.parseLong( args[ 0 ] ) : System.nanoTime();
+        int rounds = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : 200;
+        random = new Random( seed );
+        System.out.println( "Seed " + seed + ", " + rounds + " rounds, vector kernels "
+                            + (PackedLargeInteger.VECTOR_KERNELS ? "on (" + PackedLargeInteger.VECTOR.lanes() + " lanes)" : "off") );
+
+        checkTiers( rounds );
+        checkParallel( rounds );
+        checkLargeInteger( rounds );
+        checkKernels( rounds );
+        checkAddSubtract( rounds );
+        checkDivision( rounds );
+        checkModular( rounds );
+        checkMutable( rounds );
+        checkBinary( rounds );
+        checkMapped( rounds );
+        checkIO( rounds );
+        checkProductTree( rounds );
+        checkBatches( rounds );
+        checkProductCache( rounds );
+        checkRandomOperands( rounds );
+
+        System.out.println( checks + " results checked, all equal to BigInteger's" );
+    }
+
+
+    /* Checks products and squares with every tier forced by its thresholds, and with those of this machine */
+    static void checkTiers (int rounds) {
+        String[] names = { "schoolbook", "Karatsuba", "Toom-Cook 3", "NTT" };
+        MultiplyThresholds[] forced = {
+            new MultiplyThresholds( MAX, MAX, MAX, MAX, MAX ),
+            new MultiplyThresholds( 2, MAX, MAX, MAX, MAX ),
+            new MultiplyThresholds( 4, 3, MAX, MAX, MAX ),
+            new MultiplyThresholds( 2, 3, 1, MAX, MAX ) };
+
+        for (int t = 0; t < forced.length; t++) {
+            for (int i = 0; i < rounds; i++) {
+                BigInteger x = operand( 1 + random.nextInt( 2000 ) );
+                BigInteger y = random.nextInt( 4 ) == 0 ? operand( 1 + random.nextInt( 50 ) ) : operand( 1 + random.nextInt( 2000 ) );
+                check( names[ t ] + " product", x.multiply( y ), PackedLargeInteger.multiply( limbs( x ), limbs( y ), forced[ t ] ) );
+                check( names[ t ] + " square", x.multiply( x ), PackedLargeInteger.square( limbs( x ), forced[ t ] ) );
+            }
+        }
+
+        MultiplyThresholds current = MultiplyThresholds.current();
+        for (int i = 0; i < rounds / 10 + 1; i++) {
+            int limbs = (int) Math.min( 3L * current.ntt, 20000 );                 // up to the transforms of this machine
+            BigInteger x = operand( 1 + random.nextInt( 9 * limbs ) );
+            BigInteger y = operand( 1 + random.nextInt( 9 * limbs ) );
+            check( "multiply", x.multiply( y ), PackedLargeInteger.multiply( limbs( x ), limbs( y ), current ) );
+            check( "square", x.multiply( x ), PackedLargeInteger.square( limbs( x ), current ) );
+        }
+        System.out.println( "multiply and square: every tier checked" );
+    } // end of checkTiers
+
+
+    /* Checks ParallelMultiplication with thresholds low enough that every band forks */
+    static void checkParallel (int rounds) {
+        MultiplyThresholds thresholds = new MultiplyThresholds( 8, 64, 400, 16, MAX );
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            for (int i = 0; i < rounds / 4 + 1; i++) {
+                BigInteger x = operand( 1 + random.nextInt( 40000 ) );
+                BigInteger y = random.nextInt( 8 ) == 0 ? x : operand( 1 + random.nextInt( 40000 ) );
+                check( "parallel product", x.multiply( y ), ParallelMultiplication.multiply( limbs( x ), limbs( y ), thresholds, pool ) );
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println( "parallel products checked" );
+    } // end of checkParallel
+
+
+    /* Checks the products, squares and powers of LargeInteger, and the algorithms it offers by name */
+    static void checkLargeInteger (int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            BigInteger x = operand( 1 + random.nextInt( 300 ) );
+            BigInteger y = operand( 1 + random.nextInt( 300 ) );
+            LargeInteger a = new LargeInteger( x.toString() );
+            LargeInteger b = new LargeInteger( y.toString() );
+            BigInteger product = x.multiply( y );
+            check( "multiply", product, a.multiply( b ) );
+            check( "standardMultiplication", product, a.standardMultiplication( b ) );
+            check( "recursiveMultiplication", product, a.recursiveMultiplication( b ) );
+            check( "recursiveFastMultiplication", product, a.recursiveFastMultiplication( b ) );
+            check( "toomCook3Multiplication", product, a.toomCook3Multiplication( b ) );
+            check( "nttMultiplication", product, a.nttMultiplication( b ) );
+            check( "square", x.multiply( x ), a.square() );
+            int exponent = random.nextInt( 40 );
+            check( "pow", x.pow( exponent ), a.pow( exponent ) );
+        }
+        System.out.println( "LargeInteger products and powers checked" );
+    } // end of checkLargeInteger
+
+
+    /* Checks the loops on vectors of columns against the scalar ones, on arrays whose columns are often
+       all at the top or at the bottom of their base, so that carries and borrows cross whole vectors */
+    static void checkKernels (int rounds) {
+        ColumnKernels vector = PackedLargeInteger.VECTOR;
+        if (vector == null) {
+            System.out.println( "vector kernels not loaded, only the scalar loops are checked (run with --add-modules jdk.incubator.vector)" );
+            return;
+        }
+        for (int i = 0; i < rounds; i++) {
+            int length = random.nextInt( 300 );
+            int carry = random.nextInt( 2 );
+            int[] a = columns( length, PackedLargeInteger.BASE );
+            int[] b = columns( length, PackedLargeInteger.BASE );
+            int[] expected = new int[length];
+            int[] actual = new int[length];
+            equal( "vector add", PackedLargeInteger.addColumnsScalar( a, 0, b, 0, expected, 0, length, carry ), vector.add( a, 0, b, 0, actual, 0, length, carry ), expected, actual );
+            equal( "vector subtract", PackedLargeInteger.subtractColumnsScalar( a, 0, b, 0, expected, 0, length, carry ), vector.subtract( a, 0, b, 0, actual, 0, length, carry ), expected, actual );
+            if (length > 0 && random.nextBoolean()) b = a.clone();
+            if (length > 0 && random.nextBoolean()) b[ random.nextInt( length ) ]++;
+            int mismatch = length - 1;
+            while (mismatch >= 0 && a[ mismatch ] == b[ mismatch ]) mismatch--;
+            equal( "vector lastMismatch", mismatch, vector.lastMismatch( a, b, length ), null, null );
+
+            byte[] x = bytes( columns( length, 10 ) );
+            byte[] y = bytes( columns( length, 10 ) );
+            byte[] expectedDigits = new byte[length];
+            byte[] actualDigits = new byte[length];
+            equal( "vector addDigits", LargeInteger.addColumnsScalar( x, length, y, length, expectedDigits, length, length, carry ),
+                   vector.addDigits( x, length, y, length, actualDigits, length, length, carry ), ints( expectedDigits ), ints( actualDigits ) );
+            equal( "vector subtractDigits", LargeInteger.subtractColumnsScalar( x, length, y, length, expectedDigits, length, length, carry ),
+                   vector.subtractDigits( x, length, y, length, actualDigits, length, length, carry ), ints( expectedDigits ), ints( actualDigits ) );
+        }
+        System.out.println( "vector kernels checked against the scalar loops" );
+    } // end of checkKernels
+
+
+    /* Checks the sums and differences of LargeInteger and PackedLargeInteger */
+    static void checkAddSubtract (int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            BigInteger x = operand( 1 + random.nextInt( 3000 ) );
+            BigInteger y = operand( 1 + random.nextInt( 3000 ) );
+            BigInteger high = x.max( y );
+            BigInteger low = x.min( y );
+            check( "add", x.add( y ), new LargeInteger( x.toString() ).add( new LargeInteger( y.toString() ) ) );
+            check( "subtract", high.subtract( low ), new LargeInteger( high.toString() ).subtract( new LargeInteger( low.toString() ) ) );
+            BigInteger other = random.nextInt( 8 ) == 0 ? x : y;                    // then given with leading zeros
+            int[] signum = { 2 };
+            check( "absoluteDifference", x.subtract( other ).abs(),
+                   new LargeInteger( x.toString() ).absoluteDifference( new LargeInteger( (other == x ? "00" : "") + other ), signum ) );
+            contract( true, signum[ 0 ] == x.compareTo( other ) );
+            check( "packed add", x.add( y ), PackedLargeInteger.add( limbs( x ), limbs( y ) ) );
+            check( "packed subtract", high.subtract( low ), PackedLargeInteger.subtract( limbs( high ), limbs( low ) ) );
+        }
+        System.out.println( "sums and differences checked" );
+    } // end of checkAddSubtract
+
+
+    /* Checks quotients and remainders with long division and with Newton's reciprocal */
+    static void checkDivision (int rounds) {
+        MultiplyThresholds schoolbook = MultiplyThresholds.withNewton( MultiplyThresholds.current(), MAX );
+        MultiplyThresholds newton = new MultiplyThresholds( 4, 16, MAX, MAX, 4 );
+        for (int i = 0; i < rounds; i++) {
+            BigInteger y = operand( 1 + random.nextInt( 1500 ) );
+            BigInteger x = operand( 1 + random.nextInt( 3000 ) ).add( random.nextBoolean() ? BigInteger.ZERO : y.multiply( operand( 1 + random.nextInt( 1500 ) ) ) );
+            BigInteger[] expected = x.divideAndRemainder( y );
+            for (MultiplyThresholds thresholds : new MultiplyThresholds[] { schoolbook, newton }) {
+                String name = thresholds == newton ? "Newton division" : "long division";
+                int[][] actual = Division.divideAndRemainder( limbs( x ), limbs( y ), thresholds );
+                check( name + " quotient", expected[ 0 ], actual[ 0 ] );
+                check( name + " remainder", expected[ 1 ], actual[ 1 ] );
+            }
+        }
+        System.out.println( "divisions checked" );
+    } // end of checkDivision
+
+
+    /* Checks modMul, modSquare and modPow with moduli coprime with 10, which ModularContext reduces with
+       Montgomery's method, and with even moduli and multiples of 5, which it reduces with Barrett's */
+    static void checkModular (int rounds) {
+        BigInteger ten = BigInteger.TEN;
+        for (int i = 0; i < rounds; i++) {
+            BigInteger m = operand( 1 + random.nextInt( 400 ) );
+            boolean montgomery = i % 2 == 0;
+            if (montgomery) {
+                if (!m.testBit( 0 )) m = m.add( BigInteger.ONE );
+                if (m.mod( BigInteger.valueOf( 5 ) ).signum() == 0) m = m.add( BigInteger.TWO );
+            } else if (m.gcd( ten ).equals( BigInteger.ONE )) {
+                m = m.multiply( BigInteger.valueOf( random.nextBoolean() ? 2 : 5 ) );
+            }
+            String name = montgomery ? "Montgomery " : "Barrett ";
+
+            BigInteger x = operand( 1 + random.nextInt( 800 ) ).mod( m );
+            BigInteger y = operand( 1 + random.nextInt( 800 ) ).mod( m );
+            BigInteger e = operand( 1 + random.nextInt( 60 ) );
+            ModularContext context = random.nextBoolean() ? new ModularContext( new PackedLargeInteger( m.toString() ) )
+                                                          : new ModularContext( limbs( m ), new MultiplyThresholds( 2, MAX, MAX, MAX, MAX ) );
+            LargeInteger a = new LargeInteger( x.toString() );
+            check( name + "modMul", x.multiply( y ).mod( m ), a.modMul( new LargeInteger( y.toString() ), context ) );
+            check( name + "modSquare", x.multiply( x ).mod( m ), a.modSquare( context ) );
+            check( name + "modPow", x.modPow( e, m ), a.modPow( new LargeInteger( e.toString() ), context ) );
+        }
+        System.out.println( "Montgomery and Barrett reductions checked" );
+    } // end of checkModular
+
+
+    /* Checks the operations of MutableLargeInteger in random sequences, against a BigInteger that follows them.
+       The accumulator starts with a buffer of one limb, and is often added to itself, shifted or not, which
+       writes into the buffer it reads from. Differences larger than the accumulator must give zero, and
+       multiplyAccumulate is called on both sides of the Karatsuba threshold. */
+    static void checkMutable (int rounds) {
+        BigInteger base = BigInteger.valueOf( PackedLargeInteger.BASE );
+        int karatsuba = MultiplyThresholds.current().karatsuba;
+        for (int i = 0; i < rounds; i++) {
+            MutableLargeInteger m = new MutableLargeInteger( 1 );
+            BigInteger expected = BigInteger.ZERO;
+            for (int step = 0; step < 30; step++) {
+                BigInteger x = operand( 1 + random.nextInt( 300 ) );
+                int offset = random.nextInt( 5 );
+                String name;
+                switch (random.nextInt( 10 )) {
+                    case 0:
+                        name = "addTo";
+                        m.addTo( new PackedLargeInteger( x.toString() ) );
+                        expected = expected.add( x );
+                        break;
+                    case 1:
+                        name = "addTo itself";
+                        m.addTo( m );
+                        expected = expected.add( expected );
+                        break;
+                    case 2:
+                        name = "addShifted";
+                        m.addShifted( new PackedLargeInteger( x.toString() ), offset );
+                        expected = expected.add( x.multiply( base.pow( offset ) ) );
+                        break;
+                    case 3:
+                    case 4:
+                        name = "addShifted itself";
+                        m.addShifted( m, offset );
+                        expected = expected.add( expected.multiply( base.pow( offset ) ) );
+                        break;
+                    case 5:
+                        name = "subtractFrom";
+                        BigInteger y = random.nextBoolean() ? x : expected.subtract( x.min( expected ) );
+                        m.subtractFrom( new MutableLargeInteger( new PackedLargeInteger( y.toString() ) ) );
+                        expected = y.compareTo( expected ) > 0 ? BigInteger.ZERO : expected.subtract( y );
+                        break;
+                    case 6:
+                        name = "subtractFrom itself";
+                        m.subtractFrom( m );
+                        expected = BigInteger.ZERO;
+                        break;
+                    case 7:
+                    case 8:
+                        name = "multiplyAccumulate";
+                        int limbs = random.nextBoolean() ? 1 + random.nextInt( karatsuba - 1 ) : karatsuba + random.nextInt( 3 * karatsuba );
+                        BigInteger a = operand( 9 * limbs );
+                        BigInteger b = operand( 9 * limbs - random.nextInt( 9 ) );
+                        m.multiplyAccumulate( new PackedLargeInteger( a.toString() ), new PackedLargeInteger( b.toString() ) );
+                        expected = expected.add( a.multiply( b ) );
+                        break;
+                    default:
+                        name = "set";
+                        m.set( new PackedLargeInteger( x.toString() ) );
+                        expected = x;
+                }
+                check( "MutableLargeInteger " + name, expected, m.toString() );
+                for (int j = m.length; j < m.limbs.length; j++) {
+                    if (m.limbs[ j ] != 0) throw new AssertionError( "MutableLargeInteger " + name + " left a limb above its length" );
+                }
+                if (expected.bitLength() > 200000) {
+                    m.setZero();
+                    expected = BigInteger.ZERO;
+                }
+            }
+        }
+        System.out.println( "MutableLargeInteger checked" );
+    } // end of checkMutable
+
+
+    /* Checks the arithmetic of BinaryLargeInteger, and its conversions from decimal (by the constructor that
+       parses a string) and to decimal (by toString on a number built from its binary limbs). Besides the
+       operands of operand, a third of them are 2^k or 2^k - 1, whose limbs are all zeros or all ones. */
+    static void checkBinary (int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            BigInteger x = binaryOperand();
+            BigInteger y = binaryOperand();
+            BinaryLargeInteger a = new BinaryLargeInteger( x.toString() );
+            BinaryLargeInteger b = new BinaryLargeInteger( binary( y ) );
+            check( "binary from decimal", x, bigInteger( a.limbs ).toString() );
+            check( "binary to decimal", y, b.toString() );
+            check( "binary to packed", y, b.toPacked().limbs );
+
+            BigInteger product = x.multiply( y );
+            check( "binary multiply", product, a.multiply( b ).toString() );
+            check( "binary standardMultiplication", product, a.standardMultiplication( b ).toString() );
+            check( "binary recursiveFastMultiplication", product, a.recursiveFastMultiplication( b ).toString() );
+            check( "binary square", x.multiply( x ), a.square().toString() );
+            check( "binary add", x.add( y ), a.add( b ).toString() );
+            check( "binary subtract", x.compareTo( y ) > 0 ? x.subtract( y ) : BigInteger.ZERO, a.subtract( b ).toString() );
+            int shift = random.nextInt( 300 );
+            check( "binary shiftLeft", x.multiply( BigInteger.TEN.pow( shift ) ), a.shiftLeft( shift ).toString() );
+            check( "binary shiftLeftBits", x.shiftLeft( shift ), a.shiftLeftBits( shift ).toString() );
+            check( "binary shiftRightBits", x.shiftRight( shift ), a.shiftRightBits( shift ).toString() );
+        }
+        System.out.println( "BinaryLargeInteger checked" );
+    } // end of checkBinary
+
+
+    /* Checks the sums, differences and products of MappedLargeInteger, and numbers written to a file and
+       opened again. Files get leading zero limbs now and then, which the operations have to ignore. */
+    static void checkMapped (int rounds) throws IOException {
+        Path directory = Files.createTempDirectory( "ArithmeticCheck" );
+        Path x = directory.resolve( "x" );
+        Path y = directory.resolve( "y" );
+        Path result = directory.resolve( "result" );
+        try {
+            for (int i = 0; i < rounds / 4 + 1; i++) {
+                BigInteger a = operand( 1 + random.nextInt( 5000 ) );
+                BigInteger b = operand( 1 + random.nextInt( 5000 ) );
+                try (MappedLargeInteger ma = mapped( x, a );
+                     MappedLargeInteger mb = mapped( y, b )) {
+                    try (MappedLargeInteger reopened = MappedLargeInteger.open( x )) {
+                        check( "mapped open", a, reopened.toPacked().limbs );
+                    }
+                    try (MappedLargeInteger sum = ma.add( mb, result )) {
+                        check( "mapped add", a.add( b ), sum.toPacked().limbs );
+                    }
+                    try (MappedLargeInteger difference = ma.subtract( mb, result )) {
+                        check( "mapped subtract", a.compareTo( b ) > 0 ? a.subtract( b ) : BigInteger.ZERO, difference.toPacked().limbs );
+                    }
+                    try (MappedLargeInteger product = ma.multiply( mb, result, 1 + random.nextInt( 100 ) )) {
+                        check( "mapped multiply", a.multiply( b ), product.toPacked().limbs );
+                    }
+                }
+            }
+        } finally {
+            for (Path file : new Path[] { x, y, result }) Files.deleteIfExists( file );
+            Files.delete( directory );
+        }
+        System.out.println( "MappedLargeInteger checked" );
+    } // end of checkMapped
+
+
+    /* Checks that numbers written by LargeIntegerIO are read back unchanged, in both formats, from files and from
+       other channels, that decimal files may end with an end of line, and that limb files open as a
+       MappedLargeInteger. The last number has more digits and limbs than the buffer that writes them. */
+    static void checkIO (int rounds) throws IOException {
+        Path file = Files.createTempFile( "ArithmeticCheck", ".number" );
+        try {
+            for (int i = 0; i <= rounds / 4 + 1; i++) {
+                boolean large = i == rounds / 4 + 1;
+                BigInteger x = large ? null : operand( 1 + random.nextInt( 5000 ) );
+                PackedLargeInteger packed = large ? new PackedLargeInteger( RandomOperands.randomLimbs( new SplittableRandom( random.nextLong() ),
+                                                                                                       LargeIntegerIO.BUFFER_SIZE + 1 + random.nextInt( 1000 ) ) )
+                                                  : new PackedLargeInteger( x.toString() );
+                String expected = large ? packed.toString() : x.toString();
+                LargeInteger value = new LargeInteger( expected );
+
+                for (LargeIntegerIO.Format format : LargeIntegerIO.Format.values()) {
+                    String name = "LargeIntegerIO " + format + " ";
+                    LargeIntegerIO.write( value, file, format );
+                    equal( name + "LargeInteger file", expected, LargeIntegerIO.readLargeInteger( file, format ).toString() );
+                    LargeIntegerIO.write( packed, file, format );
+                    equal( name + "PackedLargeInteger file", expected, LargeIntegerIO.readPacked( file, format ).toString() );
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    LargeIntegerIO.write( packed, Channels.newChannel( bytes ), format );
+                    equal( name + "PackedLargeInteger channel", expected,
+                           LargeIntegerIO.readLargeInteger( Channels.newChannel( new ByteArrayInputStream( bytes.toByteArray() ) ), format ).toString() );
+                    bytes.reset();
+                    LargeIntegerIO.write( value, Channels.newChannel( bytes ), format );
+                    equal( name + "LargeInteger channel", expected,
+                           LargeIntegerIO.readPacked( Channels.newChannel( new ByteArrayInputStream( bytes.toByteArray() ) ), format ).toString() );
+                }
+
+                Files.write( file, (expected + (random.nextBoolean() ? "\n" : "\r\n")).getBytes( StandardCharsets.US_ASCII ) );
+                equal( "LargeIntegerIO end of line", expected, LargeIntegerIO.readPacked( file, LargeIntegerIO.Format.DECIMAL ).toString() );
+                LargeIntegerIO.write( packed, file, LargeIntegerIO.Format.LIMBS );
+                try (MappedLargeInteger mapped = MappedLargeInteger.open( file )) {
+                    equal( "LargeIntegerIO limbs opened as MappedLargeInteger", expected, mapped.toString() );
+                }
+            }
+        } finally {
+            Files.delete( file );
+        }
+        System.out.println( "LargeIntegerIO round-trips checked" );
+    } // end of checkIO
+
+
+    /* Checks the products of ProductTree, on lists of factors that mix numbers of one limb, which it packs
+       together, with longer ones and sometimes a zero, its factorials and binomial coefficients (k out of
+       range included), and PackedLargeInteger.sum on lists of terms */
+    static void checkProductTree (int rounds) {
+        MultiplyThresholds thresholds = new MultiplyThresholds( 4, 16, 64, MAX, MAX );
+        for (int i = 0; i < rounds / 4 + 1; i++) {
+            int count = random.nextInt( 200 );
+            List<PackedLargeInteger> numbers = new ArrayList<>( count );
+            BigInteger product = BigInteger.ONE;
+            BigInteger sum = BigInteger.ZERO;
+            for (int j = 0; j < count; j++) {
+                BigInteger x = random.nextInt( 100 ) == 0 ? BigInteger.ZERO : operand( 1 + random.nextInt( random.nextBoolean() ? 9 : 400 ) );
+                numbers.add( new PackedLargeInteger( x.toString() ) );
+                product = product.multiply( x );
+                sum = sum.add( x );
+            }
+            check( "product tree", product, PackedLargeInteger.product( numbers ).limbs );
+            int[][] factors = new int[count][];
+            for (int j = 0; j < count; j++) factors[ j ] = numbers.get( j ).limbs;
+            check( "product tree, every tier", product, ProductTree.product( factors, thresholds ) );
+            check( "sum", sum, PackedLargeInteger.sum( numbers ).limbs );
+        }
+
+        BigInteger factorial = BigInteger.ONE;
+        List<BigInteger> factorials = new ArrayList<>();
+        for (int n = 0; n <= 3000; n++) {
+            if (n > 0) factorial = factorial.multiply( BigInteger.valueOf( n ) );
+            factorials.add( factorial );
+        }
+        for (int i = 0; i < rounds / 4 + 1; i++) {
+            int n = i < ProductTree.SMALL_FACTORIAL + 2 ? i : random.nextInt( factorials.size() );
+            check( "factorial", factorials.get( n ), ProductTree.factorial( n, thresholds ) );
+            int k = random.nextInt( n + 3 ) - 1;
+            BigInteger binomial = k < 0 || k > n ? BigInteger.ZERO : factorials.get( n ).divide( factorials.get( k ).multiply( factorials.get( n - k ) ) );
+            check( "binomial", binomial, ProductTree.binomial( n, k, thresholds ) );
+        }
+        System.out.println( "product trees, factorials, binomial coefficients and sums checked" );
+    } // end of checkProductTree
+
+
+    /* Checks multiplyAll and sumAll of LargeInteger and PackedLargeInteger, and BatchArithmetic with thresholds
+       low enough that every tier runs in the batch. Pairs often reuse the operand of the pair before them, or
+       square it, which lets a chunk reuse its transforms; other operands have the same length as the one
+       before them but other limbs, which must not reuse them. */
+    static void checkBatches (int rounds) {
+        BatchArithmetic batch = new BatchArithmetic( new MultiplyThresholds( 4, 16, 64, MAX, MAX ) );
+        for (int i = 0; i < rounds / 10 + 1; i++) {
+            int count = random.nextInt( 100 );
+            BigInteger[] x = new BigInteger[count];
+            BigInteger[] y = new BigInteger[count];
+            PackedLargeInteger[] packedX = new PackedLargeInteger[count];
+            PackedLargeInteger[] packedY = new PackedLargeInteger[count];
+            LargeInteger[] digitsX = new LargeInteger[count];
+            LargeInteger[] digitsY = new LargeInteger[count];
+            for (int j = 0; j < count; j++) {
+                int kind = j == 0 ? 0 : random.nextInt( 4 );
+                x[ j ] = kind == 1 ? x[ j - 1 ] : operand( 1 + random.nextInt( 3000 ) );
+                packedX[ j ] = kind == 1 ? packedX[ j - 1 ] : new PackedLargeInteger( x[ j ].toString() );
+                digitsX[ j ] = kind == 1 ? digitsX[ j - 1 ] : new LargeInteger( x[ j ].toString() );
+                if (kind == 2) {
+                    y[ j ] = x[ j ];
+                    packedY[ j ] = packedX[ j ];
+                    digitsY[ j ] = digitsX[ j ];
+                } else {
+                    y[ j ] = kind == 3 ? operand( y[ j - 1 ].toString().length() ) : operand( 1 + random.nextInt( 3000 ) );
+                    packedY[ j ] = new PackedLargeInteger( y[ j ].toString() );
+                    digitsY[ j ] = new LargeInteger( y[ j ].toString() );
+                }
+            }
+
+            List<PackedLargeInteger> products = PackedLargeInteger.multiplyAll( Arrays.asList( packedX ), Arrays.asList( packedY ) );
+            List<PackedLargeInteger> sums = PackedLargeInteger.sumAll( Arrays.asList( packedX ), Arrays.asList( packedY ) );
+            List<LargeInteger> digitProducts = LargeInteger.multiplyAll( Arrays.asList( digitsX ), Arrays.asList( digitsY ) );
+            List<LargeInteger> digitSums = LargeInteger.sumAll( Arrays.asList( digitsX ), Arrays.asList( digitsY ) );
+            int[][] a = new int[count][];
+            int[][] b = new int[count][];
+            for (int j = 0; j < count; j++) { a[ j ] = packedX[ j ].limbs; b[ j ] = packedY[ j ].limbs; }
+            int[][] tiers = batch.multiplyAll( a, b );
+
+            for (int j = 0; j < count; j++) {
+                BigInteger product = x[ j ].multiply( y[ j ] );
+                check( "multiplyAll", product, products.get( j ).limbs );
+                check( "multiplyAll, every tier", product, tiers[ j ] );
+                check( "LargeInteger multiplyAll", product, digitProducts.get( j ) );
+                check( "sumAll", x[ j ].add( y[ j ] ), sums.get( j ).limbs );
+                check( "LargeInteger sumAll", x[ j ].add( y[ j ] ), digitSums.get( j ) );
+            }
+        }
+        try {
+            PackedLargeInteger.sumAll( List.of( new PackedLargeInteger( "1" ) ), List.of() );
+            throw new AssertionError( "sumAll accepted lists of different sizes" );
+        } catch (IllegalArgumentException e) {
+            checks++;
+        }
+        System.out.println( "multiplyAll and sumAll checked" );
+    } // end of checkBatches
+
+
+    /* Checks that equals and hashCode of LargeInteger only depend on the value, leading zeros aside, that
+       ProductCache answers a product computed before, with its operands in either order and as other objects
+       with the same value, and a square or a power computed before, and that it stays within its bound by
+       evicting entries. The cache is turned back to the setting of the command line at the end. */
+    static void checkProductCache (int rounds) {
+        try {
+            for (int i = 0; i < rounds; i++) {
+                BigInteger x = operand( 1 + random.nextInt( 300 ) );
+                BigInteger y = random.nextInt( 4 ) == 0 ? x : operand( 1 + random.nextInt( 300 ) );
+                LargeInteger a = new LargeInteger( x.toString() );
+                LargeInteger b = new LargeInteger( y.toString() );
+                LargeInteger padded = new LargeInteger( "0".repeat( 1 + random.nextInt( 20 ) ) + x );
+                contract( x.equals( y ), a.equals( b ) && b.equals( a ) && a.equals( (Object) b ) );
+                contract( true, a.equals( padded ) && padded.equals( a ) && a.equals( (Object) padded ) && a.hashCode() == padded.hashCode() );
+                contract( true, !x.equals( y ) || a.hashCode() == b.hashCode() );
+                contract( false, a.equals( (Object) x ) );
+
+                ProductCache.clear();
+                ProductCache.setMaxDigits( 1L << 30 );
+                check( "cached multiply", x.multiply( y ), a.multiply( b ) );
+                check( "cached multiply, operands swapped", x.multiply( y ), new LargeInteger( "0" + y ).multiply( padded ) );
+                check( "cached square", x.multiply( x ), padded.square() );
+                check( "cached square, hit", x.multiply( x ), a.square() );
+                int exponent = 1 + random.nextInt( 10 );
+                check( "cached pow", x.pow( exponent ), a.pow( exponent ) );
+                check( "cached pow, hit", x.pow( exponent ), padded.pow( exponent ) );
+                contract( true, ProductCache.hits() == 3 && ProductCache.misses() == 3 );
+            }
+
+            long max = ProductCache.STRIPES * 2000L;
+            ProductCache.clear();
+            ProductCache.setMaxDigits( max );
+            for (int i = 0; i < Math.max( rounds, 400 ); i++) {                  // enough to fill every stripe
+                BigInteger x = operand( 1 + random.nextInt( 200 ) );
+                BigInteger y = operand( 1 + random.nextInt( 200 ) );
+                check( "cached multiply, bounded", x.multiply( y ), new LargeInteger( x.toString() ).multiply( new LargeInteger( y.toString() ) ) );
+                contract( true, ProductCache.digits() <= max );
+            }
+            contract( true, ProductCache.evictions() > 0 );
+            ProductCache.setMaxDigits( 0 );
+            contract( true, ProductCache.digits() == 0 && !ProductCache.isEnabled() );
+        } finally {
+            ProductCache.setMaxDigits( Long.getLong( "productCache", 0 ) );
+            ProductCache.clear();
+        }
+        System.out.println( "ProductCache and the equals and hashCode of LargeInteger checked" );
+    } // end of checkProductCache
+
+
+    /* Checks that two RandomOperands with the same seed give the same operands, one at a time, in batches
+       generated on one thread and on several, and from the generators they split; that every operand has
+       exactly the number of digits asked for; and that another seed gives other operands */
+    static void checkRandomOperands (int rounds) {
+        ForkJoinPool single = new ForkJoinPool( 1 );
+        ForkJoinPool several = new ForkJoinPool( 4 );
+        try {
+            for (int i = 0; i < rounds / 10 + 1; i++) {
+                long seed = random.nextLong();
+                RandomOperands first = new RandomOperands( seed );
+                RandomOperands second = new RandomOperands( seed );
+                int n = 1 + random.nextInt( 2000 );
+                int count = random.nextInt( 50 );
+
+                String x = first.nextLargeInteger( n ).toString();
+                equal( "RandomOperands nextLargeInteger", x, second.nextLargeInteger( n ).toString() );
+                check( "RandomOperands leading digit", new BigInteger( x ), x );
+                equal( "RandomOperands number of digits", n, x.length(), null, null );
+                equal( "RandomOperands nextPacked", first.nextPacked( n ).toString(), second.nextPacked( n ).toString() );
+
+                PackedLargeInteger[] batch = single.submit( () -> first.nextPackedIntegers( count, n ) ).join();
+                PackedLargeInteger[] parallel = several.submit( () -> second.nextPackedIntegers( count, n ) ).join();
+                for (int j = 0; j < count; j++) {
+                    equal( "RandomOperands nextPackedIntegers", batch[ j ].toString(), parallel[ j ].toString() );
+                    equal( "RandomOperands batch digits", n, batch[ j ].toString().length(), null, null );
+                }
+                LargeInteger[] digits = several.submit( () -> first.nextLargeIntegers( count, n ) ).join();
+                LargeInteger[] sequential = single.submit( () -> second.nextLargeIntegers( count, n ) ).join();
+                for (int j = 0; j < count; j++) equal( "RandomOperands nextLargeIntegers", digits[ j ].toString(), sequential[ j ].toString() );
+
+                equal( "RandomOperands split", first.split().nextPacked( n ).toString(), second.split().nextPacked( n ).toString() );
+                if (n >= 20) {
+                    contract( false, new RandomOperands( seed ).nextPacked( n ).equals( new RandomOperands( seed + 1 ).nextPacked( n ) ) );
+                }
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+        System.out.println( "RandomOperands seeding checked" );
+    } // end of checkRandomOperands
+
+
+    /* Returns value stored in file, followed by up to two zero limbs */
+    private static MappedLargeInteger mapped (Path file, BigInteger value) throws IOException {
+        int[] limbs = limbs( value );
+        MappedLargeInteger ret = MappedLargeInteger.create( file, limbs.length + random.nextInt( 3 ) );
+        ret.write( 0, limbs, 0, limbs.length );
+        return ret;
+    } // end of mapped
+
+
+    /* Returns a number for checkBinary: 2^k, 2^k - 1, or a number of operand */
+    private static BigInteger binaryOperand () {
+        switch (random.nextInt( 6 )) {
+            case 0:  return BigInteger.ONE.shiftLeft( random.nextInt( 10000 ) );
+            case 1:  return BigInteger.ONE.shiftLeft( 1 + random.nextInt( 10000 ) ).subtract( BigInteger.ONE );
+            default: return operand( 1 + random.nextInt( 3000 ) );
+        }
+    } // end of binaryOperand
+
+
+    /* Returns a random number of n digits. A fifth of them are plain random digits; the others are all 9s,
+       a power of ten, a power of ten plus one, 9s followed by 0s, or random runs of 9s, 0s and random digits. */
+    static BigInteger operand (int n) {
+        char[] digits = new char[n];
+        int kind = random.nextInt( 6 );
+        int split = random.nextInt( n );
+        for (int i = 0; i < n; i++) {
+            switch (kind) {
+                case 0:  digits[ i ] = (char)( '0' + random.nextInt( 10 ) ); break;
+                case 1:  digits[ i ] = '9'; break;
+                case 2:  digits[ i ] = i == 0 ? '1' : '0'; break;
+                case 3:  digits[ i ] = i == 0 || i == n - 1 ? '1' : '0'; break;
+                case 4:  digits[ i ] = i <= split ? '9' : '0'; break;
+                default:
+                    int run = random.nextInt( 3 );
+                    int length = 1 + random.nextInt( 40 );
+                    for (int j = 0; j < length && i < n; j++, i++) digits[ i ] = run == 0 ? '9' : run == 1 ? '0' : (char)( '0' + random.nextInt( 10 ) );
+                    i--;
+            }
+        }
+        if (digits[ 0 ] == '0') digits[ 0 ] = '9';
+        return new BigInteger( new String( digits ) );
+    } // end of operand
+
+
+    /* Returns length random columns below base, often runs of base - 1 or of 0 */
+    static int[] columns (int length, int base) {
+        int[] ret = new int[length];
+        for (int i = 0; i < length; ) {
+            int run = random.nextInt( 3 );
+            for (int end = Math.min( length, i + 1 + random.nextInt( 80 ) ); i < end; i++) {
+                ret[ i ] = run == 0 ? base - 1 : run == 1 ? 0 : random.nextInt( base );
+            }
+        }
+        return ret;
+    } // end of columns
+
+
+    private static byte[] bytes (int[] columns) {
+        byte[] ret = new byte[columns.length];
+        for (int i = 0; i < ret.length; i++) ret[ i ] = (byte) columns[ i ];
+        return ret;
+    } // end of bytes
+
+
+    private static int[] ints (byte[] digits) {
+        int[] ret = new int[digits.length];
+        for (int i = 0; i < ret.length; i++) ret[ i ] = digits[ i ];
+        return ret;
+    } // end of ints
+
+
+    private static int[] limbs (BigInteger x) {
+        return new PackedLargeInteger( x.toString() ).limbs;
+    } // end of limbs
+
+
+    /* Returns the limbs of x in base 2^64, as in BinaryLargeInteger */
+    private static long[] binary (BigInteger x) {
+        long[] ret = new long[Math.max( 1, (x.bitLength() + 63) / 64 )];
+        for (int i = 0; i < ret.length; i++) ret[ i ] = x.shiftRight( 64 * i ).longValue();
+        return ret;
+    } // end of binary
+
+
+    /* Returns the number whose limbs in base 2^64 are limbs, which have to be normalized */
+    private static BigInteger bigInteger (long[] limbs) {
+        if (limbs.length > 1 && limbs[ limbs.length - 1 ] == 0) throw new AssertionError( "binary limbs with a leading zero" );
+        BigInteger ret = BigInteger.ZERO;
+        for (int i = limbs.length - 1; i >= 0; i--) {
+            ret = ret.shiftLeft( 64 ).or( new BigInteger( Long.toUnsignedString( limbs[ i ] ) ) );
+        }
+        return ret;
+    } // end of bigInteger
+
+
+    private static void check (String operation, BigInteger expected, int[] actual) {
+        check( operation, expected, new PackedLargeInteger( PackedLargeInteger.normalize( actual ) ).toString() );
+    } // end of check
+
+
+    private static void check (String operation, BigInteger expected, LargeInteger actual) {
+        check( operation, expected, actual.removeLeadingZeros().toString() );
+    } // end of check
+
+
+    /* Stops the program if actual is not the digits of expected */
+    private static void check (String operation, BigInteger expected, String actual) {
+        checks++;
+        if (!expected.toString().equals( actual )) {
+            throw new AssertionError( operation + " differs from BigInteger on a result of " + expected.toString().length() + " digits" );
+        }
+    } // end of check
+
+
+    /* Stops the program if a property that is not a result, such as a hit in ProductCache, does not hold */
+    private static void contract (boolean expected, boolean actual) {
+        checks++;
+        if (expected != actual) throw new AssertionError( "a property checked at the line below does not hold" );
+    } // end of contract
+
+
+    /* Stops the program if a number read back is not the one that was written */
+    private static void equal (String operation, String expected, String actual) {
+        checks++;
+        if (!expected.equals( actual )) {
+            throw new AssertionError( operation + " did not give back the number of " + expected.length() + " digits it was given" );
+        }
+    } // end of equal
+
+
+    /* Stops the program if a kernel gave another carry or other columns than the scalar loop */
+    private static void equal (String operation, int expected, int actual, int[] expectedColumns, int[] actualColumns) {
+        checks++;
+        if (expected != actual || (expectedColumns != null && !Arrays.equals( expectedColumns, actualColumns ))) {
+            throw new AssertionError( operation + " differs from the scalar loop" );
+        }
+    } // end of equal
+
+}  // end of the ArithmeticCheck class
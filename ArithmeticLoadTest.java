@@ -0,0 +1,135 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* This class measures the throughput and the latencies of an ArithmeticServer on one machine. Every
+   connection is a client on a thread of its own, which sends a job, waits for its answer and sends the
+   next one, so that the number of connections is the number of jobs the server has at any time. The
+   operands are random numbers of the given number of digits, the same ones for every job of a connection.
+
+   The first warmup jobs of every connection are not measured, so that the JIT has compiled the server
+   first. The connections then wait for each other, and the clock starts when the last one is done with
+   its warmup: the throughput is the number of measured jobs answered per second from there on. It is
+   printed with the percentiles of the time from sending a job to reading the whole answer. Answers that
+   are not OK are counted as errors. */
+class ArithmeticLoadTest {
+
+    /* Runs a load test. The arguments are any of:
+       --port <n>         port of a server on the loopback interface; without it, a server is started in this process
+       --connections <n>  number of clients sending jobs at the same time (64 by default)
+       --jobs <n>         number of measured jobs per connection (1000 by default)
+       --warmup <n>       number of jobs per connection sent before measuring (200 by default)
+       --digits <n>       number of digits of the operands (100 by default)
+       --operation <op>   operation of the jobs, see ArithmeticServer.Operation (MULTIPLY by default) */
+    public static void main (String[] args) throws Exception {
+        int port = -1;
+        int connections = 64;
+        int jobs = 1000;
+        int warmup = 200;
+        int digits = 100;
+        ArithmeticServer.Operation operation = ArithmeticServer.Operation.MULTIPLY;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[ i ]) {
+                case "--port":        port = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--connections": connections = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--jobs":        jobs = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--warmup":      warmup = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--digits":      digits = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--operation":   operation = ArithmeticServer.Operation.valueOf( args[ i + 1 ] ); break;
+                default: throw new IllegalArgumentException( "unknown option " + args[ i ] );
+            }
+        }
+
+        ArithmeticServer server = null;
+        if (port < 0) {
+            server = new ArithmeticServer( Runtime.getRuntime().availableProcessors() );
+            port = server.listen( 0 ).getPort();
+        }
+        InetSocketAddress address = new InetSocketAddress( InetAddress.getLoopbackAddress(), port );
+
+        StringBuilder operands = new StringBuilder();
+        for (int i = 0; i < operation.nbOperands; i++) {
+            boolean exponent = i == 1 && (operation == ArithmeticServer.Operation.POW || operation == ArithmeticServer.Operation.MODPOW);
+            operands.append( ' ' ).append( exponent ? "3" : LargeInteger.getRandom( digits ).removeLeadingZeros().toString() );
+        }
+        String job = " " + operation + operands + "\n";
+
+        ExecutorService clients = Executors.newFixedThreadPool( connections );
+        List<Future<long[]>> latencies = new ArrayList<>();
+        long[] start = new long[1];
+        CyclicBarrier warm = new CyclicBarrier( connections, () -> start[ 0 ] = System.nanoTime() );
+        for (int c = 0; c < connections; c++) {
+            int measured = jobs;
+            int unmeasured = warmup;
+            latencies.add( clients.submit( () -> run( address, job, unmeasured, measured, warm ) ) );
+        }
+
+        long[] all = new long[connections * jobs];
+        long errors = 0;
+        for (int c = 0; c < connections; c++) {
+            long[] l = latencies.get( c ).get();
+            for (int i = 0; i < jobs; i++) {
+                if (l[ i ] < 0) errors++;
+                all[ c * jobs + i ] = Math.abs( l[ i ] );
+            }
+        }
+        double seconds = (System.nanoTime() - start[ 0 ]) / 1e9;
+        clients.shutdown();
+        if (server != null) server.close();
+
+        Arrays.sort( all );
+        System.out.println( connections + " connections, " + operation + " of " + digits + "-digit operands" );
+        System.out.printf( "%.0f jobs/s, %d errors%n", connections * (double) jobs / seconds, errors );
+        System.out.printf( "latency (us): p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                           percentile( all, 0.50 ), percentile( all, 0.90 ), percentile( all, 0.99 ), percentile( all, 0.999 ), all[ all.length - 1 ] / 1e3 );
+    }
+
+
+    /* Sends warmup and then measured jobs over one connection, one at a time, and returns the latencies of the
+       measured ones in nanoseconds, negated for the answers that were not OK. Between the two, waits on warm
+       until every connection is done with its warmup; if this connection fails, the others stop waiting. */
+    private static long[] run (InetSocketAddress address, String job, int warmup, int measured, CyclicBarrier warm)
+            throws IOException, InterruptedException, BrokenBarrierException {
+        long[] ret = new long[measured];
+        try (SocketChannel channel = SocketChannel.open( address )) {
+            channel.socket().setTcpNoDelay( true );
+            OutputStream out = Channels.newOutputStream( channel );
+            BufferedReader in = new BufferedReader( new InputStreamReader( Channels.newInputStream( channel ), StandardCharsets.US_ASCII ), 1 << 16 );
+            for (int i = -warmup; i < measured; i++) {
+                if (i == 0) warm.await();
+                long start = System.nanoTime();
+                out.write( (i + job).getBytes( StandardCharsets.US_ASCII ) );
+                String answer = in.readLine();
+                long latency = System.nanoTime() - start;
+                if (answer == null) throw new IOException( "server closed the connection" );
+                boolean ok = answer.startsWith( i + " OK " );
+                if (i >= 0) ret[ i ] = ok ? latency : -latency;
+            }
+        } catch (IOException | RuntimeException e) {
+            warm.reset();                                       // the other connections must not wait for this one
+            throw e;
+        }
+        return ret;
+    } // end of run
+
+
+    /* Returns the value at fraction p of the sorted latencies, in microseconds */
+    private static double percentile (long[] sorted, double p) {
+        return sorted[ (int) Math.min( sorted.length - 1, Math.floor( p * sorted.length ) ) ] / 1e3;
+    } // end of percentile
+
+}  // end of the ArithmeticLoadTest class
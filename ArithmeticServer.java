@@ -0,0 +1,536 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/* This class is a standalone process that does arithmetic on LargeIntegers for other programs, which send it
+   jobs over a local socket or drop them in a spool directory, instead of embedding the classes and managing
+   their own threads.
+
+   A job is one line of ASCII text: an id chosen by the client, an operation and its operands, separated by
+   spaces, e.g. "42 MULTIPLY 123456789 @/data/x.txt". An operand is either its digits, or @ followed by the
+   path of a file holding them (see LargeIntegerIO, DECIMAL format); relative paths are resolved against the
+   directory the server runs in. The answer is "42 OK <digits>" or "42 ERROR <message>", on one line. Over a
+   socket, a client may send many jobs without waiting: they run at the same time and every answer is written
+   as soon as it is ready, so answers come back in any order and are matched to their jobs by id. Such a client
+   must read the answers while it is still sending, or both sides end up waiting for the other to read.
+
+   Every job runs on a thread of its own, taken from newVirtualThreadPerTaskExecutor when the JVM has virtual
+   threads (Java 21 and later), or from a cached pool of platform threads otherwise, so a job waiting for its
+   product or for the socket does not hold anything else up. Where the work is done depends on the operands:
+   - products of small operands (up to SMALL_DIGITS digits) and small sums from concurrent jobs are queued and
+     done together, up to MAX_BATCH at a time, with LargeInteger.multiplyAll and sumAll (see Batcher);
+   - other small operations run on the thread of the job;
+   - products and divisions of larger operands, every POW, and MODPOWs with an exponent of more than
+     SMALL_EXPONENT_DIGITS digits go to a pool of one platform thread per core, so that however many jobs
+     arrive, no more of them compute at the same time than there are cores.
+
+   Before a job runs, the number of digits of its result is estimated from its operands (for POW, the digits
+   of the base times the exponent), and a job whose result would have more than the maximum given to the
+   constructor is answered with an ERROR instead of being computed. A job that runs out of memory all the
+   same is answered with an ERROR too.
+
+   Results are streamed to the socket or file with LargeIntegerIO.write, a chunk at a time, without building
+   the whole answer as a String first. A connection reads at most MAX_PENDING jobs ahead of the answers it has
+   written, so that a client sending faster than the server computes is slowed down instead of filling the
+   memory. ArithmeticLoadTest measures the throughput and the latencies of a server on one machine.
+
+   The server only listens on the loopback interface or on a Unix domain socket: it reads any file its jobs
+   name, so it must not be reachable from other machines. */
+class ArithmeticServer implements Closeable {
+
+    /* Operands of up to this many digits make a small job, done on the thread of the job or in a batch */
+    static final int SMALL_DIGITS = 2000;
+
+    /* A MODPOW whose exponent has more digits than this goes to the compute pool, whatever the size of its other operands */
+    static final int SMALL_EXPONENT_DIGITS = 9;
+
+    /* Default largest number of digits of the result of a job */
+    static final long MAX_RESULT_DIGITS = 100_000_000;
+
+    /* Largest number of small jobs done in one batch */
+    static final int MAX_BATCH = 256;
+
+    /* Largest number of jobs of one connection that run at the same time */
+    static final int MAX_PENDING = 64;
+
+    /* The operations a job can ask for, with their number of operands */
+    enum Operation {
+        ADD( 2 ), SUBTRACT( 2 ), MULTIPLY( 2 ), SQUARE( 1 ), POW( 2 ), DIVIDE( 2 ), REMAINDER( 2 ), MODPOW( 3 );
+
+        final int nbOperands;
+
+        Operation (int nbOperands) {
+            this.nbOperands = nbOperands;
+        }
+
+        /* Returns the result of the operation on x, computed on the current thread */
+        LargeInteger apply (LargeInteger[] x) {
+            switch (this) {
+                case ADD:       return x[ 0 ].add( x[ 1 ] );
+                case SUBTRACT:  return x[ 0 ].subtract( x[ 1 ] );
+                case MULTIPLY:  return x[ 0 ].multiply( x[ 1 ] );
+                case SQUARE:    return x[ 0 ].square();
+                case POW:       return x[ 0 ].pow( x[ 1 ] );
+                case DIVIDE:    return x[ 0 ].divide( x[ 1 ] );
+                case REMAINDER: return x[ 0 ].remainder( x[ 1 ] );
+                default:        return x[ 0 ].modPow( x[ 1 ], x[ 2 ] );
+            }
+        }
+    }
+
+
+    /* The answer to a job: its result, or the message of the error that stopped it */
+    static final class Answer {
+        final String id;
+        final LargeInteger result;
+        final String error;
+
+        Answer (String id, LargeInteger result, String error) {
+            this.id = id;
+            this.result = result;
+            this.error = error;
+        }
+
+        /* Writes the answer to channel as one line. Small answers are written at once; the digits of larger
+           results are streamed a chunk at a time. */
+        void writeTo (WritableByteChannel channel) throws IOException {
+            if (result == null) {
+                writeFully( channel, id + " ERROR " + error.replace( '\n', ' ' ) + "\n" );
+                return;
+            }
+            LargeInteger value = result.removeLeadingZeros();
+            if (value.digits.length <= SMALL_DIGITS) {
+                writeFully( channel, id + " OK " + value + "\n" );
+                return;
+            }
+            writeFully( channel, id + " OK " );
+            LargeIntegerIO.write( value, channel, LargeIntegerIO.Format.DECIMAL );
+            writeFully( channel, "\n" );
+        }
+    }
+
+
+    /* Collects the small products and sums of concurrent jobs, and does them together on a thread of its own.
+       The thread waits for the first job, then takes every other job queued by then, up to MAX_BATCH, so that
+       a lone job is not delayed and jobs that arrive together are done together. */
+    static final class Batcher implements Runnable {
+
+        private static final class Pending {
+            final Operation operation;
+            final LargeInteger a;
+            final LargeInteger b;
+            final CompletableFuture<LargeInteger> result = new CompletableFuture<>();
+
+            Pending (Operation operation, LargeInteger a, LargeInteger b) {
+                this.operation = operation;
+                this.a = a;
+                this.b = b;
+            }
+        }
+
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+
+        /* Queues a * b or a + b, depending on operation, and returns its future result */
+        Future<LargeInteger> submit (Operation operation, LargeInteger a, LargeInteger b) {
+            Pending pending = new Pending( operation, a, b );
+            queue.add( pending );
+            return pending.result;
+        }
+
+
+        public void run () {
+            List<Pending> batch = new ArrayList<>( MAX_BATCH );
+            try {
+                while (true) {
+                    batch.add( queue.take() );
+                    queue.drainTo( batch, MAX_BATCH - 1 );
+                    run( batch, Operation.MULTIPLY );
+                    run( batch, Operation.ADD );
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                for (Pending pending : queue) pending.result.cancel( false );
+            }
+        }
+
+
+        /* Does the jobs of batch that ask for operation, all at once */
+        private static void run (List<Pending> batch, Operation operation) {
+            List<Pending> jobs = new ArrayList<>();
+            List<LargeInteger> a = new ArrayList<>();
+            List<LargeInteger> b = new ArrayList<>();
+            for (Pending pending : batch) {
+                if (pending.operation != operation) continue;
+                jobs.add( pending );
+                a.add( pending.a );
+                b.add( pending.b );
+            }
+            if (jobs.isEmpty()) return;
+
+            try {
+                List<LargeInteger> results = operation == Operation.MULTIPLY ? LargeInteger.multiplyAll( a, b ) : LargeInteger.sumAll( a, b );
+                for (int i = 0; i < jobs.size(); i++) jobs.get( i ).result.complete( results.get( i ) );
+            } catch (RuntimeException | OutOfMemoryError e) {
+                for (Pending pending : jobs) pending.result.completeExceptionally( e );
+            }
+        }
+    }
+
+
+    private final ExecutorService jobs;                            // one thread per job
+    final boolean virtualThreads;                                  // true if they are virtual threads, false if the JVM has none
+    private final ExecutorService compute;                         // one platform thread per core, for large operands
+    private final Batcher batcher = new Batcher();
+    private final Thread batcherThread;
+    private final List<Closeable> listeners = new ArrayList<>();
+    private final long maxDigits;                                  // largest number of digits of a result
+    private volatile boolean closed;
+
+
+
+    /* Constructor for a server whose large operations run on threads platform threads, with results of at most
+       MAX_RESULT_DIGITS digits */
+    ArithmeticServer (int threads) {
+        this( threads, MAX_RESULT_DIGITS );
+    }
+
+
+    /* Constructor for a server whose large operations run on threads platform threads, and which rejects the
+       jobs whose result would have more than maxDigits digits. It does not listen to anything until listen or
+       spool is called. */
+    ArithmeticServer (int threads, long maxDigits) {
+        if (maxDigits < 1) throw new IllegalArgumentException( "maxDigits must be positive: " + maxDigits );
+        this.maxDigits = maxDigits;
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        virtualThreads = virtual != null;
+        jobs = virtualThreads ? virtual : Executors.newCachedThreadPool( daemons( "job" ) );
+        compute = Executors.newFixedThreadPool( threads, daemons( "compute" ) );
+        batcherThread = daemons( "batcher" ).newThread( batcher );
+        batcherThread.start();
+    }
+
+
+    /* Listens for connections on port of the loopback interface (0 picks a free port) and returns the address
+       it listens on. Every connection is served on a thread of its own. */
+    InetSocketAddress listen (int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ) );
+        accept( server );
+        return (InetSocketAddress) server.getLocalAddress();
+    } // end of listen
+
+
+    /* Listens for connections on a Unix domain socket at path, which must not exist yet */
+    void listen (Path path) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open( StandardProtocolFamily.UNIX );
+        server.bind( UnixDomainSocketAddress.of( path ) );
+        accept( server );
+    } // end of listen
+
+
+    /* Watches directory for job files, named *.job, that hold one job per line. The jobs of a file run at the
+       same time, and their answers are written in the same order to a file with the same name ending in
+       .result instead, after which the job file is renamed to end in .done. A job file should be written under
+       another name and renamed to *.job once complete, so that the server never reads half of it. */
+    void spool (Path directory) throws IOException {
+        WatchService watcher = directory.getFileSystem().newWatchService();
+        directory.register( watcher, StandardWatchEventKinds.ENTRY_CREATE );                 // renaming a file into directory creates it
+        listeners.add( watcher );
+        jobs.execute( () -> {
+            try {
+                while (!closed) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream( directory, "*.job" )) {
+                        for (Path file : files) {
+                            try {
+                                runFile( file );
+                            } catch (IOException e) {
+                                System.err.println( "Couldn't run " + file + ": " + e );
+                            }
+                        }
+                    }
+                    WatchKey key = watcher.take();                  // wait for new files, then list them all again
+                    key.pollEvents();
+                    key.reset();
+                }
+            } catch (IOException | InterruptedException | ClosedWatchServiceException e) {
+                if (!closed) System.err.println( "Spooling of " + directory + " stopped: " + e );
+            }
+        } );
+    } // end of spool
+
+
+    /* Returns the answer to a job line. Errors in the job or during the computation become ERROR answers. */
+    Answer run (String line) {
+        String[] fields = line.trim().split( " +" );
+        String id = fields[ 0 ];
+        try {
+            if (fields.length < 2) throw new IllegalArgumentException( "no operation" );
+            Operation operation = Operation.valueOf( fields[ 1 ] );
+            if (fields.length != 2 + operation.nbOperands) throw new IllegalArgumentException( operation + " takes " + operation.nbOperands + " operands" );
+            LargeInteger[] x = new LargeInteger[operation.nbOperands];
+            for (int i = 0; i < x.length; i++) x[ i ] = operand( fields[ 2 + i ] );
+            return new Answer( id, compute( operation, x ), null );
+        } catch (ExecutionException e) {
+            return new Answer( id, null, String.valueOf( e.getCause() ) );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Answer( id, null, "interrupted" );
+        } catch (IOException | RuntimeException e) {
+            return new Answer( id, null, e.toString() );
+        } catch (OutOfMemoryError e) {
+            return new Answer( id, null, "out of memory" );
+        }
+    } // end of run
+
+
+    /* Stops listening and spooling, and interrupts the jobs still running */
+    public void close () throws IOException {
+        closed = true;
+        for (Closeable listener : listeners) listener.close();
+        jobs.shutdownNow();
+        compute.shutdownNow();
+        batcherThread.interrupt();
+    } // end of close
+
+
+    /* Returns the result of operation on x, computed where the size of x says (see the description of the class).
+       Throws an ArithmeticException if the result would have more than maxDigits digits. */
+    private LargeInteger compute (Operation operation, LargeInteger[] x) throws InterruptedException, ExecutionException {
+        long digits = resultDigits( operation, x );
+        if (digits > maxDigits) throw new ArithmeticException( operation + " would give a result of about " + digits + " digits, more than the limit of " + maxDigits );
+
+        boolean small = operation != Operation.POW
+                        && (operation != Operation.MODPOW || significantDigits( x[ 1 ] ) <= SMALL_EXPONENT_DIGITS);
+        for (LargeInteger operand : x) small &= significantDigits( operand ) <= SMALL_DIGITS;
+
+        if (small && (operation == Operation.MULTIPLY || operation == Operation.ADD)) return batcher.submit( operation, x[ 0 ], x[ 1 ] ).get();
+        if (small || operation == Operation.ADD || operation == Operation.SUBTRACT) return operation.apply( x );
+        Future<LargeInteger> ret = compute.submit( () -> operation.apply( x ) );
+        try {
+            return ret.get();
+        } catch (InterruptedException e) {
+            ret.cancel( true );                                     // stops the computation at its next Cancellation.check
+            throw e;
+        }
+    } // end of compute
+
+
+    /* Returns an upper bound of the number of digits of the result of operation on x, or Long.MAX_VALUE if
+       it does not fit in a long */
+    private static long resultDigits (Operation operation, LargeInteger[] x) {
+        long a = significantDigits( x[ 0 ] );
+        long b = x.length > 1 ? significantDigits( x[ 1 ] ) : 0;
+        switch (operation) {
+            case ADD:
+            case SUBTRACT:  return Math.max( a, b ) + 1;
+            case MULTIPLY:  return a + b;
+            case SQUARE:    return 2 * a;
+            case DIVIDE:
+            case REMAINDER: return a;
+            case MODPOW:    return significantDigits( x[ 2 ] );
+            default:
+                if (a == 1 && x[ 0 ].digits[ x[ 0 ].digits.length - 1 ] <= 1) return 1;     // 0 and 1 to any power
+                if (b > 18) return Long.MAX_VALUE;
+                long exponent = Long.parseLong( x[ 1 ].removeLeadingZeros().toString() );
+                return exponent > Long.MAX_VALUE / a ? Long.MAX_VALUE : Math.max( a * exponent, 1 );
+        }
+    } // end of resultDigits
+
+
+    /* Returns the number of digits of x without its leading zeros, 1 for zero */
+    private static int significantDigits (LargeInteger x) {
+        int zeros = 0;
+        while (zeros < x.digits.length - 1 && x.digits[ zeros ] == 0) zeros++;
+        return x.digits.length - zeros;
+    } // end of significantDigits
+
+
+    /* Returns the number given by an operand of a job line: its digits, or @ and the path of a file holding them */
+    private static LargeInteger operand (String field) throws IOException {
+        if (field.startsWith( "@" )) return LargeInteger.readFrom( Path.of( field.substring( 1 ) ), LargeIntegerIO.Format.DECIMAL );
+        return new LargeInteger( field );
+    } // end of operand
+
+
+    /* Serves the connections to server until it is closed */
+    private void accept (ServerSocketChannel server) {
+        listeners.add( server );
+        jobs.execute( () -> {
+            try {
+                while (!closed) {
+                    SocketChannel connection = server.accept();
+                    if (connection.getLocalAddress() instanceof InetSocketAddress) {
+                        connection.socket().setTcpNoDelay( true );        // answers are sent as soon as they are written
+                    }
+                    jobs.execute( () -> serve( connection ) );
+                }
+            } catch (IOException e) {
+                if (!closed) System.err.println( "Stopped listening: " + e );
+            }
+        } );
+    } // end of accept
+
+
+    /* Reads the jobs of a connection until the client closes it, and runs each of them on a thread of its own,
+       which writes its answer as soon as it has it. Answers are written one at a time, so they never mix. */
+    private void serve (SocketChannel connection) {
+        Semaphore pending = new Semaphore( MAX_PENDING );
+        try (connection;
+             BufferedReader in = new BufferedReader( new InputStreamReader( Channels.newInputStream( connection ), StandardCharsets.US_ASCII ), 1 << 16 )) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                pending.acquire();
+                String job = line;
+                jobs.execute( () -> {
+                    try {
+                        Answer answer = run( job );
+                        synchronized (connection) {
+                            answer.writeTo( connection );
+                        }
+                    } catch (ClosedChannelException e) {
+                        // the client left without waiting for its answers
+                    } catch (IOException e) {
+                        System.err.println( "Couldn't answer job " + job.split( " ", 2 )[ 0 ] + ": " + e );
+                    } finally {
+                        pending.release();
+                    }
+                } );
+            }
+            pending.acquire( MAX_PENDING );                        // the client may have stopped sending, but still be reading
+        } catch (IOException e) {
+            if (!closed) System.err.println( "Connection lost: " + e );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    } // end of serve
+
+
+    /* Runs the jobs of a job file and writes their answers, in order, to the matching .result file */
+    private void runFile (Path file) throws IOException {
+        String name = file.getFileName().toString();
+        String base = name.substring( 0, name.length() - ".job".length() );
+        List<Future<Answer>> answers = new ArrayList<>();
+        for (String line : Files.readAllLines( file, StandardCharsets.US_ASCII )) {
+            if (!line.isBlank()) answers.add( CompletableFuture.supplyAsync( () -> run( line ), jobs ) );
+        }
+
+        Path partial = file.resolveSibling( base + ".result.tmp" );
+        try (FileChannel out = FileChannel.open( partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE )) {
+            for (Future<Answer> answer : answers) answer.get().writeTo( out );
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException( "job file " + file + " interrupted", e );
+        }
+        Files.move( partial, file.resolveSibling( base + ".result" ), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        Files.move( file, file.resolveSibling( base + ".done" ), StandardCopyOption.REPLACE_EXISTING );
+    } // end of runFile
+
+
+    private static void writeFully (WritableByteChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap( text.getBytes( StandardCharsets.US_ASCII ) );
+        while (buffer.hasRemaining()) channel.write( buffer );
+    } // end of writeFully
+
+
+    /* Returns Executors.newVirtualThreadPerTaskExecutor(), or null before Java 21 or when virtual threads are
+       a preview feature that is not enabled. It is called by reflection, so that the server also compiles and
+       runs on older JVMs. */
+    private static ExecutorService newVirtualThreadPerTaskExecutor () {
+        try {
+            return (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    } // end of newVirtualThreadPerTaskExecutor
+
+
+    private static ThreadFactory daemons (String name) {
+        return runnable -> {
+            Thread ret = new Thread( runnable, name );
+            ret.setDaemon( true );
+            return ret;
+        };
+    } // end of daemons
+
+
+    /* Runs a server until the process is stopped. The arguments are any of:
+       --port <n>       listen on port n of the loopback interface (the default, on port 7070)
+       --socket <path>  listen on a Unix domain socket instead
+       --spool <dir>    also run the job files dropped in dir
+       --threads <n>    number of threads for large operations (one per core by default)
+       --max-digits <n> largest number of digits of a result (MAX_RESULT_DIGITS by default) */
+    public static void main (String[] args) throws IOException, InterruptedException {
+        int port = 7070;
+        Path socket = null;
+        Path spool = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxDigits = MAX_RESULT_DIGITS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[ i ]) {
+                case "--port":    port = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--socket":  socket = Path.of( args[ i + 1 ] ); break;
+                case "--spool":   spool = Path.of( args[ i + 1 ] ); break;
+                case "--threads": threads = Integer.parseInt( args[ i + 1 ] ); break;
+                case "--max-digits": maxDigits = Long.parseLong( args[ i + 1 ] ); break;
+                default: throw new IllegalArgumentException( "unknown option " + args[ i ] );
+            }
+        }
+
+        ArithmeticServer server = new ArithmeticServer( threads, maxDigits );
+        SocketAddress address;
+        if (socket != null) {
+            server.listen( socket );
+            address = UnixDomainSocketAddress.of( socket );
+        } else {
+            address = server.listen( port );
+        }
+        if (spool != null) server.spool( spool );
+        System.out.println( "Listening on " + address + (spool != null ? ", spooling " + spool : "") + ", jobs on "
+                            + (server.virtualThreads ? "virtual" : "platform") + " threads, " + threads + " compute threads" );
+
+        Runtime.getRuntime().addShutdownHook( new Thread( () -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // exiting anyway
+            }
+        } ) );
+        Thread.currentThread().join();                              // serve until the process is stopped
+    }
+
+}  // end of the ArithmeticServer class
@@ -0,0 +1,162 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/* This class multiplies or adds many independent pairs of limb arrays (see PackedLargeInteger) at once.
+
+   The pairs are cut into chunks of consecutive pairs, and the chunks are spread over the cores by the
+   common fork-join pool. Every result is stored at the index of its pair, so results come back in the
+   order of the pairs whatever the order in which the chunks ran.
+
+   A chunk runs on a single thread, with its own Workspace: the scratch arena of Karatsuba and the arrays
+   of the number-theoretic transform are allocated once per chunk instead of once per product, and only the
+   products themselves are new arrays. The roots of unity of a transform length are computed once for the
+   whole batch and shared by all the chunks. When consecutive pairs of a chunk have an operand in common
+   (the same array, e.g. when many numbers are multiplied by the same one), its transforms are reused too.
+   The algorithm of every pair is picked from its size as in PackedLargeInteger.multiply. */
+class BatchArithmetic {
+
+    /* Number of chunks per core, so that a core whose chunks were quick can take over those of the others */
+    static final int CHUNKS_PER_CORE = 4;
+
+
+    /* The arrays that the products of one chunk work in */
+    static final class Workspace {
+        private int[] scratch = new int[0];
+        final NumberTheoreticTransform.Workspace transforms = new NumberTheoreticTransform.Workspace( true );
+
+        /* Returns a scratch arena of at least size limbs */
+        int[] scratch (int size) {
+            if (scratch.length < size) scratch = new int[size];
+            return scratch;
+        }
+    }
+
+
+    /* The work done on the pairs start up to but not including stop */
+    interface Chunk {
+        void run (int start, int stop);
+    }
+
+
+    private final MultiplyThresholds thresholds;
+    private final Map<Integer, NumberTheoreticTransform.Plan> plans = new ConcurrentHashMap<>();       // by transform length
+
+
+
+    /* Constructor for a batch whose products are done with the given thresholds */
+    BatchArithmetic (MultiplyThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+
+    /* Returns the products a[i] * b[i], in order */
+    int[][] multiplyAll (int[][] a, int[][] b) {
+        checkSizes( a.length, b.length );
+        int[][] ret = new int[a.length][];
+        forEachChunk( a.length, (start, stop) -> {
+            Workspace work = new Workspace();
+            for (int i = start; i < stop; i++) ret[ i ] = multiply( a[ i ], b[ i ], work );
+        } );
+        return ret;
+    } // end of multiplyAll
+
+
+    /* Returns the sums a[i] + b[i], in order */
+    static int[][] addAll (int[][] a, int[][] b) {
+        checkSizes( a.length, b.length );
+        int[][] ret = new int[a.length][];
+        forEachChunk( a.length, (start, stop) -> {
+            for (int i = start; i < stop; i++) ret[ i ] = PackedLargeInteger.add( a[ i ], b[ i ] );
+        } );
+        return ret;
+    } // end of addAll
+
+
+    /* Returns the products a.get( i ) * b.get( i ), in order. The operands are packed into limbs, and the products
+       unpacked, in the chunks as well. An operand that is the same object as in the previous pair is only packed once,
+       which keeps it the same array, so its transforms are reused too. */
+    LargeInteger[] multiplyAll (List<LargeInteger> a, List<LargeInteger> b) {
+        checkSizes( a.size(), b.size() );
+        LargeInteger[] x = a.toArray( new LargeInteger[0] );
+        LargeInteger[] y = b.toArray( new LargeInteger[0] );
+        LargeInteger[] ret = new LargeInteger[x.length];
+        forEachChunk( x.length, (start, stop) -> {
+            Workspace work = new Workspace();
+            int[] xLimbs = null;
+            int[] yLimbs = null;
+            for (int i = start; i < stop; i++) {
+                if (i == start || x[ i ] != x[ i - 1 ]) xLimbs = x[ i ].toPacked().limbs;
+                if (y[ i ] == x[ i ]) yLimbs = xLimbs;
+                else if (i == start || y[ i ] != y[ i - 1 ]) yLimbs = y[ i ].toPacked().limbs;
+                ret[ i ] = new PackedLargeInteger( multiply( xLimbs, yLimbs, work ) ).toLargeInteger();
+            }
+        } );
+        return ret;
+    } // end of multiplyAll
+
+
+    /* Returns the sums a.get( i ) + b.get( i ), in order */
+    static LargeInteger[] addAll (List<LargeInteger> a, List<LargeInteger> b) {
+        checkSizes( a.size(), b.size() );
+        LargeInteger[] x = a.toArray( new LargeInteger[0] );
+        LargeInteger[] y = b.toArray( new LargeInteger[0] );
+        LargeInteger[] ret = new LargeInteger[x.length];
+        forEachChunk( x.length, (start, stop) -> {
+            for (int i = start; i < stop; i++) ret[ i ] = x[ i ].add( y[ i ] );
+        } );
+        return ret;
+    } // end of addAll
+
+
+    /* Returns a * b with the arrays of work, the algorithm being picked as in PackedLargeInteger.multiply */
+    int[] multiply (int[] a, int[] b, Workspace work) {
+        Cancellation.check();
+        if (a == b) return square( a, work );
+
+        int shorter = Math.min( a.length, b.length );
+        if (shorter < thresholds.karatsuba) return PackedLargeInteger.multiplySchoolbook( a, b );
+        if (shorter >= thresholds.ntt && NumberTheoreticTransform.fits( a.length, b.length ))
+            return NumberTheoreticTransform.multiply( a, b, plan( a.length + b.length - 1 ), work.transforms );
+        if (shorter >= thresholds.toom) return ToomCook3.multiply( a, b, thresholds );
+
+        int[] product = new int[a.length + b.length];
+        int[] scratch = work.scratch( PackedLargeInteger.karatsubaScratchSize( Math.max( a.length, b.length ) ) );
+        PackedLargeInteger.karatsubaInto( a, 0, a.length, b, 0, b.length, product, 0, scratch, 0, thresholds );
+        return PackedLargeInteger.normalize( product );
+    } // end of multiply
+
+
+    /* Returns a * a with the arrays of work, the algorithm being picked as in PackedLargeInteger.square */
+    int[] square (int[] a, Workspace work) {
+        if (a.length >= thresholds.ntt && NumberTheoreticTransform.fits( a.length, a.length ))
+            return NumberTheoreticTransform.multiply( a, a, plan( 2 * a.length - 1 ), work.transforms );
+        if (a.length >= thresholds.toom) return ToomCook3.square( a, thresholds );
+
+        int[] square = new int[2 * a.length];
+        int[] scratch = a.length < thresholds.karatsuba ? null : work.scratch( PackedLargeInteger.karatsubaScratchSize( a.length ) );
+        PackedLargeInteger.karatsubaSquareInto( a, 0, a.length, square, 0, scratch, 0, thresholds );
+        return PackedLargeInteger.normalize( square );
+    } // end of square
+
+
+    /* Runs chunk over the pairs 0 up to but not including count, cut into chunks that run in parallel */
+    static void forEachChunk (int count, Chunk chunk) {
+        int chunks = Math.max( 1, Math.min( count, CHUNKS_PER_CORE * Runtime.getRuntime().availableProcessors() ) );
+        IntStream.range( 0, chunks ).parallel().forEach( c -> chunk.run( (int)( (long) count * c / chunks ), (int)( (long) count * (c + 1) / chunks ) ) );
+    } // end of forEachChunk
+
+
+    /* Throws an IllegalArgumentException unless both lists of operands have the same size */
+    static void checkSizes (int aSize, int bSize) {
+        if (aSize != bSize) throw new IllegalArgumentException( "operand lists of different sizes: " + aSize + " and " + bSize );
+    } // end of checkSizes
+
+
+    /* Returns the plan of the transforms for a product of length limbs, shared by the whole batch */
+    private NumberTheoreticTransform.Plan plan (int length) {
+        return plans.computeIfAbsent( NumberTheoreticTransform.transformLength( length ), NumberTheoreticTransform.Plan::new );
+    } // end of plan
+
+}  // end of the BatchArithmetic class
@@ -0,0 +1,245 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/* This class runs the benchmark sweeps of TestLargeInteger: every algorithm on numbers of 2^1 up to 2^14
+   digits, each (algorithm, size) cell measured with LargeIntegerBenchmark.measure.
+
+   The cells do not depend on each other, so they are run in parallel by a fixed pool with one worker per
+   available core. Java can not pin a thread to a core; the pool only follows the cores the JVM is allowed
+   to use, so running it under taskset pins the whole sweep. Smaller sizes are queued first.
+
+   A cell that runs longer than timeoutMillis is cancelled for real: its worker is interrupted, and the
+   algorithms give up at their next Cancellation.check. Larger sizes of the same algorithm would take even
+   longer, so they are cancelled as well, or not started.
+
+   Every finished cell is appended to a checkpoint file right away. If a sweep is interrupted, running it
+   again reads the checkpoint and only runs the missing cells. Once all the cells are done, the results
+   are written in the layout executionTimes.csv has always had, and the checkpoint is deleted. With
+   -Dmetrics=true, the counts of Metrics go to executionTimesMetrics.csv as well; they only cover the cells
+   run by this sweep, not those read from the checkpoint. */
+class BenchmarkScheduler {
+
+    /* The columns of executionTimes.csv, in order */
+    static final LargeIntegerBenchmark.Benchmark[] COLUMNS = {
+        LargeIntegerBenchmark.Benchmark.ITERATIVE_ADDITION,
+        LargeIntegerBenchmark.Benchmark.STANDARD_MULTIPLICATION,
+        LargeIntegerBenchmark.Benchmark.RECURSIVE_MULTIPLICATION,
+        LargeIntegerBenchmark.Benchmark.RECURSIVE_FAST_MULTIPLICATION,
+        LargeIntegerBenchmark.Benchmark.PACKED_STANDARD_MULTIPLICATION,
+        LargeIntegerBenchmark.Benchmark.PACKED_RECURSIVE_FAST_MULTIPLICATION,
+        LargeIntegerBenchmark.Benchmark.MULTIPLY
+    };
+
+    static final int MIN_LOG2_DIGITS = 1;
+    static final int MAX_LOG2_DIGITS = 14;
+
+
+    /* One (algorithm, size) of the sweep, and the worker running it, if any */
+    static final class Cell {
+        final LargeIntegerBenchmark.Benchmark benchmark;
+        final int digits;
+        private Thread worker;
+        private boolean cancelled;
+
+        Cell (LargeIntegerBenchmark.Benchmark benchmark, int digits) {
+            this.benchmark = benchmark;
+            this.digits = digits;
+        }
+
+        /* Interrupts the worker running this cell, or makes sure that it never starts */
+        synchronized void cancel () {
+            cancelled = true;
+            if (worker != null) worker.interrupt();
+        }
+
+        /* Attaches the current thread to this cell. Returns false if the cell was cancelled before it started. */
+        synchronized boolean start () {
+            if (cancelled) return false;
+            worker = Thread.currentThread();
+            return true;
+        }
+
+        /* Detaches the worker, after which cancel can no longer interrupt it. A cancellation that came too late
+           to stop the cell would otherwise hit the next cell of the worker. */
+        synchronized void finish () {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        String key () {
+            return benchmark.column + "," + digits;
+        }
+    }
+
+
+    final String output;
+    final Path checkpoint;
+    int workers = Runtime.getRuntime().availableProcessors();
+    long timeoutMillis = TimeUnit.MINUTES.toMillis( 30 );
+    String[] options = {};                  // measurement options of every cell, as on the command line of LargeIntegerBenchmark
+
+    private final Map<String, Double> results = new ConcurrentHashMap<>();         // ns/op by Cell.key, NaN for cells that took too long
+    private final List<Cell> cells = new ArrayList<>();
+    private BufferedWriter checkpointWriter;
+
+
+
+    /* Constructor for a sweep whose results go to output, checkpointed in output + ".checkpoint" */
+    BenchmarkScheduler (String output) {
+        this.output = output;
+        this.checkpoint = Path.of( output + ".checkpoint" );
+    }
+
+
+    /* Runs every cell that is not in the checkpoint yet, then writes the CSV file */
+    void run () throws IOException, InterruptedException {
+        readCheckpoint();
+
+        ThreadFactory daemons = runnable -> {
+            Thread ret = new Thread( runnable, "benchmark" );
+            ret.setDaemon( true );
+            return ret;
+        };
+        ExecutorService pool = Executors.newFixedThreadPool( workers, daemons );
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor( daemons );
+        checkpointWriter = Files.newBufferedWriter( checkpoint, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND );
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int log2 = MIN_LOG2_DIGITS; log2 <= MAX_LOG2_DIGITS; log2++) {
+                for (LargeIntegerBenchmark.Benchmark benchmark : COLUMNS) {
+                    Cell cell = new Cell( benchmark, 1 << log2 );
+                    if (results.containsKey( cell.key() )) continue;             // done by an earlier run
+                    synchronized (cells) { cells.add( cell ); }
+                    if (log2 > benchmark.maxLog2Digits) cell.cancel();           // would never finish
+                    if (tookTooLong( benchmark, cell.digits )) cell.cancel();    // a smaller size timed out in an earlier run
+                    futures.add( pool.submit( () -> runCell( cell, watchdog ) ) );
+                }
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException( e.getCause() );
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+            checkpointWriter.close();
+        }
+
+        writeCsv();
+        if (Metrics.ENABLED) Metrics.write( output.replaceFirst( "\\.csv$", "" ) + "Metrics.csv" );
+        Files.deleteIfExists( checkpoint );
+    } // end of run
+
+
+    /* Measures one cell on the current worker, with an alarm that cancels it after timeoutMillis */
+    private void runCell (Cell cell, ScheduledExecutorService watchdog) {
+        if (!cell.start()) {
+            record( cell, Double.NaN );
+            return;
+        }
+        ScheduledFuture<?> alarm = watchdog.schedule( cell::cancel, timeoutMillis, TimeUnit.MILLISECONDS );
+        try {
+            LargeIntegerBenchmark suite = new LargeIntegerBenchmark();         // one per cell: the Blackhole is not shared between workers
+            suite.parse( options );
+            LargeIntegerBenchmark.Operands operands = new LargeIntegerBenchmark.Operands( cell.digits, suite.seed );
+            record( cell, suite.measure( cell.benchmark, operands, cell.digits ).score );
+        } catch (CancellationException e) {
+            System.out.println( cell.benchmark.column + ". Digits: " + cell.digits + ". Calculation took too long" );
+            record( cell, Double.NaN );
+            cancelLarger( cell );
+        } finally {
+            alarm.cancel( false );
+            cell.finish();
+        }
+    } // end of runCell
+
+
+    /* Cancels the cells of the same benchmark as cell on larger numbers */
+    private void cancelLarger (Cell cell) {
+        synchronized (cells) {
+            for (Cell other : cells) {
+                if (other.benchmark == cell.benchmark && other.digits > cell.digits) other.cancel();
+            }
+        }
+    } // end of cancelLarger
+
+
+    /* Returns true if the checkpoint holds a timed out cell of benchmark on fewer digits */
+    private boolean tookTooLong (LargeIntegerBenchmark.Benchmark benchmark, int digits) {
+        for (int smaller = digits / 2; smaller >= 1 << MIN_LOG2_DIGITS; smaller /= 2) {
+            Double result = results.get( benchmark.column + "," + smaller );
+            if (result != null && result.isNaN()) return true;
+        }
+        return false;
+    } // end of tookTooLong
+
+
+    /* Stores the result of a cell and appends it to the checkpoint */
+    private void record (Cell cell, double score) {
+        results.put( cell.key(), score );
+        synchronized (checkpointWriter) {
+            try {
+                checkpointWriter.write( cell.key() + "," + (Double.isNaN( score ) ? "null" : String.valueOf( score )) + "\n" );
+                checkpointWriter.flush();
+            } catch (IOException e) {
+                System.out.println( "Couldn't write to " + checkpoint );
+            }
+        }
+    } // end of record
+
+
+    /* Reads the cells finished by an earlier run, if it was interrupted. A line cut short by the interruption is ignored. */
+    private void readCheckpoint () throws IOException {
+        if (!Files.exists( checkpoint )) return;
+        for (String line : Files.readAllLines( checkpoint, StandardCharsets.UTF_8 )) {
+            String[] fields = line.split( "," );
+            if (fields.length != 3) continue;
+            try {
+                Integer.parseInt( fields[ 1 ] );
+                results.put( fields[ 0 ] + "," + fields[ 1 ], fields[ 2 ].equals( "null" ) ? Double.NaN : Double.parseDouble( fields[ 2 ] ) );
+            } catch (NumberFormatException e) {
+                // incomplete line
+            }
+        }
+        System.out.println( "Resuming from " + checkpoint + ": " + results.size() + " cells already done" );
+    } // end of readCheckpoint
+
+
+    /* Writes the results: one row per size, one column per algorithm, the average time of an operation in
+       nanoseconds (which is what the total time of 1000 operations in microseconds used to be), or null */
+    private void writeCsv () throws IOException {
+        try (FileWriter writer = new FileWriter( output )) {
+            StringBuilder header = new StringBuilder( "Powers of Two" );
+            for (LargeIntegerBenchmark.Benchmark benchmark : COLUMNS) header.append( ',' ).append( benchmark.column );
+            writer.write( header + "\n" );
+
+            for (int log2 = MIN_LOG2_DIGITS; log2 <= MAX_LOG2_DIGITS; log2++) {
+                StringBuilder row = new StringBuilder( String.valueOf( Math.pow( 2, log2 ) ) );
+                for (LargeIntegerBenchmark.Benchmark benchmark : COLUMNS) {
+                    Double result = results.get( benchmark.column + "," + (1 << log2) );
+                    row.append( ',' ).append( result == null || result.isNaN() ? "null" : String.valueOf( Math.round( result ) ) );
+                }
+                writer.write( row + "\n" );
+            }
+        }
+    } // end of writeCsv
+
+}  // end of the BenchmarkScheduler class
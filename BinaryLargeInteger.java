@@ -0,0 +1,410 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/* This class stores and manipulates very large non-negative integer numbers, like LargeInteger and
+   PackedLargeInteger, but in binary: every element of an array of longs holds 64 bits of the number,
+   read as an unsigned value. A limb holds about 19.3 decimal digits instead of 9 for PackedLargeInteger,
+   carries are the bits that overflow instead of results of divisions by a power of ten, and the high
+   half of a product of two limbs comes from Math.multiplyHigh.
+
+   Arithmetic never needs decimal digits, so they are only computed when they are asked for (toString,
+   toLargeInteger, toPacked), and then kept. Both conversions are exact and divide and conquer: a number
+   is split in halves, each half is converted, and they are put back together with one multiplication
+   by a power of the other base, on the fastest multiplication of the target representation.
+
+   The two forms suit different workloads: PackedLargeInteger when numbers are read and printed often,
+   BinaryLargeInteger when they are mostly computed with. */
+class BinaryLargeInteger {
+
+    /* Below this size (in limbs of 64 bits), Karatsuba uses the schoolbook product. A limb holds a bit more
+       than twice the digits of a limb of PackedLargeInteger, hence half its default threshold. */
+    static final int KARATSUBA_THRESHOLD = 20;
+
+    /* Below this size (in limbs of either base), conversions use the quadratic algorithm */
+    static final int CONVERSION_BASE_CASE = 32;
+
+    /* 2^64 in limbs of PackedLargeInteger */
+    private static final int[] TWO_TO_THE_64 = DecimalConversion.parseLimbs( "18446744073709551616" );
+
+    /* The limbs of the number, least significant first, as unsigned longs. As in PackedLargeInteger,
+       the array never has leading zero limbs, except for the number zero, stored as a single zero limb. */
+    final long[] limbs;
+
+    /* The limbs of PackedLargeInteger with the same value, computed the first time they are needed */
+    private volatile int[] decimal;
+
+
+
+    /* Constructor that wraps an already normalized array of limbs. The array is not copied. */
+    BinaryLargeInteger (long[] limbs) {
+        this.limbs = limbs;
+    }
+
+
+    /* Constructor that creates a new BinaryLargeInteger whose digits are those of the string provided.
+       Throws a NumberFormatException if the string is empty or holds anything but digits. */
+    public BinaryLargeInteger (String s) {
+        this( DecimalConversion.parseLimbs( s ) );
+    }
+
+
+    /* Constructor that converts a PackedLargeInteger into binary */
+    public BinaryLargeInteger (PackedLargeInteger other) {
+        this( other.limbs );
+    }
+
+
+    /* Constructor that converts a LargeInteger into binary */
+    public BinaryLargeInteger (LargeInteger other) {
+        this( other.toPacked() );
+    }
+
+
+    private BinaryLargeInteger (int[] decimal) {
+        this.limbs = fromDecimal( decimal, 0, decimal.length, new HashMap<>() );
+        this.decimal = decimal;
+    }
+
+
+    /* Returns the PackedLargeInteger with the same value as this */
+    public PackedLargeInteger toPacked () {
+        return new PackedLargeInteger( decimal() );
+    } // end of toPacked
+
+
+    /* Returns the LargeInteger with the same value as this */
+    public LargeInteger toLargeInteger () {
+        return toPacked().toLargeInteger();
+    } // end of toLargeInteger
+
+
+    /* Returns true if the value of this is the same as the value of other */
+    public boolean equals (BinaryLargeInteger other) {
+        return compare( limbs, other.limbs ) == 0;
+    } // end of equals
+
+
+    /* Returns true if the value of this is less than the value of other */
+    public boolean isSmaller (BinaryLargeInteger other) {
+        return compare( limbs, other.limbs ) < 0;
+    } // end of isSmaller
+
+
+    /* Returns the sum of this and other */
+    public BinaryLargeInteger add (BinaryLargeInteger other) {
+        return new BinaryLargeInteger( add( limbs, other.limbs ) );
+    } // end of add
+
+
+    /* Returns this minus other. As with LargeInteger.subtract, if other is larger than this number, 0 is returned. */
+    public BinaryLargeInteger subtract (BinaryLargeInteger other) {
+        if (compare( limbs, other.limbs ) <= 0) return new BinaryLargeInteger( new long[1] );
+        return new BinaryLargeInteger( subtract( limbs, other.limbs ) );
+    } // end of subtract
+
+
+    /* Returns the product of this and other computed with the schoolbook algorithm, one limb at a time */
+    public BinaryLargeInteger standardMultiplication (BinaryLargeInteger other) {
+        return new BinaryLargeInteger( multiplySchoolbook( limbs, other.limbs ) );
+    } // end of standardMultiplication
+
+
+    /* Returns the product of this and other computed with the Karatsuba recursion, recursing all the way
+       down to the smallest operands that can still be split, like LargeInteger.recursiveFastMultiplication */
+    public BinaryLargeInteger recursiveFastMultiplication (BinaryLargeInteger other) {
+        return new BinaryLargeInteger( multiplyKaratsuba( limbs, other.limbs, 2 ) );
+    } // end of recursiveFastMultiplication
+
+
+    /* Returns the product of this and other, with the schoolbook product for small operands and Karatsuba above */
+    public BinaryLargeInteger multiply (BinaryLargeInteger other) {
+        return new BinaryLargeInteger( multiply( limbs, other.limbs ) );
+    } // end of multiply
+
+
+    /* Returns this * this */
+    public BinaryLargeInteger square () {
+        return new BinaryLargeInteger( multiply( limbs, limbs ) );
+    } // end of square
+
+
+    /* Returns this * 10^nbDigits, like LargeInteger.shiftLeft */
+    public BinaryLargeInteger shiftLeft (int nbDigits) {
+        return multiply( new BinaryLargeInteger( PackedLargeInteger.powerOfTen( nbDigits ) ) );
+    } // end of shiftLeft
+
+
+    /* Returns this * 2^nbBits, by moving the bits only */
+    public BinaryLargeInteger shiftLeftBits (int nbBits) {
+        return new BinaryLargeInteger( shiftBits( limbs, nbBits ) );
+    } // end of shiftLeftBits
+
+
+    /* Returns this / 2^nbBits rounded down, by moving the bits only */
+    public BinaryLargeInteger shiftRightBits (int nbBits) {
+        return new BinaryLargeInteger( shiftBits( limbs, -nbBits ) );
+    } // end of shiftRightBits
+
+
+    /* Returns a string describing a BinaryLargeInteger, in decimal */
+    public String toString () {
+        return DecimalConversion.toString( decimal() );
+    } // end of toString
+
+
+    /* Returns the decimal limbs of this, converting them the first time. Two threads may both convert,
+       which only costs time: they get the same limbs. */
+    private int[] decimal () {
+        int[] ret = decimal;
+        if (ret == null) decimal = ret = toDecimal( limbs, 0, limbs.length, new HashMap<>() );
+        return ret;
+    } // end of decimal
+
+
+
+    /* The static methods below are the kernels used by the instance methods above. They work directly
+       on normalized little-endian arrays of unsigned longs, like those of PackedLargeInteger on ints. */
+
+
+    /* Returns a, or a copy of its first limbs, so that there are no leading zero limbs left */
+    static long[] normalize (long[] a) {
+        int len = a.length;
+        while (len > 1 && a[ len - 1 ] == 0) len--;
+        if (len == a.length) return a;
+        if (len == 0) return new long[1];
+        long[] ret = new long[len];
+        System.arraycopy( a, 0, ret, 0, len );
+        return ret;
+    } // end of normalize
+
+
+    /* Returns a negative number, zero or a positive number when a is smaller, equal or larger than b */
+    static int compare (long[] a, long[] b) {
+        if (a.length != b.length) return a.length < b.length ? -1 : 1;
+        for (int i = a.length - 1; i >= 0; i--) {
+            if (a[ i ] != b[ i ]) return Long.compareUnsigned( a[ i ], b[ i ] );
+        }
+        return 0;
+    } // end of compare
+
+
+    /* Returns a + b. The carry out of x + y + carry is the top bit of (x & y) | ((x | y) & ~sum): both top
+       bits are set, or one of them is and the sum lost it. */
+    static long[] add (long[] a, long[] b) {
+        if (a.length < b.length) { long[] t = a; a = b; b = t; }
+
+        long[] sum = new long[a.length + 1];
+        long carry = 0;
+        int i = 0;
+        for (; i < b.length; i++) {
+            long x = a[ i ], y = b[ i ];
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            sum[ i ] = s;
+        }
+        for (; i < a.length; i++) {
+            long s = a[ i ] + carry;
+            carry = carry & (s == 0 ? 1 : 0);
+            sum[ i ] = s;
+        }
+        sum[ i ] = carry;
+        return normalize( sum );
+    } // end of add
+
+
+    /* Returns a - b. Assumption: a is not smaller than b. The borrow out of x - y - borrow is the top bit of
+       (~x & y) | (~(x ^ y) & difference). */
+    static long[] subtract (long[] a, long[] b) {
+        long[] diff = new long[a.length];
+        long borrow = 0;
+        int i = 0;
+        for (; i < b.length; i++) {
+            long x = a[ i ], y = b[ i ];
+            long d = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            diff[ i ] = d;
+        }
+        for (; i < a.length; i++) {
+            long d = a[ i ] - borrow;
+            borrow = borrow & (a[ i ] == 0 ? 1 : 0);
+            diff[ i ] = d;
+        }
+        return normalize( diff );
+    } // end of subtract
+
+
+    /* Returns the high 64 bits of the unsigned product of x and y. Math.multiplyHigh reads them as signed,
+       which is off by y when x is negative, and by x when y is. */
+    static long unsignedMultiplyHigh (long x, long y) {
+        return Math.multiplyHigh( x, y ) + ((x >> 63) & y) + ((y >> 63) & x);
+    } // end of unsignedMultiplyHigh
+
+
+    /* Returns a * b with the schoolbook algorithm. Every product of two limbs is 128 bits, split in a low
+       and a high half; the column and the carry are added to the low half, and what overflows goes to the
+       high half, which becomes the carry of the next column and can not overflow itself. */
+    static long[] multiplySchoolbook (long[] a, long[] b) {
+        long[] product = new long[a.length + b.length];
+        for (int i = 0; i < a.length; i++) {
+            if ((i & 63) == 0) Cancellation.check();                    // every 64 rows, give up if the thread was interrupted
+            long ai = a[ i ];
+            if (ai == 0) continue;
+            long carry = 0;
+            int column = i;
+            for (int j = 0; j < b.length; j++, column++) {
+                long low = ai * b[ j ];
+                long high = unsignedMultiplyHigh( ai, b[ j ] );
+                low += carry;
+                if (Long.compareUnsigned( low, carry ) < 0) high++;
+                low += product[ column ];
+                if (Long.compareUnsigned( low, product[ column ] ) < 0) high++;
+                product[ column ] = low;
+                carry = high;
+            }
+            product[ column ] = carry;                      // column i + b.length has not been touched by the previous rows yet
+        }
+        return normalize( product );
+    } // end of multiplySchoolbook
+
+
+    /* Returns a * b, with the schoolbook product below KARATSUBA_THRESHOLD limbs and Karatsuba above */
+    static long[] multiply (long[] a, long[] b) {
+        return multiplyKaratsuba( a, b, KARATSUBA_THRESHOLD );
+    } // end of multiply
+
+
+    /* Returns a * b with the Karatsuba recursion, the schoolbook product being used once the shorter
+       operand is below threshold limbs. As in ParallelMultiplication, the longer operand is split at half its
+       length, and the shorter one too unless it fits below the split. */
+    static long[] multiplyKaratsuba (long[] a, long[] b, int threshold) {
+        if (a.length < b.length) { long[] t = a; a = b; b = t; }       // ensure that a is the longest number
+        if (b.length < Math.max( threshold, 2 )) return multiplySchoolbook( a, b );
+        Cancellation.check();
+
+        int m = (a.length + 1) / 2;
+        long[] lowA = range( a, 0, m );
+        long[] highA = range( a, m, a.length );
+
+        if (b.length <= m) {
+            return add( shiftLimbs( multiplyKaratsuba( highA, b, threshold ), m ), multiplyKaratsuba( lowA, b, threshold ) );
+        }
+
+        long[] lowB = range( b, 0, m );
+        long[] highB = range( b, m, b.length );
+        long[] term1 = multiplyKaratsuba( lowA, lowB, threshold );
+        long[] term2 = multiplyKaratsuba( highA, highB, threshold );
+        long[] term3 = multiplyKaratsuba( add( lowA, highA ), add( lowB, highB ), threshold );
+        term3 = subtract( subtract( term3, term1 ), term2 );
+
+        return add( add( shiftLimbs( term2, 2 * m ), shiftLimbs( term3, m ) ), term1 );
+    } // end of multiplyKaratsuba
+
+
+    /* Returns a * 2^(64n) */
+    static long[] shiftLimbs (long[] a, int n) {
+        if (n == 0 || (a.length == 1 && a[ 0 ] == 0)) return a;
+        long[] ret = new long[a.length + n];
+        System.arraycopy( a, 0, ret, n, a.length );
+        return ret;
+    } // end of shiftLimbs
+
+
+    /* Returns a * 2^bits if bits is positive, a / 2^-bits rounded down otherwise */
+    static long[] shiftBits (long[] a, int bits) {
+        int limbShift = Math.abs( bits ) / 64;
+        int bitShift = Math.abs( bits ) % 64;
+        if (bits >= 0) {
+            long[] ret = new long[a.length + limbShift + 1];
+            for (int i = 0; i < a.length; i++) {
+                ret[ i + limbShift ] |= a[ i ] << bitShift;
+                if (bitShift != 0) ret[ i + limbShift + 1 ] = a[ i ] >>> (64 - bitShift);
+            }
+            return normalize( ret );
+        }
+        if (limbShift >= a.length) return new long[1];
+        long[] ret = new long[a.length - limbShift];
+        for (int i = 0; i < ret.length; i++) {
+            ret[ i ] = a[ i + limbShift ] >>> bitShift;
+            if (bitShift != 0 && i + limbShift + 1 < a.length) ret[ i ] |= a[ i + limbShift + 1 ] << (64 - bitShift);
+        }
+        return normalize( ret );
+    } // end of shiftBits
+
+
+    /* Returns the limbs of a between start and up to but not including stop, normalized */
+    static long[] range (long[] a, int start, int stop) {
+        stop = Math.min( stop, a.length );
+        if (start >= stop) return new long[1];
+        long[] ret = new long[stop - start];
+        System.arraycopy( a, start, ret, 0, stop - start );
+        return normalize( ret );
+    } // end of range
+
+
+    /* Returns the binary limbs of the number whose decimal limbs (see PackedLargeInteger) are d[from] up to but
+       not including d[to]. Short numbers are read limb by limb from the top (x <- x * BASE + limb), longer
+       ones as high * BASE^k + low, the powers BASE^k being kept in powers for the whole conversion. */
+    static long[] fromDecimal (int[] d, int from, int to, Map<Integer, long[]> powers) {
+        if (to - from <= CONVERSION_BASE_CASE) {
+            long[] ret = new long[(to - from) / 2 + 1];                 // a limb of 64 bits holds more than two of 30 bits
+            for (int i = to - 1; i >= from; i--) {
+                long carry = d[ i ];
+                for (int j = 0; j < ret.length; j++) {
+                    long low = ret[ j ] * PackedLargeInteger.BASE;
+                    long high = unsignedMultiplyHigh( ret[ j ], PackedLargeInteger.BASE );
+                    low += carry;
+                    if (Long.compareUnsigned( low, carry ) < 0) high++;
+                    ret[ j ] = low;
+                    carry = high;
+                }
+            }
+            return normalize( ret );
+        }
+        int k = (to - from) / 2;
+        long[] power = powers.get( k );
+        if (power == null) {
+            power = fromDecimal( PackedLargeInteger.powerOfTen( k * PackedLargeInteger.BASE_DIGITS ), 0, k + 1, powers );
+            powers.put( k, power );
+        }
+        return add( multiply( fromDecimal( d, from + k, to, powers ), power ), fromDecimal( d, from, from + k, powers ) );
+    } // end of fromDecimal
+
+
+    /* Returns the decimal limbs (see PackedLargeInteger) of the number whose binary limbs are a[from] up to but
+       not including a[to]. Short numbers are divided by BASE over and over, 32 bits at a time so that the
+       remainder and the next bits fit in a long, every remainder being a decimal limb. Longer ones are
+       converted as high * 2^(64k) + low, with the products on the decimal side and the powers kept in powers. */
+    static int[] toDecimal (long[] a, int from, int to, Map<Integer, int[]> powers) {
+        if (to - from <= CONVERSION_BASE_CASE) {
+            int[] halves = new int[2 * (to - from)];
+            for (int i = from; i < to; i++) {
+                halves[ 2 * (i - from) ] = (int) a[ i ];
+                halves[ 2 * (i - from) + 1 ] = (int)( a[ i ] >>> 32 );
+            }
+            int[] ret = new int[(to - from) * 64 / 29 + 1];             // a limb of 10^9 holds more than 29 bits
+            int top = halves.length;
+            for (int limb = 0; ; limb++) {
+                while (top > 0 && halves[ top - 1 ] == 0) top--;
+                if (top == 0) break;
+                long remainder = 0;
+                for (int i = top - 1; i >= 0; i--) {
+                    long current = (remainder << 32) | (halves[ i ] & 0xffffffffL);
+                    halves[ i ] = (int)( current / PackedLargeInteger.BASE );
+                    remainder = current - (current / PackedLargeInteger.BASE) * PackedLargeInteger.BASE;
+                }
+                ret[ limb ] = (int) remainder;
+            }
+            return PackedLargeInteger.normalize( ret );
+        }
+        int k = (to - from) / 2;
+        int[] power = powers.get( k );
+        if (power == null) {
+            power = PackedLargeInteger.pow( TWO_TO_THE_64, k, MultiplyThresholds.current() );
+            powers.put( k, power );
+        }
+        MultiplyThresholds thresholds = MultiplyThresholds.current();
+        return PackedLargeInteger.add( PackedLargeInteger.multiply( toDecimal( a, from + k, to, powers ), power, thresholds ),
+                                       toDecimal( a, from, from + k, powers ) );
+    } // end of toDecimal
+
+}  // end of the BinaryLargeInteger class
@@ -0,0 +1,15 @@
+import java.util.concurrent.CancellationException;
+
+/* This class lets long computations be cancelled cooperatively. Java can not stop a thread from the
+   outside, so the slow algorithms call check() at regular points, e.g. once per row of a schoolbook
+   product or once per call of a recursion, and give up with a CancellationException once their thread
+   has been interrupted (by Future.cancel(true), for example). Checking costs a single field read. */
+class Cancellation {
+
+    /* Throws a CancellationException if the current thread has been interrupted. The interrupt status
+       is left as it is, so that the code catching the exception can still see it. */
+    static void check () {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException( "computation cancelled" );
+    } // end of check
+
+}  // end of the Cancellation class
@@ -0,0 +1,38 @@
+/* This interface holds the loops under every addition, subtraction and comparison of limbs (PackedLargeInteger)
+   and of digits (LargeInteger) that can run on vectors of columns instead of one column at a time.
+
+   Its only implementation, VectorKernels, is written with the Vector API. jdk.incubator.vector is an incubator
+   module, which javac only sees with --add-modules jdk.incubator.vector, so VectorKernels is kept apart in the
+   vector directory: javac *.java compiles everything else without it, and build.sh compiles it in a second step.
+   PackedLargeInteger loads it by name when the program runs with the module, and falls back to the scalar loops
+   when it is not there (see PackedLargeInteger.VECTOR_KERNELS). */
+interface ColumnKernels {
+
+    /* Returns the number of limbs in a vector */
+    int lanes ();
+
+
+    /* Writes the sum of the length limbs of a from aOff and of b from bOff, plus carry, to dst from dOff,
+       and returns the carry out of the last limb. dst may be a or b, at the same offset. */
+    int add (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int carry);
+
+
+    /* Writes the length limbs of a from aOff minus those of b from bOff, minus borrow, to dst from dOff, and
+       returns the borrow out of the last limb. dst may be a or b, at the same offset. */
+    int subtract (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int borrow);
+
+
+    /* Returns the highest index below length at which a and b differ, or -1 if their first length limbs are equal */
+    int lastMismatch (int[] a, int[] b, int length);
+
+
+    /* Writes the sum of the length digits of a that end right before aEnd and of those of b that end right before
+       bEnd, plus carry, to the length digits of dst that end right before dEnd, and returns the carry out of the
+       most significant digit. dst may be a or b, with the same end. */
+    int addDigits (byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int carry);
+
+
+    /* Like addDigits, but writes a minus b minus borrow, and returns the borrow out of the most significant digit */
+    int subtractDigits (byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int borrow);
+
+}  // end of the ColumnKernels interface
@@ -0,0 +1,180 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/* This class converts between decimal text, the digits of LargeInteger and the limbs of PackedLargeInteger.
+
+   Instead of handling one character at a time, the conversions work on eight digits at once, held in
+   the eight bytes of a long (SWAR: SIMD within a register). Eight characters are checked with two masks,
+   turned into their value with three multiplications, and eight digits of a limb are spread back into
+   eight bytes with a handful of multiplications and shifts. A limb of nine digits is one such block
+   plus one digit.
+
+   The bytes of a block are read and written little-endian, so the first (most significant) digit of the
+   block is in the lowest byte of the long. Since limbs are a power of ten, conversions are linear and no
+   divide-and-conquer over powers of the base is needed here. */
+class DecimalConversion {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle( long[].class, ByteOrder.LITTLE_ENDIAN );
+
+    private static final long ONES = 0x0101010101010101L;              // 1 in every byte
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long ASCII_ZEROS = '0' * ONES;                // "00000000"
+
+
+
+    /* Returns the digits of s, one value between 0 and 9 per byte, most significant first.
+       Throws a NumberFormatException if s is empty or contains anything but the characters 0 to 9. */
+    static byte[] digitValues (String s) {
+        byte[] digits = text( s );
+        toValues( digits, 0, digits.length );
+        return digits;
+    } // end of digitValues
+
+
+    /* Returns the characters of digits, which hold one value between 0 and 9 per byte */
+    static String toString (byte[] digits) {
+        byte[] text = new byte[digits.length];
+        toText( digits, 0, digits.length, text, 0 );
+        return new String( text, StandardCharsets.ISO_8859_1 );
+    } // end of toString
+
+
+    /* Turns the characters '0' to '9' of text[start] up to but not including text[stop] into their values, in place */
+    static void toValues (byte[] text, int start, int stop) {
+        int i = start;
+        for (; i + 8 <= stop; i += 8) LONGS.set( text, i, (long) LONGS.get( text, i ) - ASCII_ZEROS );
+        for (; i < stop; i++) text[ i ] -= '0';
+    } // end of toValues
+
+
+    /* Writes the characters of the digits digits[start] up to but not including digits[stop] to text, from text[textOff] on */
+    static void toText (byte[] digits, int start, int stop, byte[] text, int textOff) {
+        int i = start;
+        for (; i + 8 <= stop; i += 8) LONGS.set( text, textOff + i - start, (long) LONGS.get( digits, i ) + ASCII_ZEROS );
+        for (; i < stop; i++) text[ textOff + i - start ] = (byte)( digits[ i ] + '0' );
+    } // end of toText
+
+
+    /* Returns the index of the first byte of text[start] up to but not including text[stop] that is not
+       one of the characters 0 to 9, or -1 if there is none */
+    static int firstNonDigit (byte[] text, int start, int stop) {
+        int i = start;
+        for (; i + 8 <= stop; i += 8) {
+            long block = (long) LONGS.get( text, i );
+            // every byte is between 0x30 and 0x39 if its high nibble is 3, and still is after adding 6
+            if ((block & HIGH_NIBBLES) != ASCII_ZEROS || ((block + 6 * ONES) & HIGH_NIBBLES) != ASCII_ZEROS) break;
+        }
+        for (; i < stop; i++) if (text[ i ] < '0' || text[ i ] > '9') return i;
+        return -1;
+    } // end of firstNonDigit
+
+
+    /* Returns the normalized limbs of the number written in s.
+       Throws a NumberFormatException if s is empty or contains anything but the characters 0 to 9. */
+    static int[] parseLimbs (String s) {
+        byte[] text = text( s );
+        return toLimbs( text, 0, text.length, '0' );
+    } // end of parseLimbs
+
+
+    /* Returns the decimal characters of a normalized limb array, most significant first */
+    static String toString (int[] limbs) {
+        return new String( fromLimbs( limbs, '0' ), StandardCharsets.ISO_8859_1 );
+    } // end of toString
+
+
+    /* Returns the normalized limbs of the number whose digits, most significant first, are
+       digits[start] up to but not including digits[stop], each of them stored as zero plus its value:
+       zero is '0' for text and 0 for the digits of LargeInteger. The digits must be valid. */
+    static int[] toLimbs (byte[] digits, int start, int stop, int zero) {
+        int nbLimbs = (stop - start + PackedLargeInteger.BASE_DIGITS - 1) / PackedLargeInteger.BASE_DIGITS;
+        int[] ret = new int[Math.max( nbLimbs, 1 )];
+        long zeros = zero * ONES;
+
+        int limbStop = stop;
+        int i = 0;
+        for (; limbStop - start >= PackedLargeInteger.BASE_DIGITS; i++, limbStop -= PackedLargeInteger.BASE_DIGITS) {
+            int first = limbStop - PackedLargeInteger.BASE_DIGITS;
+            ret[ i ] = (digits[ first ] - zero) * 100000000 + combineEight( (long) LONGS.get( digits, first + 1 ) - zeros );
+        }
+        if (limbStop > start) {                               // the most significant limb, with less than nine digits
+            int limb = 0;
+            for (int j = start; j < limbStop; j++) limb = limb * 10 + (digits[ j ] - zero);
+            ret[ i ] = limb;
+        }
+        return PackedLargeInteger.normalize( ret );
+    } // end of toLimbs
+
+
+    /* Returns the digits of a normalized limb array, most significant first and without leading zeros,
+       each of them stored as zero plus its value (see toLimbs) */
+    static byte[] fromLimbs (int[] limbs, int zero) {
+        int top = limbs[ limbs.length - 1 ];
+        int topDigits = 1;
+        for (int t = top; t >= 10; t /= 10) topDigits++;
+
+        byte[] digits = new byte[topDigits + (limbs.length - 1) * PackedLargeInteger.BASE_DIGITS];
+        fromLimbs( limbs, 0, limbs.length - 1, zero, digits, topDigits );
+        for (int pos = topDigits; pos > 0; ) {
+            digits[ --pos ] = (byte)( top % 10 + zero );
+            top /= 10;
+        }
+        return digits;
+    } // end of fromLimbs
+
+
+    /* Writes the digits of limbs[from] up to but not including limbs[to] to text from textOff, most significant
+       first and nine per limb, leading zeros included, each of them stored as zero plus its value */
+    static void fromLimbs (int[] limbs, int from, int to, int zero, byte[] text, int textOff) {
+        long zeros = zero * ONES;
+        int pos = textOff + (to - from) * PackedLargeInteger.BASE_DIGITS;
+        for (int i = from; i < to; i++) {
+            int limb = limbs[ i ];
+            int first = limb / 100000000;
+            pos -= 8;
+            LONGS.set( text, pos, splitEight( limb - first * 100000000 ) + zeros );
+            text[ --pos ] = (byte)( first + zero );
+        }
+    } // end of fromLimbs
+
+
+    /* Returns the value of eight digits, one per byte, the most significant one in the lowest byte.
+       Neighbouring digits are first paired into numbers below 100 in every other byte, then pairs of
+       those into numbers below 10^4 in every other 16-bit lane, and the two halves are finally combined
+       in the low 32 bits. The bytes and lanes in between collect garbage that is masked off. */
+    static int combineEight (long digits) {
+        digits = digits * 10 + (digits >>> 8);
+        digits = (digits & 0x00FF00FF00FF00FFL) * 100 + ((digits >>> 16) & 0x00FF00FF00FF00FFL);
+        digits = (digits & 0x0000FFFF0000FFFFL) * 10000 + ((digits >>> 32) & 0x0000FFFF0000FFFFL);
+        return (int) digits;
+    } // end of combineEight
+
+
+    /* Returns the eight digits of value (below 10^8), one per byte, the most significant one in the lowest
+       byte. The value is split into two halves below 10^4 in two 32-bit lanes, every half into two numbers
+       below 100 in 16-bit lanes, and those into single digits. The divisions by 100 and 10 are done in
+       every lane at once, as multiplications by a reciprocal followed by a shift. */
+    static long splitEight (int value) {
+        long high = value / 10000;
+        long v = high | ((value - high * 10000) << 32);
+
+        long q = ((v * 5243) >>> 19) & 0x0000007F0000007FL;      // / 100 for values below 43699
+        v = q | ((v - q * 100) << 16);
+
+        q = ((v * 103) >>> 10) & 0x000F000F000F000FL;           // / 10 for values below 179
+        return q | ((v - q * 10) << 8);
+    } // end of splitEight
+
+
+    /* Returns the characters of s as bytes, after checking that they are all digits */
+    private static byte[] text (String s) {
+        if (s.isEmpty()) throw new NumberFormatException( "Zero length number" );
+        byte[] text = s.getBytes( StandardCharsets.ISO_8859_1 );      // characters above 255 become '?', which is rejected below
+        int i = firstNonDigit( text, 0, text.length );
+        if (i >= 0) throw new NumberFormatException( "Illegal character '" + s.charAt( i ) + "' at index " + i + " of a number" );
+        return text;
+    } // end of text
+
+}  // end of the DecimalConversion class
@@ -0,0 +1,181 @@
+/* This class is a read-only view on the decimal digits of a number, for the recursions of
+   LargeInteger.recursiveMultiplication and recursiveFastMultiplication. The digits are
+   digits[offset] up to but not including digits[offset + length], most significant first like in
+   LargeInteger, followed by `zeros` implicit 0 digits that are not stored.
+
+   Splitting a number in halves, removing its leading zeros and shifting it left only make a new view
+   on the same array, so nothing is copied. Only the results of additions, subtractions and products
+   get a new array, and it is exactly as long as the result. The arrays under a view are never modified,
+   which is what makes sharing them safe. */
+final class DigitView {
+
+    static final DigitView ZERO = new DigitView( new byte[1] );
+
+    final byte[] digits;
+    final int offset;
+    final int length;
+    final int zeros;
+
+
+
+    /* Constructor for the view on digits[offset] up to but not including digits[offset + length], followed by zeros digits 0 */
+    DigitView (byte[] digits, int offset, int length, int zeros) {
+        this.digits = digits;
+        this.offset = offset;
+        this.length = length;
+        this.zeros = zeros;
+    }
+
+
+    /* Constructor for the view on a whole array of digits */
+    DigitView (byte[] digits) {
+        this( digits, 0, digits.length, 0 );
+    }
+
+
+    /* Returns the view on a new result without its leading zeros, with a single view object */
+    static DigitView result (byte[] digits) {
+        int i = 0;
+        while (i < digits.length - 1 && digits[ i ] == 0) i++;
+        return new DigitView( digits, i, digits.length - i, 0 );
+    } // end of result
+
+
+    /* Returns the number of digits of the view, leading zeros included, like LargeInteger.digits.length */
+    int size () {
+        return length + zeros;
+    } // end of size
+
+
+    /* Returns the view on the digits from start up to but not including stop, counted from the most
+       significant one, like the LargeInteger(byte[], int, int) constructor but without the copy */
+    DigitView range (int start, int stop) {
+        if (stop <= length) return new DigitView( digits, offset + start, stop - start, 0 );
+        if (start >= length) return new DigitView( ZERO.digits, 0, 1, stop - start - 1 );          // only appended zeros
+        return new DigitView( digits, offset + start, length - start, stop - length );
+    } // end of range
+
+
+    /* Returns the view on this * 10^nbDigits */
+    DigitView shiftLeft (int nbDigits) {
+        return new DigitView( digits, offset, length, zeros + nbDigits );
+    } // end of shiftLeft
+
+
+    /* Returns the view without its leading zeros, or ZERO if all its digits are zeros */
+    DigitView stripped () {
+        int i = 0;
+        while (i < length && digits[ offset + i ] == 0) i++;
+        if (i == length) return ZERO;
+        if (i == 0) return this;
+        return new DigitView( digits, offset + i, length - i, zeros );
+    } // end of stripped
+
+
+    /* Returns the sum of this and other, in a new array without leading zeros. The larger of the two is copied
+       into the array, then the digits of the other one are added in place (see LargeInteger.addColumns). */
+    DigitView add (DigitView other) {
+        DigitView longer = size() >= other.size() ? this : other;
+        DigitView shorter = longer == this ? other : this;
+
+        byte[] sum = new byte[longer.size() + 1];
+        Metrics.count( Metrics.Operation.ADD, longer.size() + shorter.size(), sum.length );
+        longer.copyTo( sum );
+        shorter.addTo( sum );                                               // sum[0] takes the last carry at most
+        return result( sum );
+    } // end of add
+
+
+    /* Returns the sum of all the terms in a single new array without leading zeros. The terms are added in place
+       one after the other, so that the intermediate sums do not need arrays of their own. Up to ten terms, the
+       sum has at most one more digit than the longest of them. */
+    static DigitView sum (DigitView... terms) {
+        int size = 0;
+        int nbDigits = 0;
+        for (DigitView term : terms) {
+            size = Math.max( size, term.size() );
+            nbDigits += term.size();
+        }
+        byte[] sum = new byte[size + 1];
+        Metrics.count( Metrics.Operation.ADD, nbDigits, sum.length );
+        for (DigitView term : terms) term.addTo( sum );
+        return result( sum );
+    } // end of sum
+
+
+    /* Returns this - b - c in a single new array without leading zeros, or ZERO if b + c is larger than this */
+    DigitView subtract (DigitView b, DigitView c) {
+        b = b.stripped();
+        c = c.stripped();
+        if (b.size() > size() || c.size() > size()) return ZERO;
+
+        byte[] difference = new byte[size()];
+        Metrics.count( Metrics.Operation.SUBTRACT, size() + b.size() + c.size(), difference.length );
+        copyTo( difference );
+        if (b.subtractFrom( difference ) != 0 || c.subtractFrom( difference ) != 0) return ZERO;
+        return result( difference );
+    } // end of subtract
+
+
+    /* Returns this * digit, for a single digit, in a new array without leading zeros */
+    DigitView multiply (int digit) {
+        byte[] product = new byte[size() + 1];
+        Metrics.count( Metrics.Operation.STANDARD_MULTIPLICATION, size() + 1, product.length );
+        int carry = 0;
+        int column = product.length - 1 - zeros;
+        for (int i = offset + length - 1; i >= offset; i--, column--) {
+            int columnProduct = digits[ i ] * digit + carry;               // at most 9 * 9 + 8
+            carry = columnProduct / 10;
+            product[ column ] = (byte)( columnProduct - 10 * carry );
+        }
+        product[ column ] = (byte) carry;
+        return result( product );
+    } // end of multiply
+
+
+    /* Returns the LargeInteger with the digits of this view. The array is shared if the view covers it exactly,
+       unless it is the one of ZERO, which is shared by every view. */
+    LargeInteger toLargeInteger () {
+        LargeInteger ret = new LargeInteger( 0 );
+        if (offset == 0 && length == digits.length && zeros == 0 && digits != ZERO.digits) {
+            ret.digits = digits;
+        } else {
+            ret.digits = new byte[size()];
+            copyTo( ret.digits );
+        }
+        return ret;
+    } // end of toLargeInteger
+
+
+    /* Copies the stored digits to the end of dst, right above the appended zeros, which dst is assumed to hold already */
+    private void copyTo (byte[] dst) {
+        System.arraycopy( digits, offset, dst, dst.length - zeros - length, length );
+    } // end of copyTo
+
+
+    /* Adds this to the number whose digits are dst, in place. dst must be long enough for the sum. */
+    private void addTo (byte[] dst) {
+        int end = dst.length - zeros;
+        int carry = LargeInteger.addColumns( dst, end, digits, offset + length, dst, end, length, 0 );
+        for (int i = end - length - 1; carry != 0; i--) {
+            int sumColumn = dst[ i ] + carry;
+            carry = sumColumn >= 10 ? 1 : 0;
+            dst[ i ] = (byte)( sumColumn - 10 * carry );
+        }
+    } // end of addTo
+
+
+    /* Subtracts this from the number whose digits are dst, in place, and returns the borrow left over
+       after the most significant digit of dst: 1 if this was larger, 0 otherwise. this must not be longer than dst. */
+    private int subtractFrom (byte[] dst) {
+        int end = dst.length - zeros;
+        int borrow = LargeInteger.subtractColumns( dst, end, digits, offset + length, dst, end, length, 0 );
+        for (int i = end - length - 1; borrow != 0 && i >= 0; i--) {
+            int column = dst[ i ] - borrow;
+            borrow = column < 0 ? 1 : 0;
+            dst[ i ] = (byte)( column + 10 * borrow );
+        }
+        return borrow;
+    } // end of subtractFrom
+
+}  // end of the DigitView class
@@ -0,0 +1,177 @@
+/* This class divides limb arrays (see PackedLargeInteger), returning the quotient and the remainder.
+
+   Three algorithms are used depending on the sizes:
+   - a divisor of a single limb is handled by one pass of divideSmall, from the most significant limb down;
+   - otherwise, if the divisor or the quotient is short, by schoolbook long division (Knuth's algorithm D),
+     which guesses every limb of the quotient from the top limbs and corrects the guess;
+   - for large divisors and quotients, by multiplying with a reciprocal of the divisor computed with
+     Newton's iteration, so that the whole division costs a few multiplications of the divisor's size
+     per block of quotient, on the fastest multiplication tier. */
+class Division {
+
+    static final long BASE = PackedLargeInteger.BASE;
+
+    /* Below this size (in limbs), reciprocals are computed with long division instead of Newton's iteration */
+    static final int RECIPROCAL_BASE_CASE = 16;
+
+
+
+    /* Returns { a / b, a % b }, both rounded down. Throws an ArithmeticException if b is zero. */
+    static int[][] divideAndRemainder (int[] a, int[] b, MultiplyThresholds thresholds) {
+        if (ToomCook3.isZero( b )) throw new ArithmeticException( "division by zero" );
+        if (PackedLargeInteger.compare( a, b ) < 0) return new int[][] { new int[1], a };
+
+        if (b.length == 1) {
+            int[] quotient = PackedLargeInteger.divideSmall( a, b[ 0 ] );
+            return new int[][] { quotient, new int[] { remainderSmall( a, b[ 0 ] ) } };
+        }
+
+        // normalize: multiply both numbers by d so that the top limb of the divisor is at least BASE / 2.
+        // This does not change the quotient, and the remainder is divided by d at the end.
+        int d = (int)( BASE / (b[ b.length - 1 ] + 1L) );
+        int[] u = PackedLargeInteger.multiplySmall( a, d );
+        int[] v = PackedLargeInteger.multiplySmall( b, d );
+
+        int[][] ret;
+        if (Math.min( v.length, u.length - v.length ) < thresholds.newton) ret = divideSchoolbook( u, v );
+        else ret = divideNewton( u, v, thresholds );
+
+        ret[ 1 ] = PackedLargeInteger.divideSmall( ret[ 1 ], d );
+        return ret;
+    } // end of divideAndRemainder
+
+
+    /* Returns a % d, for 0 < d < BASE */
+    static int remainderSmall (int[] a, int d) {
+        long remainder = 0;
+        for (int i = a.length - 1; i >= 0; i--) remainder = (remainder * BASE + a[ i ]) % d;
+        return (int) remainder;
+    } // end of remainderSmall
+
+
+    /* Returns { u / v, u % v } with Knuth's algorithm D. Assumption: v has at least two limbs and its top
+       limb is at least BASE / 2. Every limb of the quotient is first estimated from the top two limbs of
+       the current remainder and the top limb of v, then the estimate is lowered while the next limb of
+       v shows it is too large. With v normalized, the estimate is then off by at most one, which is
+       detected when subtracting it times v gives a negative remainder, and fixed by adding v back. */
+    static int[][] divideSchoolbook (int[] u, int[] v) {
+        int n = v.length;
+        int m = u.length - n;
+        int[] remainder = new int[u.length + 1];
+        System.arraycopy( u, 0, remainder, 0, u.length );
+        int[] quotient = new int[m + 1];
+        long vTop = v[ n - 1 ];
+        long vNext = v[ n - 2 ];
+
+        for (int j = m; j >= 0; j--) {
+            long top = remainder[ j + n ] * BASE + remainder[ j + n - 1 ];
+            long qHat = top / vTop;
+            long rHat = top - qHat * vTop;
+            while (qHat >= BASE || qHat * vNext > rHat * BASE + remainder[ j + n - 2 ]) {
+                qHat--;
+                rHat += vTop;
+                if (rHat >= BASE) break;
+            }
+
+            // remainder[j .. j + n] -= qHat * v
+            long carry = 0;
+            int borrow = 0;
+            for (int i = 0; i < n; i++) {
+                long product = qHat * v[ i ] + carry;
+                carry = product / BASE;
+                long column = remainder[ i + j ] - (product - carry * BASE) - borrow;
+                borrow = column < 0 ? 1 : 0;
+                remainder[ i + j ] = (int)( column + borrow * BASE );
+            }
+            long column = remainder[ j + n ] - carry - borrow;
+
+            if (column < 0) {                   // qHat was one too large: add v back
+                qHat--;
+                int addCarry = PackedLargeInteger.addInto( remainder, j, j + n, v, 0, n );
+                column += addCarry;
+            }
+            remainder[ j + n ] = (int) column;
+            quotient[ j ] = (int) qHat;
+        }
+
+        return new int[][] { PackedLargeInteger.normalize( quotient ),
+                             PackedLargeInteger.range( remainder, 0, n ) };
+    } // end of divideSchoolbook
+
+
+    /* Returns { u / v, u % v } using a reciprocal of v. Assumption: the top limb of v is at least BASE / 2.
+       With n limbs in v, u is divided by blocks of n limbs from the top: every block, preceded by the
+       remainder of the previous one, is a number x below v * BASE^n, whose quotient by v is estimated
+       as x * y / BASE^2n with y = BASE^2n / v. As y is rounded down, the estimate is never too large,
+       and it is at most two units too small, which is fixed by subtracting v from the remainder. */
+    static int[][] divideNewton (int[] u, int[] v, MultiplyThresholds thresholds) {
+        int n = v.length;
+        int[] y = reciprocal( v, thresholds );
+
+        int blocks = (u.length + n - 1) / n;
+        int[] quotient = new int[blocks * n];
+        int[] remainder = new int[1];
+
+        for (int block = blocks - 1; block >= 0; block--) {
+            int[] x = PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( remainder, n ),
+                                              PackedLargeInteger.range( u, block * n, (block + 1) * n ) );
+
+            int[] q = PackedLargeInteger.range( PackedLargeInteger.multiply( x, y, thresholds ), 2 * n, Integer.MAX_VALUE );
+            int[] qv = PackedLargeInteger.multiply( q, v, thresholds );
+            while (PackedLargeInteger.compare( qv, x ) > 0) {
+                q = PackedLargeInteger.subtract( q, ONE );
+                qv = PackedLargeInteger.subtract( qv, v );
+            }
+            remainder = PackedLargeInteger.subtract( x, qv );
+            while (PackedLargeInteger.compare( remainder, v ) >= 0) {
+                q = PackedLargeInteger.add( q, ONE );
+                remainder = PackedLargeInteger.subtract( remainder, v );
+            }
+
+            System.arraycopy( q, 0, quotient, block * n, Math.min( q.length, n ) );
+        }
+
+        return new int[][] { PackedLargeInteger.normalize( quotient ), remainder };
+    } // end of divideNewton
+
+
+    /* Returns BASE^2n / v rounded down, for v of n limbs whose top limb is at least BASE / 2.
+
+       The reciprocal of the top h = n/2 + 1 limbs of v is computed first (recursively), which, shifted
+       by n - h limbs, approximates y = BASE^2n / v with about h correct limbs. One Newton step
+       y <- y + y * (BASE^2n - v * y) / BASE^2n doubles the number of correct limbs, which is then enough
+       for the last units to be fixed with additions of v to the residual BASE^2n - v * y. */
+    static int[] reciprocal (int[] v, MultiplyThresholds thresholds) {
+        int n = v.length;
+        int[] one = PackedLargeInteger.shiftLimbs( ONE, 2 * n );                  // BASE^2n
+        if (n <= RECIPROCAL_BASE_CASE) return divideSchoolbook( one, v )[ 0 ];
+
+        int h = n / 2 + 1;
+        int[] y = PackedLargeInteger.shiftLimbs( reciprocal( PackedLargeInteger.range( v, n - h, n ), thresholds ), n - h );
+
+        int[] vy = PackedLargeInteger.multiply( v, y, thresholds );
+        if (PackedLargeInteger.compare( vy, one ) <= 0) {
+            int[] error = PackedLargeInteger.subtract( one, vy );
+            y = PackedLargeInteger.add( y, PackedLargeInteger.range( PackedLargeInteger.multiply( y, error, thresholds ), 2 * n, Integer.MAX_VALUE ) );
+        } else {
+            int[] error = PackedLargeInteger.subtract( vy, one );
+            y = PackedLargeInteger.subtract( y, PackedLargeInteger.range( PackedLargeInteger.multiply( y, error, thresholds ), 2 * n, Integer.MAX_VALUE ) );
+        }
+
+        vy = PackedLargeInteger.multiply( v, y, thresholds );
+        while (PackedLargeInteger.compare( vy, one ) > 0) {
+            y = PackedLargeInteger.subtract( y, ONE );
+            vy = PackedLargeInteger.subtract( vy, v );
+        }
+        int[] residual = PackedLargeInteger.subtract( one, vy );
+        while (PackedLargeInteger.compare( residual, v ) >= 0) {
+            y = PackedLargeInteger.add( y, ONE );
+            residual = PackedLargeInteger.subtract( residual, v );
+        }
+        return y;
+    } // end of reciprocal
+
+
+    private static final int[] ONE = { 1 };
+
+}  // end of the Division class
@@ -0,0 +1,702 @@
+import java.io.IOException;
+import java.lang.Math;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/* This class stores and manipulates very large non-negative integer numbers 
+   The digits of the number are stored in an array of bytes. */
+class LargeInteger implements Comparable<LargeInteger> {
+
+    /* The digits of the number are stored in an array of bytes. 
+       Each element of the array contains a value between 0 and 9. 
+       By convention, digits[digits.length-1] correspond to units, 
+       digits[digits.length-2] corresponds to tens, digits[digits.length-3] 
+       corresponds to hundreds, etc. */
+
+    byte digits[];
+
+    /* The hash code of the value, computed the first time hashCode is called and kept, since the digits of a
+       number are never modified once it has been built. 0 means not computed yet. */
+    private int hash;
+
+
+    
+    /* Constructor that creates a new LargeInteger with n digits */
+    public LargeInteger (int n) {
+        digits= new byte[n];
+    }
+
+        
+    /* Constructor that creates a new LargeInteger whose digits are those of the string provided.
+       Throws a NumberFormatException if the string is empty or contains anything but the characters 0 to 9. */
+    public LargeInteger (String s) {        
+        digits = DecimalConversion.digitValues( s );
+        /* The characters are checked and turned into digits eight at a time, by treating eight
+           bytes as a single long (see DecimalConversion). Before, Character.digit was called on
+           every character, and any character that is not a digit silently became -1. ****/
+    }
+
+    /* Constructor that creates a LargeInteger from an array of bytes. Only the bytes  
+       between start and up to but not including stop are copied. */
+    public LargeInteger (byte[] array, int start, int stop) {
+        digits = new byte[stop-start];
+        for (int i=0;i<stop-start;i++) digits[i] = array[i+start];
+    }
+
+
+    /* This method returns a LargeInteger where eventual leading zeros are removed. 
+       For example, it turns 000123 into 123. Special case: it turns 0000 into 0. */
+    public LargeInteger removeLeadingZeros() {
+        if (digits[0]!=0) return this;
+        int i = 1;
+        while (i<digits.length && digits[i]==0) i++;
+        if (i==digits.length) return new LargeInteger("0");
+        else return new LargeInteger(digits,i,digits.length);
+    } // end of removeLeadingZeros
+   
+
+    /* This methods multiplies a given LargeInteger by 10^nbDigits, simply by shifting 
+       the digits to the left and adding nbDigits zeros at the end */
+    public LargeInteger shiftLeft(int nbDigits) {
+        LargeInteger ret = new LargeInteger( digits.length + nbDigits );
+        Metrics.count( Metrics.Operation.SHIFT_LEFT, ret.digits.length, ret.digits.length );
+        for (int i = 0 ; i < digits.length ; i++) ret.digits[ i ] = digits[ i ];
+        for (int i = 0; i <  nbDigits; i++) ret.digits[ digits.length + i ] = 0;
+        return ret;
+    } // end of shiftLeft
+
+
+      /* Returns true if the value of this is the same as the value of other */
+    public boolean equals (LargeInteger other) {
+        return compareTo( other ) == 0;
+    } // end of equals
+
+
+    /* Returns true if other is a LargeInteger with the same value as this, so that numbers can be keys of maps */
+    @Override
+    public boolean equals (Object other) {
+        return other instanceof LargeInteger && equals( (LargeInteger) other );
+    } // end of equals
+
+
+    /* Returns a hash code of the value of this, consistent with equals: leading zeros are skipped,
+       so 00123 and 123 have the same hash code. The digits are only read the first time. */
+    @Override
+    public int hashCode () {
+        int h = hash;
+        if (h == 0) {
+            int i = 0;
+            while (i < digits.length - 1 && digits[i] == 0) i++;
+            h = 1;
+            for (; i < digits.length; i++) h = 31 * h + digits[i];
+            hash = h;
+        }
+        return h;
+    } // end of hashCode
+
+
+      /* Returns true if the value of this is less than the value of other ****/
+    public boolean isSmaller (LargeInteger other) {
+        return compareTo( other ) < 0;
+    } // end of isSmaller
+
+
+    /* Returns a negative number, zero or a positive number when the value of this is smaller, equal or larger
+       than the value of other. Eventual leading zeros are skipped instead of being removed, so nothing is copied. */
+    public int compareTo (LargeInteger other) {
+        Metrics.count( Metrics.Operation.COMPARE, digits.length + other.digits.length, 0 );
+        int i = 0;
+        while (i < digits.length - 1 && digits[i] == 0) i++;
+        int j = 0;
+        while (j < other.digits.length - 1 && other.digits[j] == 0) j++;
+
+        int length = digits.length - i;
+        int otherLength = other.digits.length - j;
+        if ( length != otherLength ) return length < otherLength ? -1 : 1;
+
+        // Arrays.mismatch compares whole blocks of digits at once (it is vectorized by the JVM), without a branch per digit
+        int k = Arrays.mismatch( digits, i, digits.length, other.digits, j, other.digits.length );
+        if ( k < 0 ) return 0;
+        return digits[i + k] < other.digits[j + k] ? -1 : 1;
+    } // end of compareTo
+    
+
+
+    /* This method adds two LargeIntegers: the one on which the method is 
+       called and the one given as argument. The sum is returned. The algorithms 
+       implemented is the normal digit-by-digit addition with carry. */
+
+    LargeInteger add(LargeInteger other) {
+        byte[] longer = digits.length >= other.digits.length ? digits : other.digits;
+        byte[] shorter = longer == digits ? other.digits : digits;
+
+        /* The sum can have at most one more digit than the two operands */
+        LargeInteger sum = new LargeInteger( longer.length + 1 );
+        Metrics.count( Metrics.Operation.ADD, longer.length + shorter.length, sum.digits.length );
+
+        // the columns where both numbers have a digit, from the units up (see addColumns)
+        int carry = addColumns( longer, longer.length, shorter, shorter.length, sum.digits, sum.digits.length, shorter.length, 0 );
+
+        // the remaining digits of the longer number only receive the carry, and are copied as they are once it is gone
+        int i = longer.length - shorter.length - 1;
+        for ( ; i >= 0 && carry != 0; i-- ) {
+            int sumColumn = longer[ i ] + carry;
+            carry = sumColumn >= 10 ? 1 : 0;
+            sum.digits[ i + 1 ] = (byte)( sumColumn - 10 * carry );
+        }
+        System.arraycopy( longer, 0, sum.digits, 1, i + 1 );
+        sum.digits[ 0 ] = (byte) carry;
+        return sum.removeLeadingZeros();
+    } // end of add
+
+
+
+    /* This method subtracts the LargeInteger other from that from where the method is called.
+       Assumption: the argument other contains a number that is not larger than the current number.
+       The algorithm is the normal digit-by-digit subtraction with borrow, done in a single pass from the units up.
+       The comparison of the two numbers is fused into that pass: if other turns out to be larger than this
+       number, a borrow is left over after the last digit, in which case 0 is returned. */
+
+    public LargeInteger subtract( LargeInteger other ) {
+        LargeInteger difference = new LargeInteger( digits.length );
+        Metrics.count( Metrics.Operation.SUBTRACT, digits.length + other.digits.length, difference.digits.length );
+
+        if ( subtractDigits( other, difference.digits ) != 0 ) return new LargeInteger( "0" );    // other is larger than this number
+
+        return difference.removeLeadingZeros();         // only copies if leading zeros appeared
+    } // end of subtract
+
+
+    /* Signed mode of subtract: returns the absolute value of this - other, whichever of the two numbers is the largest.
+       The sign of this - other is the sign of this.compareTo( other ), see the other absoluteDifference to get both at once. */
+    public LargeInteger absoluteDifference( LargeInteger other ) {
+        return absoluteDifference( other, null );
+    } // end of absoluteDifference
+
+
+    /* Returns the absolute value of this - other like absoluteDifference( other ), and writes the sign of this - other
+       (-1, 0 or 1) to signum[0] unless signum is null. The borrow out of the subtraction already tells which number is
+       the largest, so this saves comparing them again. */
+    public LargeInteger absoluteDifference( LargeInteger other, int[] signum ) {
+        LargeInteger difference = new LargeInteger( Math.max( digits.length, other.digits.length ) );
+        Metrics.count( Metrics.Operation.SUBTRACT, digits.length + other.digits.length, difference.digits.length );
+
+        if ( subtractDigits( other, difference.digits ) != 0 ) {
+            // other was larger, so difference holds 10^n - (other - this). Taking the ten's complement
+            // in place gives other - this: the lowest non-zero digit d becomes 10 - d, and every digit above it becomes 9 - d.
+            int i = difference.digits.length - 1;
+            while ( i >= 0 && difference.digits[i] == 0 ) i--;
+            difference.digits[i] = (byte)( 10 - difference.digits[i] );
+            for ( i--; i >= 0; i-- ) difference.digits[i] = (byte)( 9 - difference.digits[i] );
+            if ( signum != null ) signum[0] = -1;
+            return difference.removeLeadingZeros();
+        }
+        difference = difference.removeLeadingZeros();
+        if ( signum != null ) signum[0] = difference.digits.length == 1 && difference.digits[0] == 0 ? 0 : 1;
+        return difference;
+    } // end of absoluteDifference
+
+
+    /* Writes the last difference.length digits of this - other to difference, column by column from the units,
+       and returns the borrow left over after the last column of the longest number: 1 if other is larger than this, 0 otherwise. */
+    private int subtractDigits( LargeInteger other, byte[] difference ) {
+        int size = Math.max( digits.length, other.digits.length );
+
+        // the columns where both numbers have a digit, from the units up (see subtractColumns)
+        int common = Math.min( digits.length, other.digits.length );
+        int borrow = subtractColumns( digits, digits.length, other.digits, other.digits.length, difference, difference.length, common, 0 );
+
+        // the remaining columns, where only one of the two numbers has digits
+        for (int i = common; i < size; i++) {
+            int column = -borrow;
+            if ( i < digits.length ) column += digits[ digits.length - i - 1 ];
+            if ( i < other.digits.length ) column -= other.digits[ other.digits.length - i - 1 ];
+            borrow = column < 0 ? 1 : 0;
+            if ( i < difference.length ) difference[ difference.length - i - 1 ] = (byte)( column + 10 * borrow );
+        }
+        return borrow;
+    } // end of subtractDigits
+
+
+    /* Writes the sum of the length digits of a that end right before aEnd and of the length digits of b that end
+       right before bEnd, plus carry, to the length digits of dst that end right before dEnd, and returns the carry
+       out of the most significant column. This is the loop under every addition of digits: it runs on vectors of
+       digits when PackedLargeInteger.VECTOR_KERNELS is set (see ColumnKernels), one digit at a time otherwise. */
+    static int addColumns( byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int carry ) {
+        if ( PackedLargeInteger.VECTOR_KERNELS ) return PackedLargeInteger.VECTOR.addDigits( a, aEnd, b, bEnd, dst, dEnd, length, carry );
+        return addColumnsScalar( a, aEnd, b, bEnd, dst, dEnd, length, carry );
+    } // end of addColumns
+
+
+    static int addColumnsScalar( byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int carry ) {
+        for (int i = 1; i <= length; i++) {
+            int sumColumn = a[ aEnd - i ] + b[ bEnd - i ] + carry;
+            carry = sumColumn >= 10 ? 1 : 0;                                // no division: a column is at most 19
+            dst[ dEnd - i ] = (byte)( sumColumn - 10 * carry );
+        }
+        return carry;
+    } // end of addColumnsScalar
+
+
+    /* Same as addColumns, but writes a - b - borrow and returns the borrow out of the most significant column */
+    static int subtractColumns( byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int borrow ) {
+        if ( PackedLargeInteger.VECTOR_KERNELS ) return PackedLargeInteger.VECTOR.subtractDigits( a, aEnd, b, bEnd, dst, dEnd, length, borrow );
+        return subtractColumnsScalar( a, aEnd, b, bEnd, dst, dEnd, length, borrow );
+    } // end of subtractColumns
+
+
+    static int subtractColumnsScalar( byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int borrow ) {
+        for (int i = 1; i <= length; i++) {
+            int column = a[ aEnd - i ] - b[ bEnd - i ] - borrow;
+            borrow = column < 0 ? 1 : 0;
+            dst[ dEnd - i ] = (byte)( column + 10 * borrow );
+        }
+        return borrow;
+    } // end of subtractColumnsScalar
+
+
+    /* Returns a randomly generated LargeInteger of n digits */
+    public static LargeInteger getRandom( int n ) {
+        // the digits are drawn 18 at a time from the generator of the current thread, and the first one
+        // is drawn between 1 and 9 instead of drawing again after a zero (see RandomOperands)
+        return RandomOperands.toLargeInteger( RandomOperands.randomLimbs( ThreadLocalRandom.current(), n ) );
+    } // end of getRandom
+
+
+
+    /* This method returns the number stored in file, either as decimal characters or as limbs (see LargeIntegerIO).
+       The file is mapped and its bytes are copied directly into the digits, without making a String. */
+    public static LargeInteger readFrom(Path file, LargeIntegerIO.Format format) throws IOException {
+        return LargeIntegerIO.readLargeInteger( file, format );
+    } // end of readFrom
+
+
+    /* This method returns the number read from channel, up to its end, in the given format */
+    public static LargeInteger readFrom(ReadableByteChannel channel, LargeIntegerIO.Format format) throws IOException {
+        return LargeIntegerIO.readLargeInteger( channel, format );
+    } // end of readFrom
+
+
+    /* This method writes this number to file in the given format, replacing the file if it exists.
+       A file written with the LIMBS format can be opened as a MappedLargeInteger. */
+    public void writeTo(Path file, LargeIntegerIO.Format format) throws IOException {
+        LargeIntegerIO.write( this, file, format );
+    } // end of writeTo
+
+
+    /* This method writes this number to channel in the given format */
+    public void writeTo(WritableByteChannel channel, LargeIntegerIO.Format format) throws IOException {
+        LargeIntegerIO.write( this, channel, format );
+    } // end of writeTo
+
+
+
+    /* Returns a string describing a LargeInteger 17*/
+    public String toString () {        
+
+        /* The digits are turned into characters eight at a time (see DecimalConversion), and the bytes
+           are then given to a String constructor, which copies them as they are ****/
+        return DecimalConversion.toString( digits );
+    } // end of toString
+
+
+    /* Returns the PackedLargeInteger with the same value as this. This is the edge where the
+       byte-per-digit form is converted to limbs of nine digits. */
+    public PackedLargeInteger toPacked () {
+        return new PackedLargeInteger( this );
+    } // end of toPacked
+
+
+    /* Returns the BinaryLargeInteger with the same value as this, for computations that rarely need the digits */
+    public BinaryLargeInteger toBinary () {
+        return new BinaryLargeInteger( this );
+    } // end of toBinary
+
+
+    /* This method returns the product of this and other. It is the single entry point for multiplication:
+       the operands are packed into limbs of nine digits, and the algorithm (schoolbook, Karatsuba, ...) is
+       picked from their sizes using the thresholds of MultiplyThresholds.current().
+       When ProductCache is on, products of operands that were already multiplied are taken from it. */
+    public LargeInteger multiply(LargeInteger other) {
+        if (other == this) return square();
+        LargeInteger cached = ProductCache.product( this, other );
+        if (cached != null) return cached;
+        return ProductCache.putProduct( this, other, toPacked().multiply( other.toPacked() ).toLargeInteger() );
+    } // end of multiply
+
+
+    /* This method returns the products a.get( i ) * b.get( i ) of many pairs of numbers, in order. The pairs are spread
+       over the cores, and the pairs handled by one core share their scratch arrays and transform tables (see BatchArithmetic),
+       so this is faster than calling multiply pair by pair. Throws an IllegalArgumentException if the lists differ in size. */
+    public static List<LargeInteger> multiplyAll(List<LargeInteger> a, List<LargeInteger> b) {
+        return List.of( new BatchArithmetic( MultiplyThresholds.current() ).multiplyAll( a, b ) );
+    } // end of multiplyAll
+
+
+    /* This method returns the sums a.get( i ) + b.get( i ) of many pairs of numbers, in order, the pairs being spread
+       over the cores. Throws an IllegalArgumentException if the lists differ in size. */
+    public static List<LargeInteger> sumAll(List<LargeInteger> a, List<LargeInteger> b) {
+        return List.of( BatchArithmetic.addAll( a, b ) );
+    } // end of sumAll
+
+
+    /* This method returns the product of all the factors (1 if there are none). Instead of folding the list from left to
+       right, which multiplies a huge accumulator by small numbers, the factors are multiplied pairwise, then the pairwise
+       products pairwise, and so on, so that the operands of every multiplication are balanced (see ProductTree). */
+    public static LargeInteger product(List<LargeInteger> factors) {
+        List<PackedLargeInteger> packed = new ArrayList<>( factors.size() );
+        for (LargeInteger factor : factors) packed.add( factor.toPacked() );
+        return PackedLargeInteger.product( packed ).toLargeInteger();
+    } // end of product
+
+
+    /* This method returns the sum of all the terms (0 if there are none). The terms are added column by column
+       and the carries are only propagated once, at the end, instead of once per addition. */
+    public static LargeInteger sum(List<LargeInteger> terms) {
+        List<PackedLargeInteger> packed = new ArrayList<>( terms.size() );
+        for (LargeInteger term : terms) packed.add( term.toPacked() );
+        return PackedLargeInteger.sum( packed ).toLargeInteger();
+    } // end of sum
+
+
+    /* This method returns n!, computed with the prime swing algorithm on top of product trees (see ProductTree).
+       Throws an ArithmeticException if n is negative. */
+    public static LargeInteger factorial(int n) {
+        return PackedLargeInteger.factorial( n ).toLargeInteger();
+    } // end of factorial
+
+
+    /* This method returns the binomial coefficient C(n, k), i.e. n! / (k! (n - k)!), or 0 if k < 0 or k > n.
+       It is computed as the product of its prime factors (see ProductTree). Throws an ArithmeticException if n is negative. */
+    public static LargeInteger binomial(int n, int k) {
+        return PackedLargeInteger.binomial( n, k ).toLargeInteger();
+    } // end of binomial
+
+
+    /* This method returns this * this. The cross products of a square are all computed twice by the general
+       multiplication algorithms, so every tier of multiply has a squaring variant that only computes them once
+       (schoolbook) or that only needs squares of parts (Karatsuba, Toom-Cook, transform). */
+    public LargeInteger square() {
+        LargeInteger cached = ProductCache.square( this );
+        if (cached != null) return cached;
+        return ProductCache.putSquare( this, toPacked().square().toLargeInteger() );
+    } // end of square
+
+
+    /* This method returns an array containing the quotient and the remainder of the division of this by other,
+       like the long division done by hand. Divisors of up to nine digits are handled in a single pass over the digits,
+       moderate sizes by schoolbook long division, and large numbers by multiplying with a reciprocal of other computed
+       by Newton's iteration, which costs a few multiplications (see Division). Dividing by zero throws an ArithmeticException. */
+    public LargeInteger[] divideAndRemainder(LargeInteger other) {
+        PackedLargeInteger[] ret = toPacked().divideAndRemainder( other.toPacked() );
+        return new LargeInteger[] { ret[0].toLargeInteger(), ret[1].toLargeInteger() };
+    } // end of divideAndRemainder
+
+
+    /* This method returns the quotient of the division of this by other, rounded down */
+    public LargeInteger divide(LargeInteger other) {
+        return divideAndRemainder( other )[0];
+    } // end of divide
+
+
+    /* This method returns the remainder of the division of this by other */
+    public LargeInteger remainder(LargeInteger other) {
+        return divideAndRemainder( other )[1];
+    } // end of remainder
+
+
+    /* This method returns this raised to the power exponent, by binary exponentiation: the result is squared
+       once per bit of the exponent and multiplied by this once per bit set, so 7^100000 takes 17 squarings
+       instead of 99999 multiplications. Powers of small numbers are cached, see PowerCache, and so are
+       all the results when ProductCache is on. */
+    public LargeInteger pow(int exponent) {
+        LargeInteger cached = ProductCache.power( this, exponent );
+        if (cached != null) return cached;
+        return ProductCache.putPower( this, exponent, toPacked().pow( exponent ).toLargeInteger() );
+    } // end of pow
+
+
+    /* Same as pow(int), for an exponent stored in a LargeInteger. Unless this is 0 or 1, an exponent that does not
+       fit in an int would give a result of billions of digits, so it is rejected. */
+    public LargeInteger pow(LargeInteger exponent) {
+        LargeInteger e = exponent.removeLeadingZeros();
+        if (e.digits.length > 10 || (e.digits.length == 10 && e.compareTo( new LargeInteger( String.valueOf( Integer.MAX_VALUE ) ) ) > 0)) {
+            LargeInteger value = removeLeadingZeros();
+            if (value.digits.length == 1 && value.digits[0] <= 1) return value;
+            throw new ArithmeticException( "exponent too large: " + exponent );
+        }
+        return pow( Integer.parseInt( e.toString() ) );
+    } // end of pow
+
+
+    /* This method returns this * other mod modulus. The product never grows beyond the size of the modulus
+       before it is reduced (see ModularContext). To do many operations with the same modulus, create its
+       ModularContext once and use the methods that take it. Throws an ArithmeticException if modulus is zero. */
+    public LargeInteger modMul(LargeInteger other, LargeInteger modulus) {
+        return modMul( other, new ModularContext( modulus ) );
+    } // end of modMul
+
+
+    /* This method returns this * other mod m, where m is the modulus of context */
+    public LargeInteger modMul(LargeInteger other, ModularContext context) {
+        return toPacked().modMul( other.toPacked(), context ).toLargeInteger();
+    } // end of modMul
+
+
+    /* This method returns this * this mod modulus. Throws an ArithmeticException if modulus is zero. */
+    public LargeInteger modSquare(LargeInteger modulus) {
+        return modSquare( new ModularContext( modulus ) );
+    } // end of modSquare
+
+
+    /* This method returns this * this mod m, where m is the modulus of context */
+    public LargeInteger modSquare(ModularContext context) {
+        return toPacked().modSquare( context ).toLargeInteger();
+    } // end of modSquare
+
+
+    /* This method returns this raised to the power exponent, mod modulus. Every step multiplies numbers below the
+       modulus and reduces the product right away, and runs of bits of the exponent are handled with a single
+       multiplication by a precomputed power (sliding windows, see ModularContext). 0^0 is 1, unless modulus is 1.
+       Throws an ArithmeticException if modulus is zero. */
+    public LargeInteger modPow(LargeInteger exponent, LargeInteger modulus) {
+        return modPow( exponent, new ModularContext( modulus ) );
+    } // end of modPow
+
+
+    /* This method returns this raised to the power exponent, mod m, where m is the modulus of context */
+    public LargeInteger modPow(LargeInteger exponent, ModularContext context) {
+        return toPacked().modPow( exponent.toPacked(), context ).toLargeInteger();
+    } // end of modPow
+
+
+    /* This method returns the product of this and other computed exactly with number-theoretic
+       transforms (see NumberTheoreticTransform). It is meant for operands of hundreds of thousands
+       of digits and more, where it is much faster than recursiveFastMultiplication. */
+    public LargeInteger nttMultiplication(LargeInteger other) {
+        return toPacked().nttMultiplication( other.toPacked() ).toLargeInteger();
+    } // end of nttMultiplication
+
+
+    /* This method returns the product of this and other by using the Toom-Cook 3-way approach: each operand
+       is split into three parts, and the product is rebuilt from five products of parts instead of nine.
+       As in recursiveFastMultiplication, the longest operand is the one that gets split, and the shorter one
+       is only split if it is longer than a third of it. The five products of parts are computed by multiply,
+       which uses Karatsuba for the small ones. */
+    public LargeInteger toomCook3Multiplication(LargeInteger other) {
+        return toPacked().toomCook3Multiplication( other.toPacked() ).toLargeInteger();
+    } // end of toomCook3Multiplication
+
+
+    /* This method returns the same product as multiply, but the independent sub-products of each level (the
+       convolutions of the transform, the products of Toom-Cook or Karatsuba) are computed in parallel on the
+       common fork-join pool as long as the operands are above the parallel threshold of MultiplyThresholds.current(). */
+    public LargeInteger parallelMultiplication(LargeInteger other) {
+        return toPacked().parallelMultiplication( other.toPacked() ).toLargeInteger();
+    } // end of parallelMultiplication
+
+
+    /* Same as parallelMultiplication(other), on the workers of pool instead of the common pool */
+    public LargeInteger parallelMultiplication(LargeInteger other, ForkJoinPool pool) {
+        return toPacked().parallelMultiplication( other.toPacked(), pool ).toLargeInteger();
+    } // end of parallelMultiplication
+
+
+
+
+    /* This function returns the product of this and other by iterative addition */
+    public LargeInteger iterativeAddition(LargeInteger other) {
+
+        // to execute a * b using addition, we need a counter to increment up to 'a' to know when to terminate the loop.
+        // Since a * b = b * a , from a correctness standpoint, the choice of either 'a' or 'b' as the terminator is irrelevant.
+
+        // However, to increase efficiency and speed, it would be beneficial to choose the smallest value of either 'a' or 'b' to compare against.
+        // This will not only decrease the number of times the loop must be executed, but also since the addition of two byte arrays requires iterating over the whole array,
+        // this will also decrease the number of iterations and calls to helper methods.
+        // All of this will speed up the execution of this program.
+
+        // declare counter variable along with two placeholder variables to help us decide which of the two byte arrays is the smallest and which is the largest.
+        LargeInteger counter;
+
+        // since objects in Java are called by reference, assigning a LargeInteger object to either of these variable will not create a new object, simply a reference to the memory location of the previous object
+        // This will allow us to assign 'this' and 'other' to either of these two variables and allow us to manipulate 'smallest' and 'largest' as if manipulating 'this' and 'other' without knowing
+        // which is larger or smaller when this method is called.
+        LargeInteger smallest;
+        LargeInteger largest;
+
+        if (this.digits.length <= other.digits.length){         // if this byte array is smaller, create a new LargeInteger counter object equal to the length of this byte array
+            counter = new LargeInteger( this.digits.length );
+            smallest = this;                // this signifies that 'this' byte array is the smallest of the two
+            largest = other;                // and this is the largest.
+        } else {
+            counter = new LargeInteger( other.digits.length );  // else create counter object equal to the length of the other byte array
+            smallest = other;               // in this case, the 'other' is smaller
+            largest = this;                 // and 'this' is larger
+        }
+
+        Metrics.count( Metrics.Operation.ITERATIVE_ADDITION, digits.length + other.digits.length, 0 );   // the additions are counted on their own
+
+        LargeInteger iterator = new LargeInteger("1");      // create a byte array of value 1 to act as an iterator to the counter byte array
+
+        LargeInteger product = new LargeInteger("0");
+
+        // while the counter is less than the value of the smallest byte array
+        while (!(smallest.equals(counter))){
+            Cancellation.check();               // this loop can run for ages: give up if the thread was interrupted (see Cancellation)
+            product = product.add(largest);     // add the 'largest' to the product array a 'smallest' number of times
+
+            counter = counter.add(iterator);    // iterate the counter
+        }
+
+        return product;                         // return the product of the addition
+    } // end of iterativeAddition
+
+
+
+    /* This function returns the product of this and other by using the standard multiplication algorithm */
+    public LargeInteger standardMultiplication(LargeInteger other) {
+
+        // Since c = a * b = b * a ,  the order of multiplication of the two numbers does not matter.
+        // In this case, we will refer to 'a' as representing 'this' LongInteger and 'b' as representing the 'other' LongInteger.
+
+        // The product of 'a' and 'b' is at most the length of 'a' + the length of 'b' digits long.
+        // Instead of building a separate shifted array for every digit of 'a' and adding it to a running total,
+        // every partial product 'b' * (digit i of 'a') is accumulated directly into its final columns of a single product array.
+        // The columns of the i-th partial product are simply shifted left by i, which is the analogue of multiplying it by 10^i.
+        LargeInteger product = new LargeInteger(other.digits.length + this.digits.length);
+        Metrics.count( Metrics.Operation.STANDARD_MULTIPLICATION, other.digits.length + this.digits.length, product.digits.length );
+
+        for (int i = 0; i < this.digits.length; i++){       // set up a loop to iterate over the length of 'a'
+            if ((i & 63) == 0) Cancellation.check();        // every 64 rows, give up if the thread was interrupted (see Cancellation)
+            int digit = this.digits[this.digits.length - i - 1];
+            if (digit == 0) continue;                       // a zero digit adds nothing to the product
+
+            int carry = 0;                                  // set the value of carry to 0
+            int column = product.digits.length - i - 1;     // the units of the i-th partial product fall in this column
+
+            for (int j = 0; j < other.digits.length; j++, column--){  // set up the inner loop to iterate over the length of 'b'.
+
+                // the total value of any one column is what the column already holds + the value of the carry + the value of the digit in 'a' * the value of the digit in 'b'
+                int columnProduct = product.digits[column] + carry + digit * other.digits[other.digits.length - j - 1];
+
+                product.digits[column] = (byte)(columnProduct % 10);  // the value to keep in the column is the remainder (mod) of the division by 10
+                carry = columnProduct / 10;         // the carry is simply the floor of the integer division of the columnProduct divided by 10
+            }
+
+            product.digits[column] = (byte) carry;  // this column has not been touched by the previous partial products yet, so the carry is its whole value
+        }
+        return product.removeLeadingZeros();
+    } // end of standardMultiplication
+                
+
+
+    /* This function returns the product of this and other by using the basic recursive approach described 
+       in the homework. Only use the built-in "*" operator to multiply single-digit numbers.
+       The halves are views on the digits of this and other (see DigitView), so that splitting and
+       shifting do not copy anything: only the sums get new digits. */
+    public LargeInteger recursiveMultiplication( LargeInteger other ) {
+        return recursiveMultiplication( new DigitView( digits ), new DigitView( other.digits ), 0 ).toLargeInteger();
+    } // end of recursiveMultiplication
+
+
+    /* recursiveMultiplication of the views a and b, at the given depth of the recursion, which is only used to
+       count the calls per depth in Metrics */
+    private static DigitView recursiveMultiplication( DigitView a, DigitView b, int depth ) {
+        Metrics.count( Metrics.Operation.RECURSIVE_MULTIPLICATION, a.size() + b.size(), 0 );
+        Metrics.depth( Metrics.Operation.RECURSIVE_MULTIPLICATION, depth );
+
+        // left and right halves of a and b                                                                                        
+        DigitView leftThis, rightThis, leftOther, rightOther;
+        DigitView term1,  term2,  term3,  term4; // temporary terms                                                                      
+
+        if ( a.size()==1 && b.size()==1 ) {
+            return a.multiply( b.digits[b.offset] );
+        }
+        Cancellation.check();                               // give up if the thread was interrupted (see Cancellation)
+
+        int k = a.size();
+        int n = b.size();
+        leftThis = a.range( 0, k - k/2 );
+        rightThis = a.range( k - k/2, k );
+        leftOther = b.range( 0, n - n/2 );
+        rightOther = b.range( n - n/2, n );
+
+        /* now recursively call recursiveMultiplication to compute the                    
+           four products with smaller operands  */
+
+        if ( n > 1 && k > 1 )  term1 = recursiveMultiplication( rightThis, rightOther, depth + 1 );
+        else term1 = DigitView.ZERO;
+
+        if ( k>1 ) term2 = recursiveMultiplication( rightThis, leftOther, depth + 1 ).shiftLeft( n/2 );
+        else term2 = DigitView.ZERO;
+
+        if ( n>1 ) term3 = recursiveMultiplication( leftThis, rightOther, depth + 1 ).shiftLeft( k/2 );
+        else term3 = DigitView.ZERO;
+
+        term4 = recursiveMultiplication( leftThis, leftOther, depth + 1 ).shiftLeft( k/2 + n/2 );
+
+        return DigitView.sum( term1, term2, term3, term4 );             // a single array for the three additions
+    } // end of recursiveMultiplication             
+
+
+    /* This method returns the product of this and other by using the faster recursive approach 
+       described in the homework. It only uses the built-in "*" operator to multiply single-digit numbers.
+       As in recursiveMultiplication, the halves and the shifted terms are views (see DigitView). */
+    public LargeInteger recursiveFastMultiplication(LargeInteger other) {
+        return recursiveFastMultiplication( new DigitView( digits ), new DigitView( other.digits ), 0 ).toLargeInteger();
+    } // end of recursiveFastMultiplication
+
+
+    /* recursiveFastMultiplication of the views a and b, at the given depth of the recursion, which is only used to
+       count the calls per depth in Metrics */
+    private static DigitView recursiveFastMultiplication(DigitView a, DigitView b, int depth) {
+        DigitView leftThis, rightThis, leftOther, rightOther;
+        DigitView term1, term2, term3;
+
+        int k = a.size();
+        int n = b.size();
+
+        // ensure that b is the longest number. The swapped call is the same call, so it is only counted once, below.
+        if (n < k){
+            return recursiveFastMultiplication(b, a, depth);
+        }
+        Metrics.count( Metrics.Operation.RECURSIVE_FAST_MULTIPLICATION, a.size() + b.size(), 0 );
+        Metrics.depth( Metrics.Operation.RECURSIVE_FAST_MULTIPLICATION, depth );
+
+        // base case: k = 1 in which case we perform standard multiplication on the two numbers
+        if (k == 1){
+            return b.multiply( a.digits[a.offset] );
+        }
+        Cancellation.check();                               // give up if the thread was interrupted (see Cancellation)
+
+        leftThis = a.range( 0, k - k/2 );
+        rightThis = a.range( k - k/2, k );
+        leftOther = b.range( 0, n - n/2 );
+        rightOther = b.range( n - n/2, n );
+
+        // term1 <- recursiveFastMultiplication ( ra, rb )
+        term1 = recursiveFastMultiplication( rightThis, rightOther, depth + 1 );
+
+        // term2 <- recursiveFastMultiplication ( la, lb )
+        term2 = recursiveFastMultiplication( leftThis, leftOther, depth + 1 );
+
+        // 10^(n/2-k/2) term2
+        DigitView helper1 = term2.shiftLeft( n/2 - k/2 );
+
+        // 10^(n/2-k/2)lb + rb
+        DigitView helper2 = leftOther.shiftLeft( n/2 - k/2 ).add( rightOther );
+
+        // term3 <- ((la + ra) * (helper2)) - (helper1) - term1
+        term3 = recursiveFastMultiplication( leftThis.add( rightThis ), helper2, depth + 1 ).subtract( helper1, term1 );
+
+        // return 10^(k/2 + n/2)term2 + 10^(k/2)term3 + term1
+        return DigitView.sum( term2.shiftLeft( k/2 + n/2 ), term3.shiftLeft( k/2 ), term1 );
+    } // end of recursiveFastMultiplication
+
+}  // end of the LargeInteger class
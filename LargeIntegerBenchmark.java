@@ -0,0 +1,434 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/* This class benchmarks the operations of LargeInteger and PackedLargeInteger over numbers of 2^1 up to
+   2^20 digits, in the way JMH would: the operands are generated before the clock starts, every benchmark
+   runs warmup iterations before the measured ones, and every result is handed to a Blackhole so that the
+   JIT cannot drop the call. Besides the average time per operation, it measures what the gc profiler of
+   JMH reports: the bytes allocated per operation, the allocation rate, and the collections. Allocations are
+   summed over all the threads, so that those of the fork-join workers of the parallel benchmarks count too.
+   ProductCache is turned off by every measurement, since the operands of a benchmark come back every POOL
+   operations and their products would otherwise be looked up instead of computed.
+
+   The results are written to benchmarkTimes.csv (average nanoseconds per operation) and
+   benchmarkAllocations.csv (bytes allocated per operation), in the layout of executionTimes.csv: one row
+   per number of digits and one column per benchmark, with null where a benchmark did not run, and to
+   benchmarkResults.json with every measurement. When the JVM runs with -Dmetrics=true, the operation counts
+   and tier timings of the whole run also go to benchmarkMetrics.csv (see Metrics).
+
+   Usage: java LargeIntegerBenchmark [-wi warmupIterations] [-i iterations] [-r iterationMillis]
+                                     [-min log2Digits] [-max log2Digits] [-t maxOperationMillis]
+                                     [-o outputPrefix] [-seed seed] [benchmark ...]
+   where benchmarks are named as the CSV columns (all of them by default). The operands are drawn from
+   the seed, so two runs with the same seed measure the same numbers. */
+class LargeIntegerBenchmark {
+
+    /* The benchmarks. Each one runs an operation on the operands of index i, and returns its result. */
+    enum Benchmark {
+        ADD( "Add", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].add( o.b[ i ] ); }
+        },
+        SUBTRACT( "Subtract", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].subtract( o.b[ i ] ); }
+        },
+        ITERATIVE_ADDITION( "IterativeAddition", 3 ) {                  // adds b to itself up to a times: exponential in the digits
+            Object run (Operands o, int i) { return o.a[ i ].iterativeAddition( o.b[ i ] ); }
+        },
+        STANDARD_MULTIPLICATION( "StandardMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].standardMultiplication( o.b[ i ] ); }
+        },
+        RECURSIVE_MULTIPLICATION( "RecursiveMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].recursiveMultiplication( o.b[ i ] ); }
+        },
+        RECURSIVE_FAST_MULTIPLICATION( "RecursiveFastMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].recursiveFastMultiplication( o.b[ i ] ); }
+        },
+        PACKED_STANDARD_MULTIPLICATION( "PackedStandardMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].standardMultiplication( o.packedB[ i ] ); }
+        },
+        PACKED_RECURSIVE_FAST_MULTIPLICATION( "PackedRecursiveFastMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].recursiveFastMultiplication( o.packedB[ i ] ); }
+        },
+        PACKED_TOOM_COOK_3_MULTIPLICATION( "PackedToomCook3Multiplication", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].toomCook3Multiplication( o.packedB[ i ] ); }
+        },
+        PACKED_NTT_MULTIPLICATION( "PackedNttMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].nttMultiplication( o.packedB[ i ] ); }
+        },
+        PACKED_PARALLEL_MULTIPLICATION( "PackedParallelMultiplication", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].parallelMultiplication( o.packedB[ i ] ); }
+        },
+        PACKED_SQUARE( "PackedSquare", 20 ) {
+            Object run (Operands o, int i) { return o.packedA[ i ].square(); }
+        },
+        BINARY_ADD( "BinaryAdd", 20 ) {
+            Object run (Operands o, int i) { return o.binaryA[ i ].add( o.binaryB[ i ] ); }
+        },
+        BINARY_MULTIPLY( "BinaryMultiply", 20 ) {
+            Object run (Operands o, int i) { return o.binaryA[ i ].multiply( o.binaryB[ i ] ); }
+        },
+        MULTIPLY( "Multiply", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].multiply( o.b[ i ] ); }
+        },
+        SQUARE( "Square", 20 ) {
+            Object run (Operands o, int i) { return o.a[ i ].square(); }
+        };
+
+        final String column;            // name in the CSV header and on the command line
+        final int maxLog2Digits;        // largest size this benchmark can run at all
+
+        Benchmark (String column, int maxLog2Digits) {
+            this.column = column;
+            this.maxLog2Digits = maxLog2Digits;
+        }
+
+        abstract Object run (Operands operands, int i);
+    }
+
+
+    /* The operands of a benchmark at one size, generated once before any timing (the @State of JMH).
+       The benchmark cycles through POOL pairs so that it does not keep hitting the same cache lines.
+       In every pair, a is at least b, so that subtract does real work instead of returning 0.
+       The operands of a size only depend on the seed and the size, whatever ran before them. */
+    static final class Operands {
+        static final int POOL = 8;
+
+        final LargeInteger[] a = new LargeInteger[POOL];
+        final LargeInteger[] b = new LargeInteger[POOL];
+        final PackedLargeInteger[] packedA = new PackedLargeInteger[POOL];
+        final PackedLargeInteger[] packedB = new PackedLargeInteger[POOL];
+        final BinaryLargeInteger[] binaryA = new BinaryLargeInteger[POOL];
+        final BinaryLargeInteger[] binaryB = new BinaryLargeInteger[POOL];
+
+        Operands (int digits, long seed) {
+            LargeInteger[] xy = new RandomOperands( seed + digits ).nextLargeIntegers( 2 * POOL, digits );
+            for (int i = 0; i < POOL; i++) {
+                LargeInteger x = xy[ 2 * i ];
+                LargeInteger y = xy[ 2 * i + 1 ];
+                a[ i ] = x.compareTo( y ) >= 0 ? x : y;
+                b[ i ] = x.compareTo( y ) >= 0 ? y : x;
+                packedA[ i ] = a[ i ].toPacked();
+                packedB[ i ] = b[ i ].toPacked();
+                binaryA[ i ] = new BinaryLargeInteger( packedA[ i ] );
+                binaryB[ i ] = new BinaryLargeInteger( packedB[ i ] );
+            }
+        }
+    }
+
+
+    /* Consumes results so that the JIT has to compute them. A volatile write can not be eliminated,
+       and the object has to exist to be written. */
+    static final class Blackhole {
+        private volatile Object sink;
+
+        void consume (Object result) {
+            sink = result;
+        }
+    }
+
+
+    /* The measurement of one benchmark at one size. Times are in nanoseconds per operation. */
+    static final class Result {
+        final Benchmark benchmark;
+        final int digits;
+        final double[] iterationScores;         // average time per operation of every measured iteration
+        final long operations;
+        final double score;
+        final double scoreError;                // half-width of the 99.9% confidence interval, as JMH reports it
+        final double bytesPerOperation;         // gc.alloc.rate.norm, or -1 if the JVM can not tell
+        final double allocationRate;            // gc.alloc.rate in MB/s, or -1
+        final long gcCount;
+        final long gcTime;                      // milliseconds
+
+        Result (Benchmark benchmark, int digits, double[] iterationScores, long operations, double bytesPerOperation,
+                double allocationRate, long gcCount, long gcTime) {
+            this.benchmark = benchmark;
+            this.digits = digits;
+            this.iterationScores = iterationScores;
+            this.operations = operations;
+            this.bytesPerOperation = bytesPerOperation;
+            this.allocationRate = allocationRate;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+
+            double sum = 0;
+            for (double s : iterationScores) sum += s;
+            score = sum / iterationScores.length;
+            double squares = 0;
+            for (double s : iterationScores) squares += (s - score) * (s - score);
+            int n = iterationScores.length;
+            scoreError = n < 2 ? Double.NaN : studentT999( n - 1 ) * Math.sqrt( squares / (n - 1) ) / Math.sqrt( n );
+        }
+    }
+
+
+    int warmupIterations = 3;
+    int iterations = 5;
+    long iterationNanos = 500_000_000L;
+    int minLog2Digits = 1;
+    int maxLog2Digits = 20;
+    long maxOperationNanos = 5_000_000_000L;        // once an operation takes longer, larger sizes of the benchmark are skipped
+    String outputPrefix = "benchmark";
+    long seed = 42;
+    List<Benchmark> benchmarks = new ArrayList<>( List.of( Benchmark.values() ) );
+
+    private final Blackhole blackhole = new Blackhole();
+
+
+
+    /* Returns the measurement of benchmark on operands of the given number of digits */
+    Result measure (Benchmark benchmark, Operands operands, int digits) {
+        System.out.println( benchmark.column + ". Digits: " + digits );
+        ProductCache.setMaxDigits( 0 );                                 // products are computed, not looked up
+
+        // a first operation, timed on its own, tells whether the benchmark is worth iterating at this size
+        long start = System.nanoTime();
+        blackhole.consume( benchmark.run( operands, 0 ) );
+        long first = System.nanoTime() - start;
+        if (first > iterationNanos) return new Result( benchmark, digits, new double[] { first }, 1, -1, -1, 0, 0 );
+
+        for (int i = 0; i < warmupIterations; i++) iteration( benchmark, operands );
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        Map<Long, Long> allocatedBefore = threads == null ? null : allocatedBytes( threads );
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long measureStart = System.nanoTime();
+
+        double[] scores = new double[iterations];
+        long operations = 0;
+        for (int i = 0; i < iterations; i++) {
+            long[] timed = iteration( benchmark, operands );
+            scores[ i ] = (double) timed[ 1 ] / timed[ 0 ];
+            operations += timed[ 0 ];
+        }
+
+        long elapsed = System.nanoTime() - measureStart;
+        double bytesPerOperation = -1;
+        double allocationRate = -1;
+        if (threads != null) {
+            long allocated = allocatedSince( allocatedBefore, allocatedBytes( threads ) );
+            bytesPerOperation = (double) allocated / operations;
+            allocationRate = allocated / (elapsed / 1e9) / (1 << 20);
+        }
+        return new Result( benchmark, digits, scores, operations, bytesPerOperation, allocationRate,
+                           gcCount() - gcCountBefore, gcTime() - gcTimeBefore );
+    } // end of measure
+
+
+    /* Runs benchmark for iterationNanos, in batches that double in size while they are short so that reading
+       the clock does not weigh on small operations. Returns { operations, elapsed nanoseconds }. */
+    private long[] iteration (Benchmark benchmark, Operands operands) {
+        long operations = 0;
+        long batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Cancellation.check();
+            for (long j = 0; j < batch; j++) blackhole.consume( benchmark.run( operands, (int)( (operations + j) % Operands.POOL ) ) );
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+            if (elapsed < iterationNanos / 100) batch *= 2;
+        } while (elapsed < iterationNanos);
+        return new long[] { operations, elapsed };
+    } // end of iteration
+
+
+    /* Runs every selected benchmark over every size and returns the results. The operands of a size are shared
+       by all the benchmarks. A benchmark whose operation took longer than maxOperationNanos is not run at
+       larger sizes. */
+    List<Result> run () {
+        List<Result> results = new ArrayList<>();
+        Map<Benchmark, Boolean> stopped = new EnumMap<>( Benchmark.class );
+
+        for (int log2 = minLog2Digits; log2 <= maxLog2Digits; log2++) {
+            int digits = 1 << log2;
+            Operands operands = null;
+            for (Benchmark benchmark : benchmarks) {
+                if (log2 > benchmark.maxLog2Digits || stopped.containsKey( benchmark )) continue;
+                if (operands == null) operands = new Operands( digits, seed );
+
+                Result result = measure( benchmark, operands, digits );
+                results.add( result );
+                if (result.score > maxOperationNanos) {
+                    System.out.println( benchmark.column + " took too long, larger sizes are skipped" );
+                    stopped.put( benchmark, true );
+                }
+            }
+        }
+        return results;
+    } // end of run
+
+
+    /* Writes the results to the CSV files and the JSON file, and the metrics if they were counted */
+    void write (List<Result> results) throws IOException {
+        writeCsv( results, outputPrefix + "Times.csv", false );
+        writeCsv( results, outputPrefix + "Allocations.csv", true );
+        writeJson( results, outputPrefix + "Results.json" );
+        if (Metrics.ENABLED) Metrics.write( outputPrefix + "Metrics.csv" );
+    } // end of write
+
+
+    /* Writes one row per number of digits and one column per benchmark, with the time per operation in
+       nanoseconds, or with the bytes allocated per operation */
+    private void writeCsv (List<Result> results, String fileName, boolean allocations) throws IOException {
+        try (FileWriter writer = new FileWriter( fileName )) {
+            StringBuilder header = new StringBuilder( "Digits" );
+            for (Benchmark benchmark : benchmarks) header.append( ',' ).append( benchmark.column );
+            writer.write( header + "\n" );
+
+            for (int log2 = minLog2Digits; log2 <= maxLog2Digits; log2++) {
+                StringBuilder row = new StringBuilder( String.valueOf( 1 << log2 ) );
+                for (Benchmark benchmark : benchmarks) {
+                    Result result = find( results, benchmark, 1 << log2 );
+                    row.append( ',' );
+                    if (result == null || (allocations && result.bytesPerOperation < 0)) row.append( "null" );
+                    else row.append( format( allocations ? result.bytesPerOperation : result.score ) );
+                }
+                writer.write( row + "\n" );
+            }
+        }
+    } // end of writeCsv
+
+
+    /* Writes every result as a JSON object, with the fields named as in the output of JMH */
+    private void writeJson (List<Result> results, String fileName) throws IOException {
+        try (FileWriter writer = new FileWriter( fileName )) {
+            writer.write( "[\n" );
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get( i );
+                StringBuilder scores = new StringBuilder();
+                for (double s : r.iterationScores) scores.append( scores.length() == 0 ? "" : ", " ).append( format( s ) );
+
+                writer.write( "  {\n" +
+                              "    \"benchmark\": \"" + r.benchmark.column + "\",\n" +
+                              "    \"mode\": \"avgt\",\n" +
+                              "    \"params\": { \"digits\": " + r.digits + " },\n" +
+                              "    \"warmupIterations\": " + warmupIterations + ",\n" +
+                              "    \"measurementIterations\": " + r.iterationScores.length + ",\n" +
+                              "    \"operations\": " + r.operations + ",\n" +
+                              "    \"primaryMetric\": { \"score\": " + format( r.score ) + ", \"scoreError\": " + format( r.scoreError ) +
+                              ", \"scoreUnit\": \"ns/op\", \"rawData\": [ " + scores + " ] },\n" +
+                              "    \"secondaryMetrics\": {\n" +
+                              "      \"gc.alloc.rate\": { \"score\": " + format( r.allocationRate ) + ", \"scoreUnit\": \"MB/sec\" },\n" +
+                              "      \"gc.alloc.rate.norm\": { \"score\": " + format( r.bytesPerOperation ) + ", \"scoreUnit\": \"B/op\" },\n" +
+                              "      \"gc.count\": { \"score\": " + r.gcCount + ", \"scoreUnit\": \"counts\" },\n" +
+                              "      \"gc.time\": { \"score\": " + r.gcTime + ", \"scoreUnit\": \"ms\" }\n" +
+                              "    }\n" +
+                              "  }" + (i < results.size() - 1 ? "," : "") + "\n" );
+            }
+            writer.write( "]\n" );
+        }
+    } // end of writeJson
+
+
+    /* Returns the result of benchmark at the given number of digits, or null if it did not run */
+    private static Result find (List<Result> results, Benchmark benchmark, int digits) {
+        for (Result result : results) if (result.benchmark == benchmark && result.digits == digits) return result;
+        return null;
+    } // end of find
+
+
+    private static String format (double value) {
+        if (Double.isNaN( value )) return "NaN";
+        return String.format( Locale.ROOT, "%.3f", value );
+    } // end of format
+
+
+    /* Returns the counter of the bytes allocated by a thread, or null if this JVM does not have one */
+    private static com.sun.management.ThreadMXBean allocationCounter () {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean ret = (com.sun.management.ThreadMXBean) threads;
+        return ret.isThreadAllocatedMemorySupported() && ret.isThreadAllocatedMemoryEnabled() ? ret : null;
+    } // end of allocationCounter
+
+
+    /* Returns the number of bytes allocated so far by every live thread, by thread id */
+    private static Map<Long, Long> allocatedBytes (com.sun.management.ThreadMXBean threads) {
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes( ids );
+        Map<Long, Long> ret = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) if (bytes[ i ] >= 0) ret.put( ids[ i ], bytes[ i ] );
+        return ret;
+    } // end of allocatedBytes
+
+
+    /* Returns the number of bytes allocated by all the threads between the two counts of allocatedBytes. A thread
+       started in between counts from zero; one that ended in between is missed, but the workers of the common pool
+       outlive an iteration. */
+    private static long allocatedSince (Map<Long, Long> before, Map<Long, Long> after) {
+        long ret = 0;
+        for (Map.Entry<Long, Long> thread : after.entrySet()) ret += thread.getValue() - before.getOrDefault( thread.getKey(), 0L );
+        return ret;
+    } // end of allocatedSince
+
+
+    private static long gcCount () {
+        long ret = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) ret += Math.max( gc.getCollectionCount(), 0 );
+        return ret;
+    } // end of gcCount
+
+
+    private static long gcTime () {
+        long ret = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) ret += Math.max( gc.getCollectionTime(), 0 );
+        return ret;
+    } // end of gcTime
+
+
+    /* Returns the quantile 0.9995 of Student's t distribution with the given degrees of freedom, used for
+       the 99.9% confidence interval */
+    static double studentT999 (int degrees) {
+        double[] table = { 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+                           4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850 };
+        if (degrees <= table.length) return table[ degrees - 1 ];
+        return degrees <= 30 ? 3.646 : degrees <= 60 ? 3.460 : 3.291;
+    } // end of studentT999
+
+
+    /* Reads the options of the command line, see the comment of the class */
+    void parse (String[] args) {
+        List<Benchmark> selected = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[ i ]) {
+                case "-wi":  warmupIterations = Integer.parseInt( args[ ++i ] ); break;
+                case "-i":   iterations = Integer.parseInt( args[ ++i ] ); break;
+                case "-r":   iterationNanos = Long.parseLong( args[ ++i ] ) * 1_000_000L; break;
+                case "-min": minLog2Digits = Integer.parseInt( args[ ++i ] ); break;
+                case "-max": maxLog2Digits = Integer.parseInt( args[ ++i ] ); break;
+                case "-t":   maxOperationNanos = Long.parseLong( args[ ++i ] ) * 1_000_000L; break;
+                case "-o":   outputPrefix = args[ ++i ]; break;
+                case "-seed": seed = Long.parseLong( args[ ++i ] ); break;
+                default:     selected.add( byColumn( args[ i ] ) );
+            }
+        }
+        if (iterations < 1) throw new IllegalArgumentException( "at least one measured iteration is needed" );
+        if (!selected.isEmpty()) benchmarks = selected;
+    } // end of parse
+
+
+    /* Returns the benchmark whose CSV column is name */
+    static Benchmark byColumn (String name) {
+        for (Benchmark benchmark : Benchmark.values()) if (benchmark.column.equalsIgnoreCase( name )) return benchmark;
+        throw new IllegalArgumentException( "unknown benchmark " + name );
+    } // end of byColumn
+
+
+    public static void main (String[] args) throws IOException {
+        LargeIntegerBenchmark suite = new LargeIntegerBenchmark();
+        suite.parse( args );
+        suite.write( suite.run() );
+        System.out.println( "\nEnd of Benchmarking." );
+    } // end of main
+
+}  // end of the LargeIntegerBenchmark class
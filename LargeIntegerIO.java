@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/* This class reads and writes numbers through NIO channels, without going through a String.
+
+   Two formats are supported:
+   - DECIMAL: the digits as ASCII characters, most significant first, as printed by toString. A final
+     end of line is allowed when reading;
+   - LIMBS: the limbs of the number as four-byte little-endian ints, least significant first, which is
+     the layout of MappedLargeInteger, so such a file can also be opened directly as a MappedLargeInteger.
+
+   Files are memory-mapped and copied straight into the digit or limb array. Other channels are read
+   directly into the array as it grows. When the bytes to write need converting first, they go through
+   a direct buffer of BUFFER_SIZE bytes that is filled and written one chunk at a time. */
+class LargeIntegerIO {
+
+    enum Format { DECIMAL, LIMBS }
+
+    /* Size in bytes of the buffer used to write to a channel */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    /* Largest number of bytes of a file mapped at once when reading limbs (a multiple of 4, below the 2 GB a mapping can hold) */
+    static final long MAP_WINDOW = 1L << 30;
+
+
+
+    /* Returns the number stored in file in the given format, as a LargeInteger */
+    static LargeInteger readLargeInteger (Path file, Format format) throws IOException {
+        if (format == Format.LIMBS) return readPacked( file, format ).toLargeInteger();
+        try (FileChannel channel = FileChannel.open( file, StandardOpenOption.READ )) {
+            return digits( mapAll( channel ), file.toString() );
+        }
+    } // end of readLargeInteger
+
+
+    /* Returns the number read from channel in the given format, up to the end of the channel, as a LargeInteger */
+    static LargeInteger readLargeInteger (ReadableByteChannel channel, Format format) throws IOException {
+        if (format == Format.LIMBS) return readPacked( channel, format ).toLargeInteger();
+        return digits( readAll( channel ), "channel" );
+    } // end of readLargeInteger
+
+
+    /* Returns the number stored in file in the given format, as a PackedLargeInteger */
+    static PackedLargeInteger readPacked (Path file, Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open( file, StandardOpenOption.READ )) {
+            if (format == Format.DECIMAL) return packed( mapAll( channel ), format, file.toString() );
+
+            // limbs are copied from the mapping straight into the limb array, a window of at most MAP_WINDOW bytes
+            // at a time, since a single mapping can not be larger than 2 GB
+            long size = channel.size();
+            if (size == 0 || size % 4 != 0) throw new IOException( file + " does not hold a whole number of limbs" );
+            if (size > 4L * (Integer.MAX_VALUE - 8)) throw new IOException( "file too large for an array: " + size + " bytes" );
+            int[] limbs = new int[(int)( size / 4 )];
+            for (long from = 0; from < size; from += MAP_WINDOW) {
+                long count = Math.min( MAP_WINDOW, size - from );
+                channel.map( FileChannel.MapMode.READ_ONLY, from, count ).order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer()
+                       .get( limbs, (int)( from / 4 ), (int)( count / 4 ) );
+            }
+            return checked( limbs, file.toString() );
+        }
+    } // end of readPacked
+
+
+    /* Returns the number read from channel in the given format, up to the end of the channel, as a PackedLargeInteger */
+    static PackedLargeInteger readPacked (ReadableByteChannel channel, Format format) throws IOException {
+        return packed( readAll( channel ), format, "channel" );
+    } // end of readPacked
+
+
+    /* Writes the digits of value to file, which is replaced if it exists */
+    static void write (LargeInteger value, Path file, Format format) throws IOException {
+        try (FileChannel channel = open( file )) {
+            write( value, channel, format );
+        }
+    } // end of write
+
+
+    /* Writes value to channel in the given format. In the DECIMAL format, the digits are written as they are,
+       leading zeros included, like toString does. */
+    static void write (LargeInteger value, WritableByteChannel channel, Format format) throws IOException {
+        if (format == Format.LIMBS) {
+            write( value.toPacked(), channel, format );
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect( BUFFER_SIZE );
+        byte[] text = new byte[Math.min( BUFFER_SIZE, value.digits.length )];
+        for (int from = 0; from < value.digits.length; from += text.length) {
+            int count = Math.min( text.length, value.digits.length - from );
+            DecimalConversion.toText( value.digits, from, from + count, text, 0 );
+            buffer.clear();
+            buffer.put( text, 0, count ).flip();
+            writeFully( channel, buffer );
+        }
+    } // end of write
+
+
+    /* Writes value to file, which is replaced if it exists */
+    static void write (PackedLargeInteger value, Path file, Format format) throws IOException {
+        try (FileChannel channel = open( file )) {
+            write( value, channel, format );
+        }
+    } // end of write
+
+
+    /* Writes value to channel in the given format. In the DECIMAL format, the limbs are converted to text a chunk
+       of BUFFER_SIZE / 9 limbs at a time, from the most significant one down, so that the whole text is never
+       on the heap. */
+    static void write (PackedLargeInteger value, WritableByteChannel channel, Format format) throws IOException {
+        int[] limbs = value.limbs;
+        if (format == Format.DECIMAL) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect( BUFFER_SIZE );
+            buffer.put( String.valueOf( limbs[ limbs.length - 1 ] ).getBytes( StandardCharsets.US_ASCII ) ).flip();
+            writeFully( channel, buffer );
+
+            int chunk = BUFFER_SIZE / PackedLargeInteger.BASE_DIGITS;
+            byte[] text = new byte[Math.min( chunk, limbs.length - 1 ) * PackedLargeInteger.BASE_DIGITS];
+            for (int to = limbs.length - 1; to > 0; to -= chunk) {
+                int from = Math.max( 0, to - chunk );
+                int count = (to - from) * PackedLargeInteger.BASE_DIGITS;
+                DecimalConversion.fromLimbs( limbs, from, to, '0', text, 0 );
+                buffer.clear();
+                buffer.put( text, 0, count ).flip();
+                writeFully( channel, buffer );
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect( BUFFER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+        IntBuffer ints = buffer.asIntBuffer();
+        for (int from = 0; from < limbs.length; from += ints.capacity()) {
+            int count = Math.min( ints.capacity(), limbs.length - from );
+            ints.clear();
+            ints.put( limbs, from, count );
+            buffer.clear().limit( count * 4 );
+            writeFully( channel, buffer );
+        }
+    } // end of write
+
+
+    /* Returns the LargeInteger whose digits are the ASCII characters of bytes, checked and converted in place */
+    private static LargeInteger digits (byte[] text, String source) throws IOException {
+        int length = withoutEndOfLine( text );
+        check( text, length, source );
+        DecimalConversion.toValues( text, 0, length );
+
+        LargeInteger ret = new LargeInteger( 0 );
+        ret.digits = length == text.length ? text : Arrays.copyOf( text, length );
+        return ret;
+    } // end of digits
+
+
+    /* Returns the PackedLargeInteger stored in bytes in the given format */
+    private static PackedLargeInteger packed (byte[] bytes, Format format, String source) throws IOException {
+        if (format == Format.DECIMAL) {
+            int length = withoutEndOfLine( bytes );
+            check( bytes, length, source );
+            return new PackedLargeInteger( DecimalConversion.toLimbs( bytes, 0, length, '0' ) );
+        }
+
+        return limbs( ByteBuffer.wrap( bytes ), source );
+    } // end of packed
+
+
+    /* Returns the PackedLargeInteger whose limbs are the little-endian ints of bytes */
+    private static PackedLargeInteger limbs (ByteBuffer bytes, String source) throws IOException {
+        if (bytes.remaining() == 0 || bytes.remaining() % 4 != 0) throw new IOException( source + " does not hold a whole number of limbs" );
+        int[] limbs = new int[bytes.remaining() / 4];
+        bytes.order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer().get( limbs );
+        return checked( limbs, source );
+    } // end of limbs
+
+
+    /* Returns the PackedLargeInteger with the limbs read from source, after checking that they are all below BASE */
+    private static PackedLargeInteger checked (int[] limbs, String source) throws IOException {
+        for (int i = 0; i < limbs.length; i++) {
+            if (limbs[ i ] < 0 || limbs[ i ] >= PackedLargeInteger.BASE) throw new IOException( "Limb " + i + " of " + source + " is out of range" );
+        }
+        return new PackedLargeInteger( PackedLargeInteger.normalize( limbs ) );
+    } // end of limbs
+
+
+    /* Throws an IOException if the first length bytes of text are not all digits */
+    private static void check (byte[] text, int length, String source) throws IOException {
+        if (length == 0) throw new IOException( source + " holds no digits" );
+        int i = DecimalConversion.firstNonDigit( text, 0, length );
+        if (i >= 0) throw new IOException( "Illegal character " + (text[ i ] & 0xff) + " at offset " + i + " of " + source );
+    } // end of check
+
+
+    /* Returns the number of bytes of text without a final "\n" or "\r\n" */
+    private static int withoutEndOfLine (byte[] text) {
+        int length = text.length;
+        if (length > 0 && text[ length - 1 ] == '\n') length--;
+        if (length > 0 && text[ length - 1 ] == '\r') length--;
+        return length;
+    } // end of withoutEndOfLine
+
+
+    /* Returns the whole content of a file, copied from a mapping of it */
+    private static byte[] mapAll (FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE - 8) throw new IOException( "file too large for an array: " + size + " bytes" );
+        byte[] ret = new byte[(int) size];
+        channel.map( FileChannel.MapMode.READ_ONLY, 0, size ).get( ret );
+        return ret;
+    } // end of mapAll
+
+
+    /* Returns everything that is left to read from channel, read directly into an array that grows as needed */
+    private static byte[] readAll (ReadableByteChannel channel) throws IOException {
+        byte[] ret = new byte[8192];
+        int length = 0;
+        while (true) {
+            if (length == ret.length) {
+                if (length > Integer.MAX_VALUE / 2) throw new IOException( "channel too large for an array" );
+                ret = Arrays.copyOf( ret, 2 * length );
+            }
+            int n = channel.read( ByteBuffer.wrap( ret, length, ret.length - length ) );
+            if (n < 0) break;
+            length += n;
+        }
+        return length == ret.length ? ret : Arrays.copyOf( ret, length );
+    } // end of readAll
+
+
+    /* Writes what is left in buffer to channel, even if the channel takes it in several writes */
+    private static void writeFully (WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write( buffer );
+    } // end of writeFully
+
+
+    /* Opens file for writing, replacing it if it exists */
+    private static FileChannel open (Path file) throws IOException {
+        return FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE );
+    } // end of open
+
+}  // end of the LargeIntegerIO class
@@ -0,0 +1,263 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/* This class stores a very large non-negative integer number in a file instead of on the heap, so that
+   the size of the numbers is limited by the disk rather than by -Xmx.
+
+   The file holds the limbs of the number as in PackedLargeInteger: values between 0 and BASE - 1,
+   least significant first, each of them written as a little-endian int of four bytes. Unlike
+   PackedLargeInteger, the file may end with zero limbs. Every operation streams over its operands a chunk
+   at a time, writing its result to another file: only a few chunks (and, for multiply, a few blocks) are
+   ever on the heap at once. Limbs are read and written through a memory-mapped window of the file of
+   CHUNK_LIMBS limbs, starting at a multiple of CHUNK_LIMBS: every number keeps its window, and only maps
+   another one when a limb outside of it is needed, so a pass over a number maps each chunk once, and the
+   carries that addAt propagates stay in the window they start in. A number is therefore not meant to be
+   used by several threads at the same time. Numbers opened with open are only read, and mapped read-only.
+
+   Java 17 has no API to unmap a window: the windows that a number moves away from are unmapped when
+   they are garbage collected. */
+class MappedLargeInteger implements Closeable {
+
+    /* Number of limbs read or written at once by add and subtract, and of the mapped windows (4 MB) */
+    static final int CHUNK_LIMBS = 1 << 20;
+
+    /* Number of limbs of the blocks that multiply loads on the heap and multiplies together (16 MB) */
+    static final int BLOCK_LIMBS = 1 << 22;
+
+    final Path file;
+    final long length;                                      // number of limbs in the file
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private IntBuffer window;                               // the limbs of the file from windowStart, see window
+    private long windowStart;
+
+
+
+    /* Constructor that wraps an open file of length limbs, which is mapped in the given mode */
+    private MappedLargeInteger (Path file, FileChannel channel, long length, FileChannel.MapMode mode) {
+        this.file = file;
+        this.channel = channel;
+        this.length = length;
+        this.mode = mode;
+    }
+
+
+    /* Returns the number stored in file, opened for reading only */
+    static MappedLargeInteger open (Path file) throws IOException {
+        FileChannel channel = FileChannel.open( file, StandardOpenOption.READ );
+        if (channel.size() == 0 || channel.size() % 4 != 0) {
+            channel.close();
+            throw new IOException( file + " does not hold a whole number of limbs" );
+        }
+        return new MappedLargeInteger( file, channel, channel.size() / 4, FileChannel.MapMode.READ_ONLY );
+    } // end of open
+
+
+    /* Returns a new number of length limbs, all of them zero, stored in file (which is replaced if it exists) */
+    static MappedLargeInteger create (Path file, long length) throws IOException {
+        FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.READ, StandardOpenOption.WRITE );
+        length = Math.max( length, 1 );
+        channel.write( ByteBuffer.allocate( 1 ), length * 4 - 1 );      // extends the file with zeros
+        return new MappedLargeInteger( file, channel, length, FileChannel.MapMode.READ_WRITE );
+    } // end of create
+
+
+    /* Returns a copy of value stored in file */
+    static MappedLargeInteger create (Path file, PackedLargeInteger value) throws IOException {
+        MappedLargeInteger ret = create( file, value.limbs.length );
+        ret.write( 0, value.limbs, 0, value.limbs.length );
+        return ret;
+    } // end of create
+
+
+    /* Returns the value of this number on the heap. Throws an ArithmeticException if it does not fit in an array. */
+    public PackedLargeInteger toPacked () throws IOException {
+        long n = significantLength();
+        if (n > Integer.MAX_VALUE - 8) throw new ArithmeticException( "number too large for the heap: " + n + " limbs" );
+        return new PackedLargeInteger( PackedLargeInteger.normalize( read( 0, (int) n ) ) );
+    } // end of toPacked
+
+
+    /* Returns the number of limbs of this number without its leading zero limbs (1 for zero) */
+    public long significantLength () throws IOException {
+        long end = length;
+        int[] chunk = new int[(int) Math.min( CHUNK_LIMBS, length )];
+        while (end > 1) {
+            int n = (int) Math.min( chunk.length, end );
+            read( end - n, chunk, n );
+            for (int i = n - 1; i >= 0; i--, end--) if (chunk[ i ] != 0) return end;
+        }
+        return 1;
+    } // end of significantLength
+
+
+    /* Returns this + other, stored in result. The operands are read a chunk at a time, from the
+       least significant one up, the carry of every chunk being added to the next one. */
+    public MappedLargeInteger add (MappedLargeInteger other, Path result) throws IOException {
+        long n = Math.max( length, other.length );
+        MappedLargeInteger ret = create( result, n + 1 );
+        int[] sum = new int[(int) Math.min( CHUNK_LIMBS, n )];
+        int[] chunk = new int[sum.length];
+        int[] carry = new int[1];
+
+        for (long from = 0; from < n; from += sum.length) {
+            int count = (int) Math.min( sum.length, n - from );
+            read( from, sum, count );
+            other.read( from, chunk, count );
+            // the carry and the chunk of other can not both overflow: if adding the carry does, the limbs are all zero
+            carry[ 0 ] = PackedLargeInteger.addInto( sum, 0, count, carry, 0, 1 )
+                         + PackedLargeInteger.addInto( sum, 0, count, chunk, 0, count );
+            ret.write( from, sum, 0, count );
+        }
+        ret.write( n, carry, 0, 1 );
+        return ret;
+    } // end of add
+
+
+    /* Returns this - other, stored in result. As with LargeInteger.subtract, if other is larger than
+       this number, the result is 0. Whether it is only becomes known after the last chunk. */
+    public MappedLargeInteger subtract (MappedLargeInteger other, Path result) throws IOException {
+        long n = Math.max( length, other.length );
+        MappedLargeInteger ret = create( result, n );
+        int[] difference = new int[(int) Math.min( CHUNK_LIMBS, n )];
+        int[] chunk = new int[difference.length];
+        int[] borrow = new int[1];
+
+        for (long from = 0; from < n; from += difference.length) {
+            int count = (int) Math.min( difference.length, n - from );
+            read( from, difference, count );
+            other.read( from, chunk, count );
+            borrow[ 0 ] = PackedLargeInteger.subtractInto( difference, 0, count, borrow, 0, 1 )
+                          + PackedLargeInteger.subtractInto( difference, 0, count, chunk, 0, count );
+            ret.write( from, difference, 0, count );
+        }
+
+        if (borrow[ 0 ] != 0) {                                         // other is larger than this number
+            ret.close();
+            return create( result, 1 );
+        }
+        return ret;
+    } // end of subtract
+
+
+    /* Returns this * other, stored in result, with blocks of BLOCK_LIMBS limbs */
+    public MappedLargeInteger multiply (MappedLargeInteger other, Path result) throws IOException {
+        return multiply( other, result, BLOCK_LIMBS );
+    } // end of multiply
+
+
+    /* Returns this * other, stored in result. Both numbers are cut into blocks of blockLimbs limbs, and with
+       a = sum a_i BASE^(i * blockLimbs) and b = sum b_j BASE^(j * blockLimbs), every product a_i * b_j is
+       computed on the heap, with the fastest algorithm for its size, and added into the result file at
+       limb (i + j) * blockLimbs. Each block of this number is read once and those of other once per
+       block of this number, so the heap only ever holds two blocks and their product. */
+    public MappedLargeInteger multiply (MappedLargeInteger other, Path result, int blockLimbs) throws IOException {
+        long aLen = significantLength();
+        long bLen = other.significantLength();
+        MappedLargeInteger ret = create( result, aLen + bLen );
+        MultiplyThresholds thresholds = MultiplyThresholds.current();
+
+        for (long i = 0; i < aLen; i += blockLimbs) {
+            int[] a = PackedLargeInteger.normalize( read( i, (int) Math.min( blockLimbs, aLen - i ) ) );
+            if (ToomCook3.isZero( a )) continue;
+            for (long j = 0; j < bLen; j += blockLimbs) {
+                int[] b = PackedLargeInteger.normalize( other.read( j, (int) Math.min( blockLimbs, bLen - j ) ) );
+                if (!ToomCook3.isZero( b )) ret.addAt( i + j, PackedLargeInteger.multiply( a, b, thresholds ) );
+            }
+        }
+        return ret;
+    } // end of multiply
+
+
+    public void close () throws IOException {
+        channel.close();
+    } // end of close
+
+
+    /* Returns a string describing this number. Only meant for numbers that fit on the heap. */
+    public String toString () {
+        try {
+            return toPacked().toString();
+        } catch (IOException e) {
+            return "unreadable " + file;
+        }
+    } // end of toString
+
+
+    /* Adds the limbs of src to this number, starting at limb offset. The carry is propagated a small chunk
+       at a time, as it rarely goes further than a few limbs; the caller makes sure that it does not run past
+       the last limb of the file. */
+    private void addAt (long offset, int[] src) throws IOException {
+        int[] sum = read( offset, src.length );
+        int[] carry = { PackedLargeInteger.addInto( sum, 0, sum.length, src, 0, src.length ) };
+        write( offset, sum, 0, sum.length );
+
+        int[] chunk = new int[Math.min( 1024, CHUNK_LIMBS )];
+        for (long from = offset + src.length; carry[ 0 ] != 0 && from < length; from += chunk.length) {
+            int count = (int) Math.min( chunk.length, length - from );
+            read( from, chunk, count );
+            carry[ 0 ] = PackedLargeInteger.addInto( chunk, 0, count, carry, 0, 1 );
+            write( from, chunk, 0, count );
+        }
+    } // end of addAt
+
+
+    /* Returns a new array with the count limbs of this number starting at limb from.
+       Limbs past the end of the file are read as zero. */
+    private int[] read (long from, int count) throws IOException {
+        int[] ret = new int[count];
+        read( from, ret, count );
+        return ret;
+    } // end of read
+
+
+    /* Reads the count limbs of this number starting at limb from into dst[0 .. count - 1], window by window */
+    private void read (long from, int[] dst, int count) throws IOException {
+        int available = (int) Math.max( 0, Math.min( count, length - from ) );
+        for (int done = 0; done < available; ) {
+            IntBuffer limbs = window( from + done );
+            int offset = (int)( from + done - windowStart );
+            int n = Math.min( available - done, limbs.limit() - offset );
+            limbs.get( offset, dst, done, n );
+            done += n;
+        }
+        Arrays.fill( dst, available, count, 0 );
+    } // end of read
+
+
+    /* Writes src[srcOff] up to but not including src[srcOff + count] to the limbs of this number starting at
+       limb at, window by window. The limbs must be within the file. Throws a ReadOnlyBufferException if this
+       number was opened with open. */
+    void write (long at, int[] src, int srcOff, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            IntBuffer limbs = window( at + done );
+            int offset = (int)( at + done - windowStart );
+            int n = Math.min( count - done, limbs.limit() - offset );
+            limbs.put( offset, src, srcOff + done, n );
+            done += n;
+        }
+    } // end of write
+
+
+    /* Returns the window that holds limb at, which is the current one unless at is outside of it: then the
+       CHUNK_LIMBS limbs from the multiple of CHUNK_LIMBS below at (or up to the end of the file) are mapped
+       in its place */
+    private IntBuffer window (long at) throws IOException {
+        long start = at / CHUNK_LIMBS * CHUNK_LIMBS;
+        if (window == null || start != windowStart) {
+            long count = Math.min( CHUNK_LIMBS, length - start );
+            window = channel.map( mode, start * 4, count * 4 ).order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer();
+            windowStart = start;
+        }
+        return window;
+    } // end of window
+
+}  // end of the MappedLargeInteger class
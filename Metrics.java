@@ -0,0 +1,205 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/* This class counts what the arithmetic does, to find out which path a slow computation spends its time in:
+   how many times every operation of LargeInteger was called, how many digits it went through and how many
+   bytes it allocated for its result, how deep the recursive multiplications went, and how long the products
+   handed to every tier of PackedLargeInteger.multiply took.
+
+   Counting is off unless the program runs with -Dmetrics=true. ENABLED is a static final field, so when it
+   is false the JIT drops every call below as dead code and the arithmetic runs exactly as without them.
+   The counters are shared by all the threads; they are LongAdders and atomic arrays, so that parallel
+   multiplications do not fight over a single cache line.
+
+   The values can be read with the methods below, and written to a CSV file with write, which
+   LargeIntegerBenchmark and BenchmarkScheduler do next to their own CSV files when counting is on. */
+class Metrics {
+
+    static final boolean ENABLED = Boolean.getBoolean( "metrics" );
+
+    /* Histograms have one bucket per power of two: the bucket of a value v > 0 is the number of bits of v,
+       i.e. it holds values from 2^(bucket - 1) up to 2^bucket - 1. Recursion depths are put in bucket depth. */
+    static final int BUCKETS = 64;
+
+
+    /* The counted operations, named as the methods they count */
+    enum Operation {
+        ADD( "Add" ),
+        SUBTRACT( "Subtract" ),
+        COMPARE( "Compare" ),
+        SHIFT_LEFT( "ShiftLeft" ),
+        ITERATIVE_ADDITION( "IterativeAddition" ),
+        STANDARD_MULTIPLICATION( "StandardMultiplication" ),
+        RECURSIVE_MULTIPLICATION( "RecursiveMultiplication" ),
+        RECURSIVE_FAST_MULTIPLICATION( "RecursiveFastMultiplication" ),
+        PACKED_ADD( "PackedAdd" ),                      // additions and subtractions of whole limb arrays
+        PACKED_SUBTRACT( "PackedSubtract" );
+
+        final String column;
+
+        Operation (String column) {
+            this.column = column;
+        }
+    }
+
+
+    /* The algorithms PackedLargeInteger.multiply and square pick from, and the parallel product on top of them */
+    enum Tier {
+        SCHOOLBOOK( "Schoolbook" ),
+        KARATSUBA( "Karatsuba" ),
+        TOOM_COOK_3( "ToomCook3" ),
+        NTT( "Ntt" ),
+        PARALLEL( "ParallelMultiplication" );
+
+        final String column;
+
+        Tier (String column) {
+            this.column = column;
+        }
+    }
+
+
+    private static final int OPERATIONS = Operation.values().length;
+    private static final int TIERS = Tier.values().length;
+
+    private static final LongAdder[] calls = adders( OPERATIONS );
+    private static final LongAdder[] digits = adders( OPERATIONS );
+    private static final LongAdder[] bytes = adders( OPERATIONS );
+    private static final AtomicLongArray depths = new AtomicLongArray( OPERATIONS * BUCKETS );       // BUCKETS per operation
+    private static final AtomicLongArray latencies = new AtomicLongArray( TIERS * BUCKETS );         // BUCKETS per tier, in nanoseconds
+    private static final LongAdder[] tierLimbs = adders( TIERS );
+
+
+
+    /* Counts one call of operation that went through the given number of digits and allocated the given number of bytes */
+    static void count (Operation operation, long nbDigits, long nbBytes) {
+        if (!ENABLED) return;
+        calls[ operation.ordinal() ].increment();
+        digits[ operation.ordinal() ].add( nbDigits );
+        bytes[ operation.ordinal() ].add( nbBytes );
+    } // end of count
+
+
+    /* Counts one call of a recursive operation at the given depth, 0 being the call made from outside */
+    static void depth (Operation operation, int depth) {
+        if (!ENABLED) return;
+        depths.incrementAndGet( operation.ordinal() * BUCKETS + Math.min( depth, BUCKETS - 1 ) );
+    } // end of depth
+
+
+    /* Counts one product of the given tier on a shorter operand of the given number of limbs, which took nanos nanoseconds */
+    static void tier (Tier tier, int limbs, long nanos) {
+        if (!ENABLED) return;
+        latencies.incrementAndGet( tier.ordinal() * BUCKETS + bucket( nanos ) );
+        tierLimbs[ tier.ordinal() ].add( limbs );
+    } // end of tier
+
+
+    /* Returns the current time for tier, or 0 if counting is off, so that the clock is not read for nothing */
+    static long start () {
+        return ENABLED ? System.nanoTime() : 0;
+    } // end of start
+
+
+    /* Returns the number of calls of operation counted so far */
+    static long calls (Operation operation) {
+        return calls[ operation.ordinal() ].sum();
+    } // end of calls
+
+
+    /* Returns the number of digits the counted calls of operation went through */
+    static long digits (Operation operation) {
+        return digits[ operation.ordinal() ].sum();
+    } // end of digits
+
+
+    /* Returns the number of bytes the counted calls of operation allocated */
+    static long bytes (Operation operation) {
+        return bytes[ operation.ordinal() ].sum();
+    } // end of bytes
+
+
+    /* Returns the number of calls of operation at every recursion depth */
+    static long[] depthHistogram (Operation operation) {
+        return histogram( depths, operation.ordinal() );
+    } // end of depthHistogram
+
+
+    /* Returns the number of products of tier in every bucket of duration (see BUCKETS) */
+    static long[] latencyHistogram (Tier tier) {
+        return histogram( latencies, tier.ordinal() );
+    } // end of latencyHistogram
+
+
+    /* Returns the total length in limbs of the shorter operands of the products of tier */
+    static long limbs (Tier tier) {
+        return tierLimbs[ tier.ordinal() ].sum();
+    } // end of limbs
+
+
+    /* Sets every counter back to zero. Calls running at the same time may or may not be counted. */
+    static void reset () {
+        for (int i = 0; i < OPERATIONS; i++) {
+            calls[ i ].reset();
+            digits[ i ].reset();
+            bytes[ i ].reset();
+        }
+        for (int i = 0; i < TIERS; i++) tierLimbs[ i ].reset();
+        for (int i = 0; i < depths.length(); i++) depths.set( i, 0 );
+        for (int i = 0; i < latencies.length(); i++) latencies.set( i, 0 );
+    } // end of reset
+
+
+    /* Writes every counter to fileName, one value per row: Metric,Name,Bucket,Value. The metrics are calls,
+       digits and bytes per operation, depth (Bucket is the depth) per recursive operation, and calls, limbs
+       and nanos per tier (Bucket is the lower bound of the bucket in nanoseconds). Empty buckets are left out. */
+    static void write (String fileName) throws IOException {
+        try (FileWriter writer = new FileWriter( fileName )) {
+            writer.write( "Metric,Name,Bucket,Value\n" );
+            for (Operation operation : Operation.values()) {
+                if (calls( operation ) == 0) continue;
+                writer.write( "calls," + operation.column + ",," + calls( operation ) + "\n" );
+                writer.write( "digits," + operation.column + ",," + digits( operation ) + "\n" );
+                writer.write( "bytes," + operation.column + ",," + bytes( operation ) + "\n" );
+                long[] histogram = depthHistogram( operation );
+                for (int depth = 0; depth < BUCKETS; depth++) {
+                    if (histogram[ depth ] != 0) writer.write( "depth," + operation.column + "," + depth + "," + histogram[ depth ] + "\n" );
+                }
+            }
+            for (Tier tier : Tier.values()) {
+                long[] histogram = latencyHistogram( tier );
+                long total = 0;
+                for (long count : histogram) total += count;
+                if (total == 0) continue;
+                writer.write( "calls," + tier.column + ",," + total + "\n" );
+                writer.write( "limbs," + tier.column + ",," + limbs( tier ) + "\n" );
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    if (histogram[ bucket ] != 0) writer.write( "nanos," + tier.column + "," + (bucket == 0 ? 0 : 1L << (bucket - 1)) + "," + histogram[ bucket ] + "\n" );
+                }
+            }
+        }
+    } // end of write
+
+
+    /* Returns the bucket of value, see BUCKETS */
+    static int bucket (long value) {
+        return Math.min( 64 - Long.numberOfLeadingZeros( Math.max( value, 0 ) ), BUCKETS - 1 );
+    } // end of bucket
+
+
+    private static long[] histogram (AtomicLongArray counts, int row) {
+        long[] ret = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) ret[ i ] = counts.get( row * BUCKETS + i );
+        return ret;
+    } // end of histogram
+
+
+    private static LongAdder[] adders (int n) {
+        LongAdder[] ret = new LongAdder[n];
+        for (int i = 0; i < n; i++) ret[ i ] = new LongAdder();
+        return ret;
+    } // end of adders
+
+}  // end of the Metrics class
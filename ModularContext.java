@@ -0,0 +1,284 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* This class does arithmetic modulo a fixed number m on limb arrays (see PackedLargeInteger): products,
+   squares and powers, with every intermediate value kept below m instead of growing to twice its size.
+
+   What only depends on m is computed once, when the context is created, so a context is meant to be
+   reused for all the operations with the same modulus. Products are reduced in one of two ways:
+   - if m is coprime with 10 (so with BASE), with Montgomery's reduction: numbers are kept multiplied by
+     R = BASE^n, n being the number of limbs of m, and a product x is reduced to x / R mod m by adding the
+     multiple of m that clears its low limb, one limb at a time. This needs -1/m mod BASE, and R^2 mod m
+     to bring numbers in;
+   - otherwise, with Barrett's reduction, which estimates x / m as a product with mu = BASE^2n / m and
+     then subtracts that many times m, correcting the estimate with at most two more subtractions.
+
+   The products are computed with Karatsuba on fixed buffers (see PackedLargeInteger.karatsubaInto), so an
+   exponentiation allocates its buffers and table once, and nothing at each step. The context itself is
+   never modified after it is created, so it may be shared between threads; every operation has buffers
+   of its own. */
+class ModularContext {
+
+    static final long BASE = PackedLargeInteger.BASE;
+
+    /* The modulus, normalized, and its number of limbs */
+    final int[] modulus;
+    final int n;
+
+    /* Thresholds of the products: those of the caller for Karatsuba, and never Toom-Cook or the transform,
+       which would allocate their own arrays */
+    private final MultiplyThresholds thresholds;
+
+    private final boolean montgomery;
+    private final long inverse;             // -1/m mod BASE (Montgomery)
+    private final int[] rSquared;           // R^2 mod m, on n limbs (Montgomery)
+    private final int[] mu;                 // BASE^2n / m, rounded down (Barrett)
+
+
+    /* The buffers of one operation */
+    private final class Workspace {
+        final int[] product = new int[2 * n + 1];                   // the product being reduced, and the carry out of Montgomery's reduction
+        final int[] scratch;
+        final int[] estimate;                                       // q1 * mu, then q3 * m (Barrett)
+        final int[] remainder = new int[n + 1];                     // (Barrett)
+
+        Workspace () {
+            int longest = montgomery ? n : Math.max( n + 1, mu.length );
+            scratch = new int[PackedLargeInteger.karatsubaScratchSize( longest )];
+            estimate = montgomery ? null : new int[(n + 1 + mu.length) + (mu.length + n)];
+        }
+    }
+
+
+
+    /* Constructor that creates the context of the given modulus. Throws an ArithmeticException if it is zero. */
+    public ModularContext (PackedLargeInteger modulus) {
+        this( modulus.limbs, MultiplyThresholds.current() );
+    }
+
+
+    /* Constructor that creates the context of the given modulus. Throws an ArithmeticException if it is zero. */
+    public ModularContext (LargeInteger modulus) {
+        this( modulus.toPacked() );
+    }
+
+
+    /* Constructor that creates the context of the modulus whose normalized limbs are m */
+    ModularContext (int[] m, MultiplyThresholds thresholds) {
+        if (ToomCook3.isZero( m )) throw new ArithmeticException( "modulus is zero" );
+        this.modulus = m;
+        this.n = m.length;
+        this.thresholds = new MultiplyThresholds( thresholds.karatsuba, Integer.MAX_VALUE, Integer.MAX_VALUE, thresholds.parallel, thresholds.newton );
+
+        montgomery = m[ 0 ] % 2 != 0 && m[ 0 ] % 5 != 0;
+        if (montgomery) {
+            inverse = BASE - inverseModBase( m[ 0 ] );
+            rSquared = pad( Division.divideAndRemainder( PackedLargeInteger.powerOfTen( 2 * n * PackedLargeInteger.BASE_DIGITS ), m, thresholds )[ 1 ] );
+            mu = null;
+        } else {
+            inverse = 0;
+            rSquared = null;
+            mu = Division.divideAndRemainder( PackedLargeInteger.powerOfTen( 2 * n * PackedLargeInteger.BASE_DIGITS ), m, thresholds )[ 0 ];
+        }
+    }
+
+
+    /* Returns a * b mod m */
+    int[] multiply (int[] a, int[] b) {
+        Workspace work = new Workspace();
+        int[] x = pad( reduce( a ) );
+        int[] y = pad( reduce( b ) );
+        multiplyInto( x, y, x, work );
+        if (montgomery) multiplyInto( x, rSquared, x, work );      // a * b / R, times R^2 / R
+        return PackedLargeInteger.normalize( x );
+    } // end of multiply
+
+
+    /* Returns a * a mod m */
+    int[] square (int[] a) {
+        Workspace work = new Workspace();
+        int[] x = pad( reduce( a ) );
+        squareInto( x, x, work );
+        if (montgomery) multiplyInto( x, rSquared, x, work );
+        return PackedLargeInteger.normalize( x );
+    } // end of square
+
+
+    /* Returns base^exponent mod m with sliding windows: the bits of the exponent are read from the most
+       significant one, and every run of up to w bits that ends with a 1 is done with one multiplication by an
+       odd power of the base below 2^w, taken from a table, instead of one per bit set. The table and the
+       buffers are allocated once, before the first step. */
+    int[] pow (int[] base, int[] exponent) {
+        if (n == 1 && modulus[ 0 ] == 1) return new int[1];
+        BitSet bits = bits( exponent );
+        if (bits.isEmpty()) return new int[] { 1 };
+
+        Workspace work = new Workspace();
+        int w = windowSize( bits.length() );
+
+        // table[i] = base^(2i + 1), in Montgomery form if it is used
+        int[][] table = new int[1 << (w - 1)][];
+        table[ 0 ] = pad( reduce( base ) );
+        if (montgomery) multiplyInto( table[ 0 ], rSquared, table[ 0 ], work );
+        int[] baseSquared = new int[n];
+        squareInto( table[ 0 ], baseSquared, work );
+        for (int i = 1; i < table.length; i++) {
+            table[ i ] = new int[n];
+            multiplyInto( table[ i - 1 ], baseSquared, table[ i ], work );
+        }
+
+        int[] result = null;
+        for (int i = bits.length() - 1; i >= 0; ) {
+            if (!bits.get( i )) {
+                squareInto( result, result, work );
+                i--;
+                continue;
+            }
+            int j = Math.max( i - w + 1, 0 );
+            while (!bits.get( j )) j++;                                 // the window i..j ends with a 1
+            int window = 0;
+            for (int k = i; k >= j; k--) window = 2 * window + (bits.get( k ) ? 1 : 0);
+
+            if (result == null) {
+                result = table[ window >> 1 ].clone();
+            } else {
+                for (int k = i; k >= j; k--) squareInto( result, result, work );
+                multiplyInto( result, table[ window >> 1 ], result, work );
+            }
+            i = j - 1;
+        }
+
+        if (montgomery) {                                               // result / R
+            System.arraycopy( result, 0, work.product, 0, n );
+            Arrays.fill( work.product, n, 2 * n + 1, 0 );
+            reduceInto( result, work );
+        }
+        return PackedLargeInteger.normalize( result );
+    } // end of pow
+
+
+    /* Writes x * y mod m (divided by R with Montgomery) to out, on n limbs. out may be x or y. */
+    private void multiplyInto (int[] x, int[] y, int[] out, Workspace work) {
+        PackedLargeInteger.karatsubaInto( x, 0, n, y, 0, n, work.product, 0, work.scratch, 0, thresholds );
+        work.product[ 2 * n ] = 0;
+        reduceInto( out, work );
+    } // end of multiplyInto
+
+
+    /* Writes x * x mod m (divided by R with Montgomery) to out, on n limbs. out may be x. */
+    private void squareInto (int[] x, int[] out, Workspace work) {
+        PackedLargeInteger.karatsubaSquareInto( x, 0, n, work.product, 0, work.scratch, 0, thresholds );
+        work.product[ 2 * n ] = 0;
+        reduceInto( out, work );
+    } // end of squareInto
+
+
+    /* Reduces the product of two numbers below m held in work.product, and writes the result to out */
+    private void reduceInto (int[] out, Workspace work) {
+        if (montgomery) montgomeryReduce( out, work.product );
+        else barrettReduce( out, work );
+    } // end of reduceInto
+
+
+    /* Writes t / R mod m to out, for t below m * R. For every limb of t from the lowest one, the multiple u * m
+       that makes it zero is added, so that t ends up divisible by R and t / R is below 2m. */
+    private void montgomeryReduce (int[] out, int[] t) {
+        int[] m = modulus;
+        for (int i = 0; i < n; i++) {
+            long u = t[ i ] * inverse % BASE;
+            if (u == 0) continue;
+            long carry = 0;
+            for (int j = 0; j < n; j++) {
+                long column = t[ i + j ] + u * m[ j ] + carry;        // below BASE^2, which fits in a long
+                carry = column / BASE;
+                t[ i + j ] = (int)( column - carry * BASE );
+            }
+            for (int k = i + n; carry != 0; k++) {
+                long column = t[ k ] + carry;
+                carry = column / BASE;
+                t[ k ] = (int)( column - carry * BASE );
+            }
+        }
+        if (!below( t, n, 2 * n + 1 )) PackedLargeInteger.subtractInto( t, n, 2 * n + 1, m, 0, n );
+        System.arraycopy( t, n, out, 0, n );
+    } // end of montgomeryReduce
+
+
+    /* Writes x mod m to out, for x below m^2 held in work.product. With q = (x / BASE^(n-1)) * mu / BASE^(n+1),
+       x - q * m is below 3m, and it is computed modulo BASE^(n+1), where it fits. */
+    private void barrettReduce (int[] out, Workspace work) {
+        int[] q = work.estimate;
+        int[] r = work.remainder;
+        int qLen = n + 1 + mu.length;
+        PackedLargeInteger.karatsubaInto( work.product, n - 1, n + 1, mu, 0, mu.length, q, 0, work.scratch, 0, thresholds );
+        PackedLargeInteger.karatsubaInto( q, n + 1, mu.length, modulus, 0, n, q, qLen, work.scratch, 0, thresholds );
+
+        System.arraycopy( work.product, 0, r, 0, n + 1 );
+        PackedLargeInteger.subtractInto( r, 0, n + 1, q, qLen, n + 1 );        // the borrow out is BASE^(n+1), dropped
+        while (!below( r, 0, n + 1 )) PackedLargeInteger.subtractInto( r, 0, n + 1, modulus, 0, n );
+        System.arraycopy( r, 0, out, 0, n );
+    } // end of barrettReduce
+
+
+    /* Returns true if the number held in x[from] up to but not including x[to] is below m */
+    private boolean below (int[] x, int from, int to) {
+        for (int i = to - 1; i >= from + n; i--) if (x[ i ] != 0) return false;
+        for (int i = n - 1; i >= 0; i--) {
+            if (x[ from + i ] != modulus[ i ]) return x[ from + i ] < modulus[ i ];
+        }
+        return false;
+    } // end of below
+
+
+    /* Returns a mod m, or a itself if it is already below m */
+    private int[] reduce (int[] a) {
+        if (PackedLargeInteger.compare( a, modulus ) < 0) return a;
+        return Division.divideAndRemainder( a, modulus, thresholds )[ 1 ];
+    } // end of reduce
+
+
+    /* Returns a copy of a, below m, on exactly n limbs */
+    private int[] pad (int[] a) {
+        int[] ret = new int[n];
+        System.arraycopy( a, 0, ret, 0, Math.min( a.length, n ) );
+        return ret;
+    } // end of pad
+
+
+    /* Returns the number of bits of a window for an exponent of the given number of bits, the one for which
+       the table of 2^(w-1) powers and the multiplications saved balance out best */
+    static int windowSize (int bitLength) {
+        if (bitLength <= 24) return 1;
+        if (bitLength <= 80) return 3;
+        if (bitLength <= 240) return 4;
+        if (bitLength <= 672) return 5;
+        if (bitLength <= 1792) return 6;
+        return 7;
+    } // end of windowSize
+
+
+    /* Returns the bits of the number whose limbs are a, lowest first. They are taken 29 at a time, 2^29 being
+       the largest power of two below BASE that divideSmall accepts. */
+    static BitSet bits (int[] a) {
+        BitSet ret = new BitSet();
+        for (int offset = 0; !ToomCook3.isZero( a ); offset += 29) {
+            int low = Division.remainderSmall( a, 1 << 29 );
+            for (int i = 0; i < 29; i++) if (((low >>> i) & 1) != 0) ret.set( offset + i );
+            a = PackedLargeInteger.divideSmall( a, 1 << 29 );
+        }
+        return ret;
+    } // end of bits
+
+
+    /* Returns 1/a mod BASE, for a coprime with BASE, with the extended Euclidean algorithm */
+    static long inverseModBase (long a) {
+        long r0 = BASE, r1 = a, t0 = 0, t1 = 1;
+        while (r1 != 0) {
+            long q = r0 / r1;
+            long r = r0 - q * r1; r0 = r1; r1 = r;
+            long t = t0 - q * t1; t0 = t1; t1 = t;
+        }
+        return t0 < 0 ? t0 + BASE : t0;
+    } // end of inverseModBase
+
+}  // end of the ModularContext class
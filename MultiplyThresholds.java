@@ -0,0 +1,261 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.Random;
+
+/* This class stores the operand sizes at which PackedLargeInteger.multiply switches from one
+   multiplication algorithm to the next. All sizes are counted in limbs of nine decimal digits
+   and are compared against the shorter of the two operands.
+
+   The default thresholds are read from the file named by the system property "multiplyThresholds"
+   (multiplyThresholds.properties in the working directory if the property is not set). Running
+   this class as a program calibrates the thresholds on the host machine and writes that file. */
+class MultiplyThresholds {
+
+    static final String FILE_PROPERTY = "multiplyThresholds";
+    static final String DEFAULT_FILE = "multiplyThresholds.properties";
+
+    /* The thresholds used when no calibration was stored */
+    static final MultiplyThresholds DEFAULTS = new MultiplyThresholds( 40, 256, 2048, 1024, 128 );
+
+    /* Below this size, the schoolbook product is used */
+    final int karatsuba;
+
+    /* From this size on, Toom-Cook 3-way is used instead of Karatsuba */
+    final int toom;
+
+    /* From this size on, the number-theoretic transform is used (as long as the product fits in one transform) */
+    final int ntt;
+
+    /* From this size on, ParallelMultiplication forks sub-products to other cores. This one is not
+       calibrated, as the best value depends on how many cores are free, not only on the machine. */
+    final int parallel;
+
+    /* From this size on (of both the divisor and the quotient), Division uses Newton's reciprocal
+       instead of schoolbook long division */
+    final int newton;
+
+
+    private static volatile MultiplyThresholds current = load();
+
+
+
+    /* Constructor that creates a new set of thresholds. Throws an IllegalArgumentException if one of them
+       is too small for its algorithm: Karatsuba needs operands of 2 limbs to split, Toom-Cook 3, and the
+       other thresholds must be positive. */
+    public MultiplyThresholds (int karatsuba, int toom, int ntt, int parallel, int newton) {
+        if (karatsuba < 2) throw new IllegalArgumentException( "karatsuba threshold must be at least 2 limbs" );
+        if (toom < 3) throw new IllegalArgumentException( "toom threshold must be at least 3 limbs" );
+        if (ntt < 1) throw new IllegalArgumentException( "ntt threshold must be at least 1 limb" );
+        if (parallel < 1) throw new IllegalArgumentException( "parallel threshold must be at least 1 limb" );
+        if (newton < 1) throw new IllegalArgumentException( "newton threshold must be at least 1 limb" );
+        this.karatsuba = karatsuba;
+        this.toom = toom;
+        this.ntt = ntt;
+        this.parallel = parallel;
+        this.newton = newton;
+    }
+
+
+    /* Returns the thresholds used by PackedLargeInteger.multiply and LargeInteger.multiply */
+    public static MultiplyThresholds current () {
+        return current;
+    } // end of current
+
+
+    /* Replaces the thresholds used by PackedLargeInteger.multiply and LargeInteger.multiply */
+    public static void setCurrent (MultiplyThresholds thresholds) {
+        current = thresholds;
+    } // end of setCurrent
+
+
+    /* Returns the thresholds stored in the calibration file, or the built-in defaults if there is no such file.
+       This runs when the class is initialized, so a file that can not be used (a value that is not a number,
+       or that the constructor rejects) must not throw: the defaults are returned instead, with a warning. */
+    static MultiplyThresholds load () {
+        MultiplyThresholds defaults = DEFAULTS;
+        String fileName = System.getProperty( FILE_PROPERTY, DEFAULT_FILE );
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream( fileName )) {
+            properties.load( in );
+        } catch (IOException | IllegalArgumentException e) {
+            return defaults;                            // no calibration was stored yet, or it is not a properties file
+        }
+
+        try {
+            return new MultiplyThresholds( threshold( properties, "karatsubaThreshold", defaults.karatsuba ),
+                                           threshold( properties, "toomThreshold", defaults.toom ),
+                                           threshold( properties, "nttThreshold", defaults.ntt ),
+                                           threshold( properties, "parallelThreshold", defaults.parallel ),
+                                           threshold( properties, "newtonThreshold", defaults.newton ) );
+        } catch (IllegalArgumentException e) {
+            System.err.println( "Ignoring the thresholds of " + fileName + ": " + e.getMessage() );
+            return defaults;
+        }
+    } // end of load
+
+
+    /* Returns the threshold stored under key, or defaultValue if there is none. Throws an IllegalArgumentException
+       if it is not a positive number. */
+    private static int threshold (Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty( key );
+        if (value == null) return defaultValue;
+        int ret;
+        try {
+            ret = Integer.parseInt( value.trim() );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException( key + " is not a number: " + value );
+        }
+        if (ret < 1) throw new IllegalArgumentException( key + " must be positive: " + ret );
+        return ret;
+    } // end of threshold
+
+
+    /* Writes these thresholds to the given calibration file */
+    public void save (String fileName) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty( "karatsubaThreshold", String.valueOf( karatsuba ) );
+        properties.setProperty( "toomThreshold", String.valueOf( toom ) );
+        properties.setProperty( "nttThreshold", String.valueOf( ntt ) );
+        properties.setProperty( "parallelThreshold", String.valueOf( parallel ) );
+        properties.setProperty( "newtonThreshold", String.valueOf( newton ) );
+
+        try (OutputStream out = new FileOutputStream( fileName )) {
+            properties.store( out, "Multiplication thresholds in limbs of nine digits, measured by MultiplyThresholds" );
+        }
+    } // end of save
+
+
+    /* Measures the crossover points on this machine and returns them. Each tier is calibrated in
+       turn, from the smallest operands up, with the tiers below it already set to their measured values
+       and those above it turned off. Division is calibrated last, on top of the measured multiplication
+       tiers. The parallel threshold keeps its default. */
+    public static MultiplyThresholds calibrate () {
+        int max = Integer.MAX_VALUE;
+        int parallel = DEFAULTS.parallel;
+
+        int[] karatsubaCandidates = { 8, 12, 16, 20, 24, 32, 40, 48, 64, 80, 96, 128 };
+        int karatsuba = crossover( "Karatsuba", karatsubaCandidates,
+                                   (a, b, n) -> PackedLargeInteger.multiplySchoolbook( a, b ),
+                                   (a, b, n) -> PackedLargeInteger.multiplyKaratsuba( a, b, new MultiplyThresholds( n, max, max, parallel, max ) ) );
+
+        MultiplyThresholds below = new MultiplyThresholds( karatsuba, max, max, parallel, max );
+        int[] toomCandidates = { 64, 96, 128, 192, 256, 384, 512, 768, 1024 };
+        int toom = crossover( "Toom-3", toomCandidates,
+                              (a, b, n) -> PackedLargeInteger.multiply( a, b, below ),
+                              (a, b, n) -> ToomCook3.multiply( a, b, new MultiplyThresholds( karatsuba, n, max, parallel, max ) ) );
+
+        MultiplyThresholds belowNtt = new MultiplyThresholds( karatsuba, toom, max, parallel, max );
+        int[] nttCandidates = { 128, 192, 256, 384, 512, 768, 1024, 1536, 2048, 3072, 4096, 6144, 8192 };
+        int ntt = crossover( "NTT", nttCandidates,
+                             (a, b, n) -> PackedLargeInteger.multiply( a, b, belowNtt ),
+                             (a, b, n) -> NumberTheoreticTransform.multiply( a, b ) );
+
+        // divisions of 2n limbs by n limbs, the dividend being the two operands put one after the other
+        MultiplyThresholds multiplication = new MultiplyThresholds( karatsuba, toom, ntt, parallel, max );
+        int[] newtonCandidates = { 32, 48, 64, 96, 128, 192, 256, 384, 512, 768, 1024 };
+        int newton = crossover( "Newton division", newtonCandidates,
+                                (a, b, n) -> Division.divideAndRemainder( concatenate( a, b ), b, multiplication )[ 0 ],
+                                (a, b, n) -> Division.divideAndRemainder( concatenate( a, b ), b, withNewton( multiplication, n ) )[ 0 ] );
+
+        return withNewton( multiplication, newton );
+    } // end of calibrate
+
+
+    /* A multiplication algorithm being calibrated, on two operands of n limbs */
+    interface Product {
+        int[] multiply (int[] a, int[] b, int n);
+    }
+
+
+    /* Returns the size from which faster beats slower. For every candidate size, a product of two
+       operands of that size is timed with both algorithms. When calibrating Karatsuba and Toom-3, faster
+       only does a single level of recursion above the tier below, so that only the crossover itself is measured. The threshold is the first size at which
+       faster wins twice in a row, so that one noisy measurement does not decide it; if it never does,
+       the largest candidate is returned. */
+    static int crossover (String name, int[] candidates, Product slower, Product faster) {
+        Random random = new Random( 42 );
+        int wins = 0;
+
+        for (int i = 0; i < candidates.length; i++) {
+            int n = candidates[ i ];
+            int[] a = randomLimbs( random, n );
+            int[] b = randomLimbs( random, n );
+
+            long slowerTime = time( () -> slower.multiply( a, b, n ) );
+            long fasterTime = time( () -> faster.multiply( a, b, n ) );
+            System.out.println( name + " calibration. Limbs: " + n + " before: " + slowerTime + "ns " + name + ": " + fasterTime + "ns" );
+
+            if (fasterTime < slowerTime) {
+                if (++wins == 2) return candidates[ i - 1 ];
+            } else wins = 0;
+        }
+        return candidates[ candidates.length - 1 ];
+    } // end of crossover
+
+
+    /* Returns the best time in nanoseconds of one call to product. The product is first repeated for
+       a fixed warm-up time, which also tells how many calls fit in a measuring round of about 20ms. */
+    static long time (Runnable product) {
+        long warmupEnd = System.nanoTime() + 200000000L;
+        int calls = 0;
+        while (System.nanoTime() < warmupEnd) { product.run(); calls++; }
+
+        int callsPerRound = Math.max( 1, calls / 10 );
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < callsPerRound; i++) product.run();
+            best = Math.min( best, (System.nanoTime() - startTime) / callsPerRound );
+        }
+        return best;
+    } // end of time
+
+
+    /* Returns a copy of thresholds whose newton threshold is n */
+    static MultiplyThresholds withNewton (MultiplyThresholds thresholds, int n) {
+        return new MultiplyThresholds( thresholds.karatsuba, thresholds.toom, thresholds.ntt, thresholds.parallel, n );
+    } // end of withNewton
+
+
+    /* Returns the limbs of high * BASE^(low.length) + low */
+    static int[] concatenate (int[] high, int[] low) {
+        int[] ret = new int[high.length + low.length];
+        System.arraycopy( low, 0, ret, 0, low.length );
+        System.arraycopy( high, 0, ret, low.length, high.length );
+        return ret;
+    } // end of concatenate
+
+
+    /* Returns n random limbs whose most significant limb is not zero */
+    static int[] randomLimbs (Random random, int n) {
+        int[] ret = new int[n];
+        for (int i = 0; i < n; i++) ret[ i ] = random.nextInt( PackedLargeInteger.BASE );
+        if (ret[ n - 1 ] == 0) ret[ n - 1 ] = 1;
+        return ret;
+    } // end of randomLimbs
+
+
+    public String toString () {
+        return "karatsubaThreshold=" + karatsuba + " toomThreshold=" + toom + " nttThreshold=" + ntt + " parallelThreshold=" + parallel + " newtonThreshold=" + newton;
+    } // end of toString
+
+
+    /* Calibration mode: measures the thresholds on this machine and stores them in the calibration file */
+    public static void main (String[] args) {
+        MultiplyThresholds thresholds = calibrate();
+        String fileName = args.length > 0 ? args[ 0 ] : System.getProperty( FILE_PROPERTY, DEFAULT_FILE );
+
+        try {
+            thresholds.save( fileName );
+            System.out.println( "Stored " + thresholds + " in " + fileName );
+        } catch (IOException e) {
+            System.out.println( "Couldn't write to file" );
+        }
+    }
+
+}  // end of the MultiplyThresholds class
@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+/* This class is a mutable companion of PackedLargeInteger, meant to be used as an accumulator.
+   Its limbs live in a buffer owned by the caller that is only replaced when it becomes too small,
+   and every operation writes its result into that buffer instead of returning a new number. Loops
+   that repeatedly add, subtract or accumulate products therefore allocate nothing once the buffer
+   has reached its final size. */
+class MutableLargeInteger {
+
+    /* The limbs of the number, least significant first, as in PackedLargeInteger. Only the first
+       length limbs are meaningful; the rest of the buffer is always zero. length is at least 1. */
+    int limbs[];
+    int length;
+
+    /* Buffers reused by multiplyAccumulate: the product before it is added in, and the scratch arena of Karatsuba */
+    private int[] product = new int[0];
+    private int[] scratch = new int[0];
+
+
+
+    /* Constructor that creates a new MutableLargeInteger equal to zero, with room for capacity limbs */
+    public MutableLargeInteger (int capacity) {
+        limbs = new int[Math.max( capacity, 1 )];
+        length = 1;
+    }
+
+
+    /* Constructor that creates a new MutableLargeInteger equal to value */
+    public MutableLargeInteger (PackedLargeInteger value) {
+        this( value.limbs.length + 1 );
+        set( value );
+    }
+
+
+    /* Sets this number to zero, keeping its buffer */
+    public void setZero () {
+        Arrays.fill( limbs, 0, length, 0 );
+        length = 1;
+    } // end of setZero
+
+
+    /* Sets this number to value, keeping its buffer if it is large enough */
+    public void set (PackedLargeInteger value) {
+        setZero();
+        ensureCapacity( value.limbs.length );
+        System.arraycopy( value.limbs, 0, limbs, 0, value.limbs.length );
+        length = value.limbs.length;
+    } // end of set
+
+
+    /* Adds other to this number, in place */
+    public void addTo (PackedLargeInteger other) {
+        addShifted( other.limbs, other.limbs.length, 0 );
+    } // end of addTo
+
+
+    /* Adds other to this number, in place */
+    public void addTo (MutableLargeInteger other) {
+        addShifted( other.limbs, other.length, 0 );
+    } // end of addTo
+
+
+    /* Adds other * 10^(9 * offset) to this number, in place, i.e. other shifted to the left by offset limbs */
+    public void addShifted (PackedLargeInteger other, int offset) {
+        addShifted( other.limbs, other.limbs.length, offset );
+    } // end of addShifted
+
+
+    /* Adds other * 10^(9 * offset) to this number, in place */
+    public void addShifted (MutableLargeInteger other, int offset) {
+        addShifted( other.limbs, other.length, offset );
+    } // end of addShifted
+
+
+    /* Subtracts other from this number, in place. As with LargeInteger.subtract, if other is larger
+       than this number, the result is 0. */
+    public void subtractFrom (PackedLargeInteger other) {
+        subtract( other.limbs, other.limbs.length );
+    } // end of subtractFrom
+
+
+    /* Subtracts other from this number, in place. If other is larger than this number, the result is 0. */
+    public void subtractFrom (MutableLargeInteger other) {
+        subtract( other.limbs, other.length );
+    } // end of subtractFrom
+
+
+    /* Adds a * b to this number, in place. Small products are accumulated directly into the buffer of
+       this number; larger ones are computed with Karatsuba into a product buffer and a scratch arena
+       that this object keeps from one call to the next, then added in. */
+    public void multiplyAccumulate (PackedLargeInteger a, PackedLargeInteger b) {
+        int aLen = a.limbs.length;
+        int bLen = b.limbs.length;
+        MultiplyThresholds thresholds = MultiplyThresholds.current();
+        ensureCapacity( Math.max( length, aLen + bLen ) + 1 );
+
+        if (Math.min( aLen, bLen ) < thresholds.karatsuba) {
+            PackedLargeInteger.multiplyAccumulateInto( limbs, 0, limbs.length, a.limbs, 0, aLen, b.limbs, 0, bLen );
+        } else {
+            if (product.length < aLen + bLen) product = new int[aLen + bLen];
+            int scratchSize = PackedLargeInteger.karatsubaScratchSize( Math.max( aLen, bLen ) );
+            if (scratch.length < scratchSize) scratch = new int[scratchSize];
+
+            PackedLargeInteger.karatsubaInto( a.limbs, 0, aLen, b.limbs, 0, bLen, product, 0, scratch, 0, thresholds );
+            PackedLargeInteger.addInto( limbs, 0, limbs.length, product, 0, aLen + bLen );
+        }
+        updateLength( limbs.length );
+    } // end of multiplyAccumulate
+
+
+    /* Returns the current value of this number as a new PackedLargeInteger */
+    public PackedLargeInteger toPacked () {
+        return new PackedLargeInteger( Arrays.copyOf( limbs, length ) );
+    } // end of toPacked
+
+
+    /* Returns a string describing the current value of this number */
+    public String toString () {
+        return toPacked().toString();
+    } // end of toString
+
+
+    /* Adds the otherLength limbs of other, shifted to the left by offset limbs, to this number. other may be
+       the buffer of this number (x += x * BASE^offset): the limbs are added from the lowest one up, so with an
+       offset they would be read after being overwritten, and they are copied first unless the buffer was
+       replaced to make room, in which case other is the old buffer and is left as it was. */
+    private void addShifted (int[] other, int otherLength, int offset) {
+        if (otherLength == 1 && other[ 0 ] == 0) return;
+        int end = Math.max( length, otherLength + offset ) + 1;
+        ensureCapacity( end );
+        if (other == limbs && offset > 0) other = Arrays.copyOf( other, otherLength );
+        PackedLargeInteger.addInto( limbs, offset, end, other, 0, otherLength );
+        updateLength( end );
+    } // end of addShifted
+
+
+    /* Subtracts the otherLength limbs of other from this number, or sets it to 0 if other is larger */
+    private void subtract (int[] other, int otherLength) {
+        if (otherLength > length) { setZero(); return; }
+        if (PackedLargeInteger.subtractInto( limbs, 0, length, other, 0, otherLength ) != 0) { setZero(); return; }
+        updateLength( length );
+    } // end of subtract
+
+
+    /* Makes sure that the buffer has room for n limbs, replacing it by a larger one if needed */
+    private void ensureCapacity (int n) {
+        if (limbs.length < n) limbs = Arrays.copyOf( limbs, Math.max( n, limbs.length + limbs.length / 2 ) );
+    } // end of ensureCapacity
+
+
+    /* Sets length to the number of significant limbs among the first end limbs of the buffer */
+    private void updateLength (int end) {
+        length = end;
+        while (length > 1 && limbs[ length - 1 ] == 0) length--;
+    } // end of updateLength
+
+}  // end of the MutableLargeInteger class
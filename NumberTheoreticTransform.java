@@ -0,0 +1,413 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+
+/* This class multiplies limb arrays (see PackedLargeInteger) with number-theoretic transforms.
+
+   The product of two numbers is the convolution of their limbs followed by carry propagation.
+   The convolution is computed exactly, with integer arithmetic only, modulo three primes of the
+   form c * 2^k + 1, and the three residues of every coefficient are recombined with the Chinese
+   remainder theorem (Garner's algorithm). A coefficient of the convolution is at most
+   n * (10^9 - 1)^2, which stays below the product of the three primes (about 7.1 * 10^26) for
+   every transform length allowed by the primes, so the recombined value is the exact coefficient.
+
+   parallelMultiply computes the same product on the fork-join pool it is called from: besides the three
+   convolutions, which do not depend on each other, the loops inside every transform and the recombination
+   are cut into blocks of GRAIN elements that run on different cores (see parallelFor). */
+class NumberTheoreticTransform {
+
+    /* The three primes, with a primitive root of each. Their largest common power-of-two
+       transform length is 2^24. */
+    static final long P1 = 2013265921L;     // 15 * 2^27 + 1
+    static final long P2 = 469762049L;      //  7 * 2^26 + 1
+    static final long P3 = 754974721L;      // 45 * 2^24 + 1
+    static final long G1 = 31;
+    static final long G2 = 3;
+    static final long G3 = 11;
+    static final long[] PRIMES = { P1, P2, P3 };
+
+    static final int MAX_LENGTH = 1 << 24;
+
+    /* Constants of Garner's algorithm */
+    static final long P1_INV_MOD_P2 = modPow( P1 % P2, P2 - 2, P2 );
+    static final long P1P2 = P1 * P2;
+    static final long P1P2_INV_MOD_P3 = modPow( P1P2 % P3, P3 - 2, P3 );
+
+    static final long BASE = PackedLargeInteger.BASE;
+
+    /* Number of elements of the blocks that the parallel transforms hand to a task */
+    static final int GRAIN = 1 << 12;
+
+
+
+    /* The powers of the roots of unity of the three primes for transforms of length n. They only depend on n,
+       and are only read once built, so the products of a batch that have the same transform length share them. */
+    static final class Plan {
+        final int n;
+        final long[][] roots;
+
+        Plan (int n) {
+            this.n = n;
+            roots = new long[][] { roots( n, P1, G1 ), roots( n, P2, G2 ), roots( n, P3, G3 ) };
+        }
+    }
+
+
+    /* The arrays that the transforms of one thread work in, kept from one product to the next. If keepOperand is
+       set, the transforms of the last second operand are kept as well, so that multiplying many numbers by the
+       same one (the same array) only transforms it once. Otherwise a single array is used for every prime. */
+    static final class Workspace {
+        final boolean keepOperand;
+        final long[][] products = new long[3][];        // the convolutions, modulo each prime
+        final long[][] operand = new long[3][];         // the transforms of the second operand, modulo each prime
+        int[] transformed;                              // the operand whose transforms are in operand, or null
+
+        Workspace (boolean keepOperand) {
+            this.keepOperand = keepOperand;
+        }
+
+        /* Returns the array of length n to use in place of array, which is reused if it has that length */
+        static long[] of (long[] array, int n) {
+            return array != null && array.length == n ? array : new long[n];
+        }
+    }
+
+
+    /* The body of a loop over the indices from up to but not including to, see parallelFor */
+    interface Range {
+        void run (int from, int to);
+    }
+
+
+
+    /* Returns true if the product of operands of these lengths (in limbs) fits in one transform */
+    static boolean fits (int aLength, int bLength) {
+        return aLength + bLength <= MAX_LENGTH;
+    } // end of fits
+
+
+    /* Returns a * b. Assumption: fits(a.length, b.length). */
+    static int[] multiply (int[] a, int[] b) {
+        return multiply( a, b, new Plan( transformLength( a.length + b.length - 1 ) ), new Workspace( false ) );
+    } // end of multiply
+
+
+    /* Returns a * b with the roots of plan, whose length must be at least a.length + b.length - 1, and the
+       arrays of work. If a is the operand whose transforms work holds, a and b are swapped to reuse them. */
+    static int[] multiply (int[] a, int[] b, Plan plan, Workspace work) {
+        int n = plan.n;
+        if (a == work.transformed) { int[] t = a; a = b; b = t; }
+        boolean transformed = b == work.transformed && work.operand[ 0 ] != null && work.operand[ 0 ].length == n;
+
+        for (int k = 0; k < 3; k++) {
+            long[] fa = work.products[ k ] = Workspace.of( work.products[ k ], n );
+            long[] fb = null;
+            if (a != b) {
+                int slot = work.keepOperand ? k : 0;
+                fb = work.operand[ slot ] = Workspace.of( work.operand[ slot ], n );
+            }
+            convolve( a, b, plan.roots[ k ], PRIMES[ k ], fa, fb, transformed );
+        }
+        if (a != b) work.transformed = work.keepOperand ? b : null;
+
+        return recombine( work.products[ 0 ], work.products[ 1 ], work.products[ 2 ], a.length + b.length );
+    } // end of multiply
+
+
+    /* Returns a * b like multiply, with the work spread over the fork-join pool of the calling task (the common
+       pool when called from another thread). The three convolutions are computed at the same time, and every
+       loop inside them and the recombination are split further into blocks of GRAIN elements, so that all the
+       cores take part even though there are only three primes. Assumption: fits(a.length, b.length). */
+    static int[] parallelMultiply (int[] a, int[] b) {
+        Plan plan = new Plan( transformLength( a.length + b.length - 1 ) );
+        ForkJoinTask<long[]> c1 = ForkJoinTask.adapt( () -> parallelConvolution( a, b, plan, 0 ) ).fork();
+        ForkJoinTask<long[]> c2 = ForkJoinTask.adapt( () -> parallelConvolution( a, b, plan, 1 ) ).fork();
+        long[] c3 = parallelConvolution( a, b, plan, 2 );
+        return parallelRecombine( c1.join(), c2.join(), c3, a.length + b.length );
+    } // end of parallelMultiply
+
+
+    /* Returns the cyclic convolution of a and b modulo the prime PRIMES[k], with the roots of plan, like convolve
+       does, but with its loops split over the cores. The transforms of a and b are computed at the same time. */
+    static long[] parallelConvolution (int[] a, int[] b, Plan plan, int k) {
+        long p = PRIMES[ k ];
+        long[] roots = plan.roots[ k ];
+        long[] fa = new long[plan.n];
+        if (a == b) {
+            parallelLoadAndTransform( a, fa, roots, p );
+            parallelFor( fa.length, GRAIN, (from, to) -> {
+                for (int i = from; i < to; i++) fa[ i ] = fa[ i ] * fa[ i ] % p;
+            } );
+        } else {
+            long[] fb = new long[plan.n];
+            ForkJoinTask<?> transformB = ForkJoinTask.adapt( () -> parallelLoadAndTransform( b, fb, roots, p ) ).fork();
+            parallelLoadAndTransform( a, fa, roots, p );
+            transformB.join();
+            parallelFor( fa.length, GRAIN, (from, to) -> {
+                for (int i = from; i < to; i++) fa[ i ] = fa[ i ] * fb[ i ] % p;
+            } );
+        }
+        parallelInverseTransform( fa, roots, p );
+        return fa;
+    } // end of parallelConvolution
+
+
+    /* Writes the limbs of a modulo p to f, which is all zeros, and replaces them by their transform */
+    private static void parallelLoadAndTransform (int[] a, long[] f, long[] roots, long p) {
+        parallelFor( a.length, GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) f[ i ] = a[ i ] % p;
+        } );
+        parallelTransform( f, roots, p );
+    } // end of parallelLoadAndTransform
+
+
+    /* Replaces a by its transform modulo p, like transform, with the work spread over the cores. The bit-reversal
+       permutation is split by index (every pair is swapped by the task that holds its lower index). Then every
+       block of GRAIN elements goes through the butterflies of length up to GRAIN on its own, and the longer
+       butterflies, which mix the blocks, are split by butterfly, one stage after the other. */
+    static void parallelTransform (long[] a, long[] roots, long p) {
+        int n = a.length;
+        if (n <= GRAIN) {
+            transform( a, roots, p );
+            return;
+        }
+        int bits = Integer.numberOfTrailingZeros( n );
+        parallelFor( n, GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int j = Integer.reverse( i ) >>> (32 - bits);
+                if (i < j) { long t = a[ i ]; a[ i ] = a[ j ]; a[ j ] = t; }
+            }
+        } );
+
+        parallelFor( n / GRAIN, 1, (from, to) -> {
+            for (int block = from; block < to; block++) {
+                for (int length = 2; length <= GRAIN; length <<= 1) butterflies( a, roots, p, length, block * GRAIN / 2, (block + 1) * GRAIN / 2 );
+            }
+        } );
+        for (int length = 2 * GRAIN; length <= n; length <<= 1) {
+            int stage = length;
+            parallelFor( n / 2, GRAIN, (from, to) -> butterflies( a, roots, p, stage, from, to ) );
+        }
+    } // end of parallelTransform
+
+
+    /* Replaces a by its inverse transform modulo p, like inverseTransform, with the work spread over the cores */
+    static void parallelInverseTransform (long[] a, long[] roots, long p) {
+        int n = a.length;
+        parallelTransform( a, roots, p );
+        parallelFor( n / 2, GRAIN, (from, to) -> {
+            for (int i = Math.max( from, 1 ); i < to; i++) { long t = a[ i ]; a[ i ] = a[ n - i ]; a[ n - i ] = t; }
+        } );
+
+        long nInverse = modPow( n, p - 2, p );
+        parallelFor( n, GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) a[ i ] = a[ i ] * nInverse % p;
+        } );
+    } // end of parallelInverseTransform
+
+
+    /* Does the butterflies from up to but not including to of the stage of the given length of the transform of
+       a. The stage has a.length / 2 butterflies: butterfly t combines the elements i and i + length / 2, i being
+       the position j = t mod (length / 2) in group t / (length / 2). */
+    private static void butterflies (long[] a, long[] roots, long p, int length, int from, int to) {
+        int half = length >> 1;
+        int step = a.length / length;
+        for (int t = from; t < to; t++) {
+            int j = t & (half - 1);
+            int i = ((t - j) << 1) + j;
+            long u = a[ i ];
+            long v = a[ i + half ] * roots[ j * step ] % p;
+            long sum = u + v;
+            long diff = u - v;
+            a[ i ] = sum >= p ? sum - p : sum;
+            a[ i + half ] = diff < 0 ? diff + p : diff;
+        }
+    } // end of butterflies
+
+
+    /* Returns the limbs of the number whose convolution coefficients have the residues c1, c2 and c3, like
+       recombine. Every block of GRAIN limbs is recombined on its own as if no carry came from below it, which
+       gives its limbs and the carry out of it; the carries are then added to the blocks above, from the lowest
+       block up, which usually stops after a limb or two. */
+    static int[] parallelRecombine (long[] c1, long[] c2, long[] c3, int length) {
+        int[] ret = new int[length];
+        int blocks = (length + GRAIN - 1) / GRAIN;
+        long[] carries = new long[blocks];
+        parallelFor( blocks, 1, (from, to) -> {
+            for (int k = from; k < to; k++) carries[ k ] = recombine( c1, c2, c3, ret, k * GRAIN, Math.min( length, (k + 1) * GRAIN ) );
+        } );
+
+        long carry = 0;
+        for (int k = 0; k < blocks; k++) {
+            int end = Math.min( length, (k + 1) * GRAIN );
+            for (int i = k * GRAIN; carry != 0 && i < end; i++) {
+                long column = ret[ i ] + carry;
+                carry = column / BASE;
+                ret[ i ] = (int)( column - carry * BASE );
+            }
+            carry += carries[ k ];
+        }
+        return PackedLargeInteger.normalize( ret );
+    } // end of parallelRecombine
+
+
+    /* Runs body over the indices 0 up to but not including n, in blocks of at most grain indices. The range is
+       halved until it is that small, one half being forked while the current thread does the other one. */
+    static void parallelFor (int n, int grain, Range body) {
+        parallelFor( 0, n, grain, body );
+    } // end of parallelFor
+
+
+    private static void parallelFor (int from, int to, int grain, Range body) {
+        if (to - from <= grain) {
+            if (from < to) body.run( from, to );
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        ForkJoinTask<?> low = ForkJoinTask.adapt( () -> parallelFor( from, middle, grain, body ) ).fork();
+        parallelFor( middle, to, grain, body );
+        low.join();
+    } // end of parallelFor
+
+
+    /* Returns the smallest power of two that is not smaller than n */
+    static int transformLength (int n) {
+        int ret = 1;
+        while (ret < n) ret <<= 1;
+        return ret;
+    } // end of transformLength
+
+
+    /* Writes the cyclic convolution of a and b modulo p to fa, whose length is the length of the transform.
+       fb receives the transform of b, unless it already holds it (transformed), and is not used for a square. */
+    static void convolve (int[] a, int[] b, long[] roots, long p, long[] fa, long[] fb, boolean transformed) {
+        for (int i = 0; i < a.length; i++) fa[ i ] = a[ i ] % p;
+        Arrays.fill( fa, a.length, fa.length, 0 );
+        transform( fa, roots, p );
+
+        if (a == b) {
+            for (int i = 0; i < fa.length; i++) fa[ i ] = fa[ i ] * fa[ i ] % p;
+        } else {
+            if (!transformed) {
+                for (int i = 0; i < b.length; i++) fb[ i ] = b[ i ] % p;
+                Arrays.fill( fb, b.length, fb.length, 0 );
+                transform( fb, roots, p );
+            }
+            for (int i = 0; i < fa.length; i++) fa[ i ] = fa[ i ] * fb[ i ] % p;
+        }
+
+        inverseTransform( fa, roots, p );
+    } // end of convolve
+
+
+    /* Returns the n/2 first powers of a primitive n-th root of unity modulo p */
+    static long[] roots (int n, long p, long g) {
+        long[] roots = new long[Math.max( n / 2, 1 )];
+        long w = modPow( g, (p - 1) / n, p );
+        roots[ 0 ] = 1;
+        for (int i = 1; i < roots.length; i++) roots[ i ] = roots[ i - 1 ] * w % p;
+        return roots;
+    } // end of roots
+
+
+    /* Replaces a by its transform modulo p. This is the iterative radix-2 algorithm: the elements
+       are first put in bit-reversed order, then combined by butterflies of doubling length. */
+    static void transform (long[] a, long[] roots, long p) {
+        int n = a.length;
+
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+            j ^= bit;
+            if (i < j) { long t = a[ i ]; a[ i ] = a[ j ]; a[ j ] = t; }
+        }
+
+        for (int length = 2; length <= n; length <<= 1) {
+            int half = length >> 1;
+            int step = n / length;
+            for (int i = 0; i < n; i += length) {
+                for (int j = 0; j < half; j++) {
+                    long u = a[ i + j ];
+                    long v = a[ i + j + half ] * roots[ j * step ] % p;
+                    long sum = u + v;
+                    long diff = u - v;
+                    a[ i + j ] = sum >= p ? sum - p : sum;
+                    a[ i + j + half ] = diff < 0 ? diff + p : diff;
+                }
+            }
+        }
+    } // end of transform
+
+
+    /* Replaces a by its inverse transform modulo p. Transforming with the inverse root amounts to
+       transforming with the same root and reversing the elements 1 to n-1. */
+    static void inverseTransform (long[] a, long[] roots, long p) {
+        int n = a.length;
+        transform( a, roots, p );
+        for (int i = 1, j = n - 1; i < j; i++, j--) { long t = a[ i ]; a[ i ] = a[ j ]; a[ j ] = t; }
+
+        long nInverse = modPow( n, p - 2, p );
+        for (int i = 0; i < n; i++) a[ i ] = a[ i ] * nInverse % p;
+    } // end of inverseTransform
+
+
+    /* Returns the limbs of the number whose convolution coefficients have the residues c1, c2 and c3
+       modulo P1, P2 and P3. Every coefficient is rebuilt with Garner's algorithm as
+       x = r1 + P1 * t2 + P1 * P2 * t3, which needs up to 90 bits, so the last term and the carry
+       propagation are done on a 128-bit value held in two longs. */
+    static int[] recombine (long[] c1, long[] c2, long[] c3, int length) {
+        int[] ret = new int[length];
+        recombine( c1, c2, c3, ret, 0, length );
+        return PackedLargeInteger.normalize( ret );
+    } // end of recombine
+
+
+    /* Writes the limbs from up to but not including to of the number whose convolution coefficients have the
+       residues c1, c2 and c3 to ret, as if no carry came from the limbs below from, and returns the carry out
+       of the last one */
+    static long recombine (long[] c1, long[] c2, long[] c3, int[] ret, int from, int to) {
+        long carry = 0;
+
+        for (int i = from; i < to; i++) {
+            long high = 0;
+            long low = carry;
+
+            if (i < c1.length) {
+                long r1 = c1[ i ];
+                long t2 = (c2[ i ] - r1 % P2 + P2) % P2 * P1_INV_MOD_P2 % P2;
+                long x12 = r1 + P1 * t2;                                            // below P1 * P2 < 2^61
+                long t3 = (c3[ i ] - x12 % P3 + P3) % P3 * P1P2_INV_MOD_P3 % P3;
+
+                high = Math.multiplyHigh( P1P2, t3 );
+                long product = P1P2 * t3;
+                low = carry + x12;                                                  // carry and x12 are both below 2^62
+                long sum = low + product;
+                if (Long.compareUnsigned( sum, low ) < 0) high++;
+                low = sum;
+            }
+
+            // divide the 128-bit value (high, low) by BASE, 32 bits at a time. high is below 2^27.
+            long upper = (high << 32) | (low >>> 32);
+            long upperQuotient = upper / BASE;
+            long lower = ((upper - upperQuotient * BASE) << 32) | (low & 0xffffffffL);
+            long lowerQuotient = lower / BASE;
+
+            ret[ i ] = (int)( lower - lowerQuotient * BASE );
+            carry = (upperQuotient << 32) + lowerQuotient;
+        }
+        return carry;
+    } // end of recombine
+
+
+    /* Returns base^exponent mod p */
+    static long modPow (long base, long exponent, long p) {
+        long ret = 1;
+        base %= p;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) ret = ret * base % p;
+            base = base * base % p;
+            exponent >>= 1;
+        }
+        return ret;
+    } // end of modPow
+
+}  // end of the NumberTheoreticTransform class
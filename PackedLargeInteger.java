@@ -0,0 +1,809 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/* This class stores and manipulates very large non-negative integer numbers, like LargeInteger,
+   but packs nine decimal digits into every element of an array of ints instead of storing one
+   digit per byte. Every arithmetic loop therefore handles nine digits per iteration, and a number
+   takes roughly 4/9 of the memory of the equivalent LargeInteger. */
+class PackedLargeInteger {
+
+    /* Each limb holds a value between 0 and BASE - 1, i.e. exactly BASE_DIGITS decimal digits. */
+    static final int BASE = 1000000000;
+    static final int BASE_DIGITS = 9;
+
+    /* 10^i for every power of ten that fits in a limb */
+    static final int[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
+
+    /* Thresholds that make Karatsuba recurse as deep as it can */
+    static final MultiplyThresholds FULL_RECURSION = new MultiplyThresholds( 2, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE );
+
+    /* The kernels on vectors of columns (see ColumnKernels), or null if they are not there: when VectorKernels
+       was not compiled, when the program runs without --add-modules jdk.incubator.vector, or with
+       -DvectorKernels=false */
+    static final ColumnKernels VECTOR = vectorKernels();
+
+    /* True if additions, subtractions and comparisons go through the Vector API */
+    static final boolean VECTOR_KERNELS = VECTOR != null;
+
+    /* The limbs of the number. Unlike LargeInteger.digits, limbs are stored least significant
+       first: limbs[0] corresponds to units up to 10^8, limbs[1] to 10^9 up to 10^17, etc.
+       By convention the array never has leading (i.e. trailing in memory) zero limbs, except for
+       the number zero, which is stored as a single zero limb. */
+    int limbs[];
+
+
+
+    /* Constructor that wraps an already normalized array of limbs. The array is not copied. */
+    PackedLargeInteger (int[] limbs) {
+        this.limbs = limbs;
+    }
+
+
+    /* Constructor that creates a new PackedLargeInteger whose digits are those of the string provided.
+       The string is read nine characters at a time, starting from the units (see DecimalConversion).
+       Throws a NumberFormatException if the string is empty or holds anything but digits. */
+    public PackedLargeInteger (String s) {
+        limbs = DecimalConversion.parseLimbs( s );
+    }
+
+
+    /* Constructor that converts a LargeInteger into its packed form */
+    public PackedLargeInteger (LargeInteger other) {
+        limbs = fromDigits( other.digits, 0, other.digits.length );
+    }
+
+
+    /* Returns the LargeInteger with the same value as this */
+    public LargeInteger toLargeInteger() {
+        LargeInteger ret = new LargeInteger( 0 );
+        ret.digits = toDigits( limbs );
+        return ret;
+    } // end of toLargeInteger
+
+
+    /* Returns true if the value of this is the same as the value of other */
+    public boolean equals (PackedLargeInteger other) {
+        return compare( limbs, other.limbs ) == 0;
+    } // end of equals
+
+
+    /* Returns true if the value of this is less than the value of other */
+    public boolean isSmaller (PackedLargeInteger other) {
+        return compare( limbs, other.limbs ) < 0;
+    } // end of isSmaller
+
+
+    /* Returns the sum of this and other */
+    public PackedLargeInteger add (PackedLargeInteger other) {
+        return new PackedLargeInteger( add( limbs, other.limbs ) );
+    } // end of add
+
+
+    /* Returns this minus other. As with LargeInteger.subtract, if other is larger than this number, 0 is returned. */
+    public PackedLargeInteger subtract (PackedLargeInteger other) {
+        if (compare( limbs, other.limbs ) <= 0) return new PackedLargeInteger( new int[1] );
+        return new PackedLargeInteger( subtract( limbs, other.limbs ) );
+    } // end of subtract
+
+
+    /* Returns the product of this and other computed with the schoolbook algorithm, one limb at a time */
+    public PackedLargeInteger standardMultiplication (PackedLargeInteger other) {
+        return new PackedLargeInteger( multiplySchoolbook( limbs, other.limbs ) );
+    } // end of standardMultiplication
+
+
+    /* Returns the product of this and other computed with the Karatsuba (three products) recursion on limbs,
+       recursing all the way down to the smallest operands that can still be split, like
+       LargeInteger.recursiveFastMultiplication does */
+    public PackedLargeInteger recursiveFastMultiplication (PackedLargeInteger other) {
+        return new PackedLargeInteger( multiplyKaratsuba( limbs, other.limbs, FULL_RECURSION ) );
+    } // end of recursiveFastMultiplication
+
+
+    /* Returns the product of this and other computed with number-theoretic transforms. If the product is
+       too large for a single transform, Karatsuba splits it into pieces that fit. */
+    public PackedLargeInteger nttMultiplication (PackedLargeInteger other) {
+        if (NumberTheoreticTransform.fits( limbs.length, other.limbs.length ))
+            return new PackedLargeInteger( NumberTheoreticTransform.multiply( limbs, other.limbs ) );
+        return new PackedLargeInteger( multiplyKaratsuba( limbs, other.limbs, new MultiplyThresholds( 2, Integer.MAX_VALUE, 1, Integer.MAX_VALUE, Integer.MAX_VALUE ) ) );
+    } // end of nttMultiplication
+
+
+    /* Returns the product of this and other computed with one level of Toom-Cook 3-way, the five
+       sub-products being picked from their sizes according to MultiplyThresholds.current() */
+    public PackedLargeInteger toomCook3Multiplication (PackedLargeInteger other) {
+        return new PackedLargeInteger( ToomCook3.multiply( limbs, other.limbs, MultiplyThresholds.current() ) );
+    } // end of toomCook3Multiplication
+
+
+    /* Returns the product of this and other computed on all the cores of the common fork-join pool, see ParallelMultiplication */
+    public PackedLargeInteger parallelMultiplication (PackedLargeInteger other) {
+        return new PackedLargeInteger( ParallelMultiplication.multiply( limbs, other.limbs, MultiplyThresholds.current() ) );
+    } // end of parallelMultiplication
+
+
+    /* Returns the product of this and other computed on the workers of pool, see ParallelMultiplication */
+    public PackedLargeInteger parallelMultiplication (PackedLargeInteger other, ForkJoinPool pool) {
+        return new PackedLargeInteger( ParallelMultiplication.multiply( limbs, other.limbs, MultiplyThresholds.current(), pool ) );
+    } // end of parallelMultiplication
+
+
+    /* Returns the product of this and other, the algorithm being picked from the operand sizes
+       according to MultiplyThresholds.current() */
+    public PackedLargeInteger multiply (PackedLargeInteger other) {
+        return new PackedLargeInteger( multiply( limbs, other.limbs, MultiplyThresholds.current() ) );
+    } // end of multiply
+
+
+    /* Returns the square of this, the algorithm being picked from its size like in multiply. Every
+       tier has a squaring variant that only needs squares of parts, so this is faster than multiply. */
+    public PackedLargeInteger square () {
+        return new PackedLargeInteger( square( limbs, MultiplyThresholds.current() ) );
+    } // end of square
+
+
+    /* Returns the products a.get( i ) * b.get( i ) of many pairs, in order, computed on all the cores with shared
+       scratch arrays and transform tables, see BatchArithmetic */
+    public static List<PackedLargeInteger> multiplyAll (List<PackedLargeInteger> a, List<PackedLargeInteger> b) {
+        return wrap( new BatchArithmetic( MultiplyThresholds.current() ).multiplyAll( limbsOf( a ), limbsOf( b ) ) );
+    } // end of multiplyAll
+
+
+    /* Returns the sums a.get( i ) + b.get( i ) of many pairs, in order, computed on all the cores */
+    public static List<PackedLargeInteger> sumAll (List<PackedLargeInteger> a, List<PackedLargeInteger> b) {
+        return wrap( BatchArithmetic.addAll( limbsOf( a ), limbsOf( b ) ) );
+    } // end of sumAll
+
+
+    /* Returns the product of all the factors, or 1 if there are none, computed with a product tree (see ProductTree) */
+    public static PackedLargeInteger product (List<PackedLargeInteger> factors) {
+        return new PackedLargeInteger( ProductTree.product( limbsOf( factors ), MultiplyThresholds.current() ) );
+    } // end of product
+
+
+    /* Returns the sum of all the terms, or 0 if there are none, with the carries propagated once at the end */
+    public static PackedLargeInteger sum (List<PackedLargeInteger> terms) {
+        return new PackedLargeInteger( sum( limbsOf( terms ) ) );
+    } // end of sum
+
+
+    /* Returns n!, see ProductTree. Throws an ArithmeticException if n is negative. */
+    public static PackedLargeInteger factorial (int n) {
+        return new PackedLargeInteger( ProductTree.factorial( n, MultiplyThresholds.current() ) );
+    } // end of factorial
+
+
+    /* Returns the binomial coefficient C(n, k), or 0 if k < 0 or k > n, see ProductTree.
+       Throws an ArithmeticException if n is negative. */
+    public static PackedLargeInteger binomial (int n, int k) {
+        return new PackedLargeInteger( ProductTree.binomial( n, k, MultiplyThresholds.current() ) );
+    } // end of binomial
+
+
+    /* Returns { this / other, this % other }, see Division. Throws an ArithmeticException if other is zero. */
+    public PackedLargeInteger[] divideAndRemainder (PackedLargeInteger other) {
+        int[][] ret = Division.divideAndRemainder( limbs, other.limbs, MultiplyThresholds.current() );
+        return new PackedLargeInteger[] { new PackedLargeInteger( ret[ 0 ] ), new PackedLargeInteger( ret[ 1 ] ) };
+    } // end of divideAndRemainder
+
+
+    /* Returns this / other, rounded down */
+    public PackedLargeInteger divide (PackedLargeInteger other) {
+        return divideAndRemainder( other )[ 0 ];
+    } // end of divide
+
+
+    /* Returns this % other */
+    public PackedLargeInteger remainder (PackedLargeInteger other) {
+        return divideAndRemainder( other )[ 1 ];
+    } // end of remainder
+
+
+    /* Returns this raised to the power exponent, by binary exponentiation on top of square and multiply.
+       Powers of single-limb bases are kept in PowerCache. */
+    public PackedLargeInteger pow (int exponent) {
+        return new PackedLargeInteger( pow( limbs, exponent, MultiplyThresholds.current() ) );
+    } // end of pow
+
+
+    /* Returns this * other mod m, where m is the modulus of context (see ModularContext) */
+    public PackedLargeInteger modMul (PackedLargeInteger other, ModularContext context) {
+        return new PackedLargeInteger( context.multiply( limbs, other.limbs ) );
+    } // end of modMul
+
+
+    /* Returns this * this mod m, where m is the modulus of context */
+    public PackedLargeInteger modSquare (ModularContext context) {
+        return new PackedLargeInteger( context.square( limbs ) );
+    } // end of modSquare
+
+
+    /* Returns this^exponent mod m, where m is the modulus of context, with sliding-window exponentiation */
+    public PackedLargeInteger modPow (PackedLargeInteger exponent, ModularContext context) {
+        return new PackedLargeInteger( context.pow( limbs, exponent.limbs ) );
+    } // end of modPow
+
+
+    /* Returns this^exponent mod modulus. Throws an ArithmeticException if modulus is zero. */
+    public PackedLargeInteger modPow (PackedLargeInteger exponent, PackedLargeInteger modulus) {
+        return modPow( exponent, new ModularContext( modulus ) );
+    } // end of modPow
+
+
+    /* Returns this * 10^nbDigits. Like LargeInteger.shiftLeft, this appends nbDigits zeros, but whole
+       limbs of zeros are inserted at once and only the remaining nbDigits % 9 need a multiplication. */
+    public PackedLargeInteger shiftLeft (int nbDigits) {
+        return new PackedLargeInteger( shiftLimbs( multiplySmall( limbs, POWERS_OF_TEN[ nbDigits % BASE_DIGITS ] ), nbDigits / BASE_DIGITS ) );
+    } // end of shiftLeft
+
+
+    private static int[][] limbsOf (List<PackedLargeInteger> values) {
+        int[][] ret = new int[values.size()][];
+        int i = 0;
+        for (PackedLargeInteger value : values) ret[ i++ ] = value.limbs;
+        return ret;
+    } // end of limbsOf
+
+
+    private static List<PackedLargeInteger> wrap (int[][] limbs) {
+        PackedLargeInteger[] ret = new PackedLargeInteger[limbs.length];
+        for (int i = 0; i < limbs.length; i++) ret[ i ] = new PackedLargeInteger( limbs[ i ] );
+        return List.of( ret );
+    } // end of wrap
+
+
+    /* Returns a randomly generated PackedLargeInteger of n digits */
+    public static PackedLargeInteger getRandom (int n) {
+        return new PackedLargeInteger( RandomOperands.randomLimbs( ThreadLocalRandom.current(), n ) );
+    } // end of getRandom
+
+
+    /* Returns a string describing a PackedLargeInteger. Every limb but the most significant one
+       is padded with zeros to exactly nine digits. */
+    public String toString () {
+        return DecimalConversion.toString( limbs );
+    } // end of toString
+
+
+
+    /* The static methods below are the kernels used by the instance methods above. They work
+       directly on normalized little-endian limb arrays so that other classes can reuse them
+       without wrapping every intermediate value in an object. */
+
+
+    /* Returns a, or a copy of its first limbs, so that there are no leading zero limbs left.
+       Zero is returned as a single zero limb. */
+    static int[] normalize (int[] a) {
+        int len = a.length;
+        while (len > 1 && a[ len - 1 ] == 0) len--;
+        if (len == a.length) return a;
+        if (len == 0) return new int[1];
+        int[] ret = new int[len];
+        System.arraycopy( a, 0, ret, 0, len );
+        return ret;
+    } // end of normalize
+
+
+    /* Returns a negative number, zero or a positive number when a is smaller, equal or larger than b */
+    static int compare (int[] a, int[] b) {
+        if (a.length != b.length) return a.length < b.length ? -1 : 1;
+        int i = lastMismatch( a, b, a.length );
+        return i < 0 ? 0 : Integer.compare( a[ i ], b[ i ] );
+    } // end of compare
+
+
+    /* Returns the highest index below length at which a and b differ, or -1 if their first length limbs are equal */
+    static int lastMismatch (int[] a, int[] b, int length) {
+        if (VECTOR_KERNELS) return VECTOR.lastMismatch( a, b, length );
+        for (int i = length - 1; i >= 0; i--) {
+            if (a[ i ] != b[ i ]) return i;
+        }
+        return -1;
+    } // end of lastMismatch
+
+
+    /* Returns a + b */
+    static int[] add (int[] a, int[] b) {
+        if (a.length < b.length) { int[] t = a; a = b; b = t; }
+
+        int[] sum = new int[a.length + 1];
+        Metrics.count( Metrics.Operation.PACKED_ADD, (long) BASE_DIGITS * (a.length + b.length), 4L * sum.length );
+        int carry = addColumns( a, 0, b, 0, sum, 0, b.length, 0 );
+        int i = b.length;
+        for (; i < a.length; i++) {
+            int sumColumn = a[ i ] + carry;
+            carry = sumColumn >= BASE ? 1 : 0;
+            sum[ i ] = sumColumn - carry * BASE;
+        }
+        sum[ i ] = carry;
+        return normalize( sum );
+    } // end of add
+
+
+    /* Returns a - b. Assumption: a is not smaller than b. */
+    static int[] subtract (int[] a, int[] b) {
+        int[] diff = new int[a.length];
+        Metrics.count( Metrics.Operation.PACKED_SUBTRACT, (long) BASE_DIGITS * (a.length + b.length), 4L * diff.length );
+        int borrow = subtractColumns( a, 0, b, 0, diff, 0, b.length, 0 );
+        int i = b.length;
+        for (; i < a.length; i++) {
+            int column = a[ i ] - borrow;
+            borrow = column < 0 ? 1 : 0;
+            diff[ i ] = column + borrow * BASE;
+        }
+        return normalize( diff );
+    } // end of subtract
+
+
+    /* Returns the sum of all the terms, or 0 if there are none. Instead of adding the terms one by one,
+       which allocates and normalizes a new array every time, the limbs of every column are summed in a
+       long and the carries are propagated once, at the end. A column of up to Integer.MAX_VALUE limbs
+       can not overflow a long, and its carry has at most two limbs. */
+    static int[] sum (int[][] terms) {
+        int length = 1;
+        for (int[] term : terms) length = Math.max( length, term.length );
+
+        long[] columns = new long[length];
+        for (int[] term : terms) {
+            for (int i = 0; i < term.length; i++) columns[ i ] += term[ i ];
+        }
+
+        int[] ret = new int[length + 2];
+        long carry = 0;
+        for (int i = 0; i < length; i++) {
+            long column = columns[ i ] + carry;
+            carry = column / BASE;
+            ret[ i ] = (int)( column - carry * BASE );
+        }
+        ret[ length ] = (int)( carry % BASE );
+        ret[ length + 1 ] = (int)( carry / BASE );
+        return normalize( ret );
+    } // end of sum
+
+
+    /* Returns a * BASE^n, i.e. a shifted to the left by n limbs (9n decimal digits) */
+    static int[] shiftLimbs (int[] a, int n) {
+        if (n == 0 || (a.length == 1 && a[ 0 ] == 0)) return a;
+        int[] ret = new int[a.length + n];
+        System.arraycopy( a, 0, ret, n, a.length );
+        return ret;
+    } // end of shiftLimbs
+
+
+    /* Returns the limbs of a between start and up to but not including stop, normalized */
+    static int[] range (int[] a, int start, int stop) {
+        stop = Math.min( stop, a.length );
+        if (start >= stop) return new int[1];
+        int[] ret = new int[stop - start];
+        System.arraycopy( a, start, ret, 0, stop - start );
+        return normalize( ret );
+    } // end of range
+
+
+    /* Returns a * m, for 0 <= m < BASE */
+    static int[] multiplySmall (int[] a, int m) {
+        int[] product = new int[a.length + 1];
+        long carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            long column = (long) a[ i ] * m + carry;
+            carry = column / BASE;
+            product[ i ] = (int)( column - carry * BASE );
+        }
+        product[ a.length ] = (int) carry;
+        return normalize( product );
+    } // end of multiplySmall
+
+
+    /* Returns a / d rounded down, for 0 < d < BASE. The division goes from the most significant limb
+       down, the remainder of each limb being carried into the next one. */
+    static int[] divideSmall (int[] a, int d) {
+        int[] quotient = new int[a.length];
+        long remainder = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            long current = remainder * BASE + a[ i ];
+            quotient[ i ] = (int)( current / d );
+            remainder = current - (long) quotient[ i ] * d;
+        }
+        return normalize( quotient );
+    } // end of divideSmall
+
+
+    /* Adds src[srcOff] up to but not including src[srcOff + srcLen] to dst, starting at dst[dstOff].
+       The carry is propagated up to dst[dstEnd - 1] at most, and whatever is left of it is returned. */
+    static int addInto (int[] dst, int dstOff, int dstEnd, int[] src, int srcOff, int srcLen) {
+        int carry = addColumns( dst, dstOff, src, srcOff, dst, dstOff, srcLen, 0 );
+        for (int j = dstOff + srcLen; carry != 0 && j < dstEnd; j++) {
+            int sumColumn = dst[ j ] + carry;
+            carry = sumColumn >= BASE ? 1 : 0;
+            dst[ j ] = sumColumn - carry * BASE;
+        }
+        return carry;
+    } // end of addInto
+
+
+    /* Subtracts src[srcOff] up to but not including src[srcOff + srcLen] from dst, starting at dst[dstOff].
+       The borrow is propagated up to dst[dstEnd - 1] at most, and whatever is left of it is returned. */
+    static int subtractInto (int[] dst, int dstOff, int dstEnd, int[] src, int srcOff, int srcLen) {
+        int borrow = subtractColumns( dst, dstOff, src, srcOff, dst, dstOff, srcLen, 0 );
+        for (int j = dstOff + srcLen; borrow != 0 && j < dstEnd; j++) {
+            int column = dst[ j ] - borrow;
+            borrow = column < 0 ? 1 : 0;
+            dst[ j ] = column + borrow * BASE;
+        }
+        return borrow;
+    } // end of subtractInto
+
+
+    /* Writes the sum of the length limbs of a from aOff and of b from bOff, plus carry, to dst from dOff, and returns
+       the carry out of the last limb. dst may be a or b, at the same offset. This is the loop under every addition
+       of limbs: it runs on vectors of limbs when VECTOR_KERNELS is set, and one limb at a time otherwise. */
+    static int addColumns (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int carry) {
+        if (VECTOR_KERNELS) return VECTOR.add( a, aOff, b, bOff, dst, dOff, length, carry );
+        return addColumnsScalar( a, aOff, b, bOff, dst, dOff, length, carry );
+    } // end of addColumns
+
+
+    static int addColumnsScalar (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int carry) {
+        for (int i = 0; i < length; i++) {
+            int sumColumn = a[ aOff + i ] + b[ bOff + i ] + carry;      // at most 2 * (BASE - 1) + 1, which fits in an int
+            carry = sumColumn >= BASE ? 1 : 0;
+            dst[ dOff + i ] = sumColumn - carry * BASE;
+        }
+        return carry;
+    } // end of addColumnsScalar
+
+
+    /* Writes the length limbs of a from aOff minus those of b from bOff, minus borrow, to dst from dOff, and returns
+       the borrow out of the last limb, like addColumns */
+    static int subtractColumns (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int borrow) {
+        if (VECTOR_KERNELS) return VECTOR.subtract( a, aOff, b, bOff, dst, dOff, length, borrow );
+        return subtractColumnsScalar( a, aOff, b, bOff, dst, dOff, length, borrow );
+    } // end of subtractColumns
+
+
+    static int subtractColumnsScalar (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int borrow) {
+        for (int i = 0; i < length; i++) {
+            int column = a[ aOff + i ] - b[ bOff + i ] - borrow;
+            borrow = column < 0 ? 1 : 0;
+            dst[ dOff + i ] = column + borrow * BASE;
+        }
+        return borrow;
+    } // end of subtractColumnsScalar
+
+
+    /* Returns a new VectorKernels if the module of the Vector API is there and the class could be loaded, unless
+       the system property vectorKernels is false, and null otherwise. The class is found by name, so that the
+       other classes compile without it. */
+    private static ColumnKernels vectorKernels () {
+        if (!Boolean.parseBoolean( System.getProperty( "vectorKernels", "true" ) )) return null;
+        if (ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isEmpty()) return null;
+        try {
+            ColumnKernels ret = Class.forName( "VectorKernels" ).asSubclass( ColumnKernels.class ).getDeclaredConstructor().newInstance();
+            return ret.lanes() > 1 ? ret : null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;                // not compiled, or compiled without the module
+        }
+    } // end of vectorKernels
+
+
+    /* Adds the product of the aLen limbs of a starting at aOff and the bLen limbs of b starting at bOff
+       to dst, starting at dst[dstOff], with the schoolbook algorithm. The carries are propagated up to
+       dst[dstEnd - 1]. A product of two limbs is below 10^18, so adding the running column and the carry
+       to it still fits in a long. */
+    static void multiplyAccumulateInto (int[] dst, int dstOff, int dstEnd, int[] a, int aOff, int aLen, int[] b, int bOff, int bLen) {
+        for (int i = 0; i < aLen; i++) {
+            if ((i & 63) == 0) Cancellation.check();                    // every 64 rows, give up if the thread was interrupted
+            long ai = a[ aOff + i ];
+            if (ai == 0) continue;
+            long carry = 0;
+            int column = dstOff + i;
+            for (int j = 0; j < bLen; j++, column++) {
+                long sumColumn = ai * b[ bOff + j ] + dst[ column ] + carry;
+                carry = sumColumn / BASE;
+                dst[ column ] = (int)( sumColumn - carry * BASE );
+            }
+            for (; carry != 0 && column < dstEnd; column++) {
+                long sumColumn = dst[ column ] + carry;
+                carry = sumColumn / BASE;
+                dst[ column ] = (int)( sumColumn - carry * BASE );
+            }
+        }
+    } // end of multiplyAccumulateInto
+
+
+    /* Returns a * b with the schoolbook algorithm */
+    static int[] multiplySchoolbook (int[] a, int[] b) {
+        int[] product = new int[a.length + b.length];
+        multiplyAccumulateInto( product, 0, product.length, a, 0, a.length, b, 0, b.length );
+        return normalize( product );
+    } // end of multiplySchoolbook
+
+
+    /* Returns a * b, choosing the algorithm from the length of the shorter operand:
+       the schoolbook product below thresholds.karatsuba limbs, Karatsuba below thresholds.toom limbs,
+       Toom-Cook 3-way below thresholds.ntt limbs and the number-theoretic transform above. Products
+       too large for one transform go to Toom-Cook instead, whose sub-products come back here and
+       end up small enough. The time of every product is added to Metrics under the tier that computed it. */
+    static int[] multiply (int[] a, int[] b, MultiplyThresholds thresholds) {
+        if (a == b) return square( a, thresholds );
+        int shorter = Math.min( a.length, b.length );
+        long start = Metrics.start();
+        Metrics.Tier tier;
+        int[] ret;
+        if (shorter < thresholds.karatsuba) {
+            tier = Metrics.Tier.SCHOOLBOOK;
+            ret = multiplySchoolbook( a, b );
+        } else if (shorter >= thresholds.ntt && NumberTheoreticTransform.fits( a.length, b.length )) {
+            tier = Metrics.Tier.NTT;
+            ret = NumberTheoreticTransform.multiply( a, b );
+        } else if (shorter >= thresholds.toom) {
+            tier = Metrics.Tier.TOOM_COOK_3;
+            ret = ToomCook3.multiply( a, b, thresholds );
+        } else {
+            tier = Metrics.Tier.KARATSUBA;
+            ret = multiplyKaratsuba( a, b, thresholds );
+        }
+        if (Metrics.ENABLED) Metrics.tier( tier, shorter, System.nanoTime() - start );
+        return ret;
+    } // end of multiply
+
+
+    /* Returns a * b with the Karatsuba recursion. The whole call tree shares the product array and a
+       single scratch arena, see karatsubaInto. */
+    static int[] multiplyKaratsuba (int[] a, int[] b, MultiplyThresholds thresholds) {
+        int[] product = new int[a.length + b.length];
+        int[] scratch = new int[karatsubaScratchSize( Math.max( a.length, b.length ) )];
+        karatsubaInto( a, 0, a.length, b, 0, b.length, product, 0, scratch, 0, thresholds );
+        return normalize( product );
+    } // end of multiplyKaratsuba
+
+
+    /* Returns the number of scratch limbs that karatsubaInto needs for operands of at most n limbs.
+       A level of the recursion uses 4m + 4 limbs (the two sums of halves and their product) and leaves
+       the rest to the next level, whose operands have at most m + 1 limbs, with m = (n + 1) / 2. */
+    static int karatsubaScratchSize (int n) {
+        return 4 * n + 16 * (33 - Integer.numberOfLeadingZeros( n ));
+    } // end of karatsubaScratchSize
+
+
+    /* Writes the product of the aLen limbs of a starting at aOff and the bLen limbs of b starting at bOff
+       to dst[dOff] up to but not including dst[dOff + aLen + bLen], with the Karatsuba recursion.
+       Operands are views on existing arrays (they may have leading zero limbs) and every intermediate
+       value lives either in dst or in scratch, from scratch[sOff] on, so no array is allocated below the
+       top of the call tree.
+
+       Both operands are split at the same limb position m, half of the longer one. The products of the
+       low halves and of the high halves go straight to their final place in dst, and the middle term is
+       computed in scratch then added in. If the shorter operand fits entirely below m, only the longer
+       one is split. Sub-products below thresholds.karatsuba limbs use the schoolbook product, and those
+       in the Toom-Cook or transform range are handed back to multiply. */
+    static void karatsubaInto (int[] a, int aOff, int aLen, int[] b, int bOff, int bLen,
+                               int[] dst, int dOff, int[] scratch, int sOff, MultiplyThresholds thresholds) {
+        if (aLen < bLen) {                                                      // ensure that a is the longest number
+            int[] t = a; a = b; b = t;
+            int tOff = aOff; aOff = bOff; bOff = tOff;
+            int tLen = aLen; aLen = bLen; bLen = tLen;
+        }
+        int dEnd = dOff + aLen + bLen;
+
+        if (bLen < 4 || bLen < thresholds.karatsuba) {                          // sums of halves would not be shorter below 4 limbs
+            Arrays.fill( dst, dOff, dEnd, 0 );
+            multiplyAccumulateInto( dst, dOff, dEnd, a, aOff, aLen, b, bOff, bLen );
+            return;
+        }
+
+        if (bLen >= thresholds.toom || (bLen >= thresholds.ntt && NumberTheoreticTransform.fits( aLen, bLen ))) {
+            int[] product = multiply( normalize( range( a, aOff, aOff + aLen ) ), normalize( range( b, bOff, bOff + bLen ) ), thresholds );
+            Arrays.fill( dst, dOff, dEnd, 0 );
+            System.arraycopy( product, 0, dst, dOff, Math.min( product.length, aLen + bLen ) );
+            return;
+        }
+
+        int m = (aLen + 1) / 2;
+        int highALen = aLen - m;
+
+        if (bLen <= m) {
+            karatsubaInto( a, aOff, m, b, bOff, bLen, dst, dOff, scratch, sOff, thresholds );
+            Arrays.fill( dst, dOff + m + bLen, dEnd, 0 );
+            int highLen = highALen + bLen;
+            karatsubaInto( a, aOff + m, highALen, b, bOff, bLen, scratch, sOff, scratch, sOff + highLen, thresholds );
+            addInto( dst, dOff + m, dEnd, scratch, sOff, highLen );
+            return;
+        }
+
+        int highBLen = bLen - m;
+        karatsubaInto( a, aOff, m, b, bOff, m, dst, dOff, scratch, sOff, thresholds );                                  // term1 <- la * lb
+        karatsubaInto( a, aOff + m, highALen, b, bOff + m, highBLen, dst, dOff + 2 * m, scratch, sOff, thresholds );    // term2 <- ha * hb
+
+        int sumA = sOff;
+        int sumB = sumA + m + 1;
+        int term3 = sumB + m + 1;
+        int next = term3 + 2 * m + 2;
+
+        System.arraycopy( a, aOff, scratch, sumA, m );
+        scratch[ sumA + m ] = 0;
+        addInto( scratch, sumA, sumA + m + 1, a, aOff + m, highALen );
+        System.arraycopy( b, bOff, scratch, sumB, m );
+        scratch[ sumB + m ] = 0;
+        addInto( scratch, sumB, sumB + m + 1, b, bOff + m, highBLen );
+
+        // term3 <- (la + ha) * (lb + hb) - term1 - term2
+        karatsubaInto( scratch, sumA, m + 1, scratch, sumB, m + 1, scratch, term3, scratch, next, thresholds );
+        subtractInto( scratch, term3, next, dst, dOff, 2 * m );
+        subtractInto( scratch, term3, next, dst, dOff + 2 * m, highALen + highBLen );
+
+        // term3 is below BASE^(aLen + bLen - m), as the whole product fits in aLen + bLen limbs
+        addInto( dst, dOff + m, dEnd, scratch, term3, Math.min( 2 * m + 2, aLen + bLen - m ) );
+    } // end of karatsubaInto
+
+
+    /* Returns base^exponent with left-to-right binary exponentiation: the bits of the exponent are read
+       from the most significant one, squaring the result for every bit and multiplying it by the base for
+       every bit set. Multiplying by a single-limb base is a linear multiplySmall, so the cost is dominated
+       by the squarings, the last of which is the only one of full size.
+
+       Powers of ten are built directly, as they are just a limb shifted in this base. For single-limb
+       bases the cache is looked up first, for the power itself and then for the powers whose exponent is
+       a prefix of the bits of exponent, from the longest prefix down; the exponentiation resumes from
+       the first one found. */
+    static int[] pow (int[] base, int exponent, MultiplyThresholds thresholds) {
+        if (exponent < 0) throw new ArithmeticException( "negative exponent" );
+        if (exponent == 0) return new int[] { 1 };
+        if (base.length == 1 && base[ 0 ] <= 1) return base;
+
+        boolean small = base.length == 1;
+        if (small) {
+            for (int d = 1; d < BASE_DIGITS; d++) {
+                if (base[ 0 ] == POWERS_OF_TEN[ d ] && (long) d * exponent <= Integer.MAX_VALUE) return powerOfTen( d * exponent );
+            }
+        }
+
+        int[] result = base;
+        int bit = 30 - Integer.numberOfLeadingZeros( exponent );       // the bit right below the most significant one
+        if (small) {
+            for (int shift = 0; (exponent >>> shift) > 1; shift++) {
+                int[] cached = PowerCache.get( base[ 0 ], exponent >>> shift );
+                if (cached != null) {
+                    if (shift == 0) return cached;
+                    result = cached;
+                    bit = shift - 1;
+                    break;
+                }
+            }
+        }
+
+        for (; bit >= 0; bit--) {
+            result = square( result, thresholds );
+            if (((exponent >>> bit) & 1) != 0) result = small ? multiplySmall( result, base[ 0 ] ) : multiply( result, base, thresholds );
+        }
+
+        if (small) PowerCache.put( base[ 0 ], exponent, result );
+        return result;
+    } // end of pow
+
+
+    /* Returns the limbs of 10^n */
+    static int[] powerOfTen (int n) {
+        int[] ret = new int[n / BASE_DIGITS + 1];
+        ret[ n / BASE_DIGITS ] = POWERS_OF_TEN[ n % BASE_DIGITS ];
+        return ret;
+    } // end of powerOfTen
+
+
+    /* Writes the square of the aLen limbs of a starting at aOff to dst[dOff] up to but not including
+       dst[dOff + 2 * aLen] with the schoolbook algorithm. Every product a[i] * a[j] with i != j appears
+       twice in the square, so the products with i < j are accumulated once, the result is doubled, and
+       the squares a[i] * a[i] are added on the diagonal: about half the products of multiplySchoolbook. */
+    static void squareSchoolbookInto (int[] a, int aOff, int aLen, int[] dst, int dOff) {
+        int dEnd = dOff + 2 * aLen;
+        Arrays.fill( dst, dOff, dEnd, 0 );
+
+        for (int i = 0; i < aLen - 1; i++) {
+            long ai = a[ aOff + i ];
+            if (ai == 0) continue;
+            long carry = 0;
+            int column = dOff + 2 * i + 1;
+            for (int j = i + 1; j < aLen; j++, column++) {
+                long sumColumn = ai * a[ aOff + j ] + dst[ column ] + carry;
+                carry = sumColumn / BASE;
+                dst[ column ] = (int)( sumColumn - carry * BASE );
+            }
+            dst[ column ] = (int) carry;                    // column i + aLen has not been touched by the previous rows yet
+        }
+
+        long carry = 0;
+        for (int i = 0; i < aLen; i++) {
+            long ai = a[ aOff + i ];
+            int column = dOff + 2 * i;
+
+            long sumColumn = ai * ai + 2L * dst[ column ] + carry;
+            carry = sumColumn / BASE;
+            dst[ column ] = (int)( sumColumn - carry * BASE );
+
+            sumColumn = 2L * dst[ column + 1 ] + carry;
+            carry = sumColumn / BASE;
+            dst[ column + 1 ] = (int)( sumColumn - carry * BASE );
+        }
+    } // end of squareSchoolbookInto
+
+
+    /* Returns a * a, choosing the algorithm from the length of a with the same thresholds as multiply,
+       and timing it in Metrics like multiply does */
+    static int[] square (int[] a, MultiplyThresholds thresholds) {
+        long start = Metrics.start();
+        Metrics.Tier tier;
+        int[] ret;
+        if (a.length >= thresholds.ntt && NumberTheoreticTransform.fits( a.length, a.length )) {
+            tier = Metrics.Tier.NTT;
+            ret = NumberTheoreticTransform.multiply( a, a );
+        } else if (a.length >= thresholds.toom) {
+            tier = Metrics.Tier.TOOM_COOK_3;
+            ret = ToomCook3.square( a, thresholds );
+        } else {
+            tier = a.length < thresholds.karatsuba ? Metrics.Tier.SCHOOLBOOK : Metrics.Tier.KARATSUBA;
+            int[] square = new int[2 * a.length];
+            int[] scratch = a.length < thresholds.karatsuba ? null : new int[karatsubaScratchSize( a.length )];
+            karatsubaSquareInto( a, 0, a.length, square, 0, scratch, 0, thresholds );
+            ret = normalize( square );
+        }
+        if (Metrics.ENABLED) Metrics.tier( tier, a.length, System.nanoTime() - start );
+        return ret;
+    } // end of square
+
+
+    /* Writes the square of the aLen limbs of a starting at aOff to dst[dOff] up to but not including
+       dst[dOff + 2 * aLen] with the Karatsuba recursion, using scratch from scratch[sOff] on like karatsubaInto.
+       With a split into a high part h and a low part l at limb m, the square is
+       h^2 * BASE^2m + ((l + h)^2 - l^2 - h^2) * BASE^m + l^2, so only three squares are needed. */
+    static void karatsubaSquareInto (int[] a, int aOff, int aLen, int[] dst, int dOff, int[] scratch, int sOff,
+                                     MultiplyThresholds thresholds) {
+        if (aLen < 4 || aLen < thresholds.karatsuba) {
+            squareSchoolbookInto( a, aOff, aLen, dst, dOff );
+            return;
+        }
+
+        int dEnd = dOff + 2 * aLen;
+        if (aLen >= thresholds.toom || (aLen >= thresholds.ntt && NumberTheoreticTransform.fits( aLen, aLen ))) {
+            int[] square = square( normalize( range( a, aOff, aOff + aLen ) ), thresholds );
+            Arrays.fill( dst, dOff, dEnd, 0 );
+            System.arraycopy( square, 0, dst, dOff, Math.min( square.length, 2 * aLen ) );
+            return;
+        }
+
+        int m = (aLen + 1) / 2;
+        int highLen = aLen - m;
+        karatsubaSquareInto( a, aOff, m, dst, dOff, scratch, sOff, thresholds );                         // l^2
+        karatsubaSquareInto( a, aOff + m, highLen, dst, dOff + 2 * m, scratch, sOff, thresholds );       // h^2
+
+        int sum = sOff;
+        int middle = sum + m + 1;
+        int next = middle + 2 * m + 2;
+
+        System.arraycopy( a, aOff, scratch, sum, m );
+        scratch[ sum + m ] = 0;
+        addInto( scratch, sum, sum + m + 1, a, aOff + m, highLen );
+
+        // middle <- (l + h)^2 - l^2 - h^2 = 2 l h
+        karatsubaSquareInto( scratch, sum, m + 1, scratch, middle, scratch, next, thresholds );
+        subtractInto( scratch, middle, next, dst, dOff, 2 * m );
+        subtractInto( scratch, middle, next, dst, dOff + 2 * m, 2 * highLen );
+
+        addInto( dst, dOff + m, dEnd, scratch, middle, Math.min( 2 * m + 2, 2 * aLen - m ) );
+    } // end of karatsubaSquareInto
+
+
+    /* Returns the limbs of the number whose decimal digits, most significant first,
+       are digits[start] up to but not including digits[stop] */
+    static int[] fromDigits (byte[] digits, int start, int stop) {
+        return DecimalConversion.toLimbs( digits, start, stop, 0 );
+    } // end of fromDigits
+
+
+    /* Returns the decimal digits of a normalized limb array, most significant first and without leading zeros */
+    static byte[] toDigits (int[] limbs) {
+        return DecimalConversion.fromLimbs( limbs, 0 );
+    } // end of toDigits
+
+}  // end of the PackedLargeInteger class
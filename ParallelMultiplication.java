@@ -0,0 +1,134 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/* This class multiplies limb arrays (see PackedLargeInteger) on several cores.
+
+   At every level, the product picks the same algorithm as the sequential PackedLargeInteger.multiply would,
+   and only spreads the independent parts of that algorithm over the cores, so that it does no more work
+   than the sequential product:
+   - the number-theoretic transform computes its three convolutions, one per prime, at the same time, and
+     splits the loops inside each of them into blocks (see NumberTheoreticTransform.parallelMultiply);
+   - Toom-Cook 3-way computes its five sub-products at the same time;
+   - Karatsuba computes its three sub-products at the same time.
+   The sub-products are tasks of this class again, so they are split further while they are large enough.
+   Forking stops once the shorter operand is below thresholds.parallel limbs: from there on, the product is
+   handed to the sequential PackedLargeInteger.multiply. The additions, subtractions and interpolations are
+   those of the sequential algorithms, so the result is identical to the sequential one. */
+class ParallelMultiplication extends RecursiveTask<int[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] a;
+    private final int[] b;
+    private final MultiplyThresholds thresholds;
+
+
+
+    /* Constructor that creates the task computing a * b */
+    ParallelMultiplication (int[] a, int[] b, MultiplyThresholds thresholds) {
+        this.a = a;
+        this.b = b;
+        this.thresholds = thresholds;
+    }
+
+
+    /* Returns a * b computed on the given pool. The whole product is timed in Metrics as one parallel
+       product, on top of the sequential products it is made of. */
+    static int[] multiply (int[] a, int[] b, MultiplyThresholds thresholds, ForkJoinPool pool) {
+        long start = Metrics.start();
+        int[] ret = pool.invoke( new ParallelMultiplication( a, b, thresholds ) );
+        if (Metrics.ENABLED) Metrics.tier( Metrics.Tier.PARALLEL, Math.min( a.length, b.length ), System.nanoTime() - start );
+        return ret;
+    } // end of multiply
+
+
+    /* Returns a * b computed on the common fork-join pool, which has one worker per core */
+    static int[] multiply (int[] a, int[] b, MultiplyThresholds thresholds) {
+        return multiply( a, b, thresholds, ForkJoinPool.commonPool() );
+    } // end of multiply
+
+
+    protected int[] compute () {
+        int[] a = this.a;
+        int[] b = this.b;
+        if (a.length < b.length) { int[] t = a; a = b; b = t; }     // ensure that a is the longest number
+        int shorter = b.length;
+        if (shorter < Math.max( Math.max( thresholds.parallel, thresholds.karatsuba ), 2 )) return PackedLargeInteger.multiply( a, b, thresholds );
+        if (shorter >= thresholds.ntt && NumberTheoreticTransform.fits( a.length, b.length )) return transform( a, b );
+        if (shorter >= thresholds.toom) return toomCook3( a, b );
+        return karatsuba( a, b );
+    } // end of compute
+
+
+    /* Returns a * b with the number-theoretic transform, whose three convolutions, butterfly stages, pointwise
+       products and recombination are split over the cores of the pool of this task */
+    private static int[] transform (int[] a, int[] b) {
+        return NumberTheoreticTransform.parallelMultiply( a, b );
+    } // end of transform
+
+
+    /* Returns a * b with one level of Toom-Cook 3-way, like ToomCook3.multiply, four of the five sub-products
+       being forked while the current thread computes the fifth one. a must be the longest operand. */
+    private int[] toomCook3 (int[] a, int[] b) {
+        int k = (a.length + 2) / 3;
+        int[] a0 = PackedLargeInteger.range( a, 0, k );
+        int[] a1 = PackedLargeInteger.range( a, k, 2 * k );
+        int[] a2 = PackedLargeInteger.range( a, 2 * k, a.length );
+
+        if (b.length <= k) {
+            ParallelMultiplication p0 = new ParallelMultiplication( a0, b, thresholds );
+            ParallelMultiplication p1 = new ParallelMultiplication( a1, b, thresholds );
+            p0.fork();
+            p1.fork();
+            int[] ret = new ParallelMultiplication( a2, b, thresholds ).compute();
+            ret = PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( ret, k ), p1.join() );
+            return PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( ret, k ), p0.join() );
+        }
+
+        ToomCook3.Signed[] pa = ToomCook3.evaluate( a0, a1, a2 );
+        ToomCook3.Signed[] pb = a == b ? pa : ToomCook3.evaluate( PackedLargeInteger.range( b, 0, k ), PackedLargeInteger.range( b, k, 2 * k ),
+                                                                  PackedLargeInteger.range( b, 2 * k, b.length ) );
+
+        ParallelMultiplication[] r = new ParallelMultiplication[5];
+        for (int i = 0; i < 5; i++) r[ i ] = new ParallelMultiplication( pa[ i ].magnitude, pb[ i ].magnitude, thresholds );
+        for (int i = 1; i < 5; i++) r[ i ].fork();
+        int[] r0 = r[ 0 ].compute();
+        ToomCook3.Signed[] products = new ToomCook3.Signed[5];
+        for (int i = 0; i < 5; i++) products[ i ] = new ToomCook3.Signed( i == 0 ? r0 : r[ i ].join(), pa[ i ].negative != pb[ i ].negative );
+
+        return ToomCook3.interpolate( products[ 0 ], products[ 1 ], products[ 2 ], products[ 3 ], products[ 4 ], k );
+    } // end of toomCook3
+
+
+    /* Returns a * b with one level of Karatsuba, two of the three sub-products (or the low half of an unbalanced
+       split) being forked while the current thread computes the other one. a must be the longest operand. */
+    private int[] karatsuba (int[] a, int[] b) {
+        int m = (a.length + 1) / 2;
+        int[] lowA = PackedLargeInteger.range( a, 0, m );
+        int[] highA = PackedLargeInteger.range( a, m, a.length );
+
+        if (b.length <= m) {
+            ParallelMultiplication low = new ParallelMultiplication( lowA, b, thresholds );
+            low.fork();
+            int[] high = new ParallelMultiplication( highA, b, thresholds ).compute();
+            return PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( high, m ), low.join() );
+        }
+
+        int[] lowB = PackedLargeInteger.range( b, 0, m );
+        int[] highB = PackedLargeInteger.range( b, m, b.length );
+
+        ParallelMultiplication term1 = new ParallelMultiplication( lowA, lowB, thresholds );
+        ParallelMultiplication term2 = new ParallelMultiplication( highA, highB, thresholds );
+        term1.fork();
+        term2.fork();
+        int[] term3 = new ParallelMultiplication( PackedLargeInteger.add( lowA, highA ), PackedLargeInteger.add( lowB, highB ), thresholds ).compute();
+
+        int[] product1 = term1.join();
+        int[] product2 = term2.join();
+        term3 = PackedLargeInteger.subtract( PackedLargeInteger.subtract( term3, product1 ), product2 );
+
+        return PackedLargeInteger.add( PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( product2, 2 * m ),
+                                                               PackedLargeInteger.shiftLimbs( term3, m ) ), product1 );
+    } // end of karatsuba
+
+}  // end of the ParallelMultiplication class
@@ -0,0 +1,62 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* This class keeps the powers computed by PackedLargeInteger.pow, so that asking again for the same
+   power, or for a larger power of the same base, does not start over from the base. Only bases that fit
+   in a single limb are cached, which covers the usual small bases (2, 3, 7, ...).
+
+   The cache is bounded by the total number of limbs it holds, not by its number of entries, since a
+   single power can be far larger than all the others together. When the bound is exceeded, the least
+   recently used powers are dropped first. Powers of ten are never stored: they are built directly,
+   see PackedLargeInteger.powerOfTen. Cached limb arrays are shared, which is safe as long as nobody
+   modifies the limbs of a PackedLargeInteger, like everywhere else in this code. */
+class PowerCache {
+
+    private static final LinkedHashMap<Long, int[]> powers = new LinkedHashMap<>( 16, 0.75f, true );    // access order, for LRU eviction
+    private static long maxLimbs = 1L << 22;                                                           // 16 MB of limbs
+    private static long limbs = 0;
+
+
+
+    /* Returns the limbs of base^exponent if they are in the cache, or null otherwise */
+    static synchronized int[] get (int base, int exponent) {
+        return powers.get( key( base, exponent ) );
+    } // end of get
+
+
+    /* Stores the limbs of base^exponent, dropping the least recently used powers if the cache grows too large */
+    static synchronized void put (int base, int exponent, int[] power) {
+        if (power.length > maxLimbs) return;                    // would evict everything else and still not fit
+
+        int[] previous = powers.put( key( base, exponent ), power );
+        if (previous != null) limbs -= previous.length;
+        limbs += power.length;
+
+        Iterator<Map.Entry<Long, int[]>> eldest = powers.entrySet().iterator();
+        while (limbs > maxLimbs) {
+            limbs -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    } // end of put
+
+
+    /* Sets the maximum total number of limbs held by the cache */
+    public static synchronized void setMaxLimbs (long max) {
+        maxLimbs = max;
+        if (limbs > maxLimbs) clear();
+    } // end of setMaxLimbs
+
+
+    /* Removes every power from the cache */
+    public static synchronized void clear () {
+        powers.clear();
+        limbs = 0;
+    } // end of clear
+
+
+    private static Long key (int base, int exponent) {
+        return ((long) base << 32) | (exponent & 0xffffffffL);
+    } // end of key
+
+}  // end of the PowerCache class
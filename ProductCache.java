@@ -0,0 +1,238 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/* This class remembers the results of LargeInteger.multiply, square and pow, so that multiplying the same
+   operands again (fixed coefficients, shared prefixes, ...) is a lookup in a map instead of a product.
+   Operands are found by value: LargeInteger.hashCode is computed once per number and then kept, and two
+   numbers with the same digits hit the same entry even if they are different objects. multiply(a, b) and
+   multiply(b, a) share their entry.
+
+   The cache is off unless the program runs with -DproductCache=<digits>, or setMaxDigits is called with a
+   positive number. Like PowerCache, it is bounded by the total number of digits it holds (operands and
+   results), not by its number of entries, and drops the least recently used entries first.
+
+   To let threads use it at the same time, the entries are spread over STRIPES independent maps by hash,
+   each with its own lock and a share of the bound, so that two threads only wait for each other when
+   their operands fall in the same stripe. Results and operands are shared, not copied, which is safe as
+   long as nobody modifies the digits of a LargeInteger, like everywhere else in this code. */
+class ProductCache {
+
+    static final int STRIPES = 16;
+
+    private enum Kind { MULTIPLY, SQUARE, POW }
+
+    private static final Stripe[] stripes = new Stripe[STRIPES];
+    static {
+        for (int i = 0; i < STRIPES; i++) stripes[ i ] = new Stripe();
+    }
+
+    private static volatile long maxDigits = Long.getLong( "productCache", 0 );
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+
+
+    /* Returns true if results are being cached */
+    static boolean isEnabled () {
+        return maxDigits > 0;
+    } // end of isEnabled
+
+
+    /* Returns a * b if it is in the cache, or null otherwise (always null if the cache is off) */
+    static LargeInteger product (LargeInteger a, LargeInteger b) {
+        return isEnabled() ? get( new Key( Kind.MULTIPLY, a, b, 0 ) ) : null;
+    } // end of product
+
+
+    /* Stores product as a * b and returns it */
+    static LargeInteger putProduct (LargeInteger a, LargeInteger b, LargeInteger product) {
+        if (isEnabled()) put( new Key( Kind.MULTIPLY, a, b, 0 ), product );
+        return product;
+    } // end of putProduct
+
+
+    /* Returns a * a if it is in the cache, or null otherwise */
+    static LargeInteger square (LargeInteger a) {
+        return isEnabled() ? get( new Key( Kind.SQUARE, a, null, 0 ) ) : null;
+    } // end of square
+
+
+    /* Stores square as a * a and returns it */
+    static LargeInteger putSquare (LargeInteger a, LargeInteger square) {
+        if (isEnabled()) put( new Key( Kind.SQUARE, a, null, 0 ), square );
+        return square;
+    } // end of putSquare
+
+
+    /* Returns a^exponent if it is in the cache, or null otherwise */
+    static LargeInteger power (LargeInteger a, int exponent) {
+        return isEnabled() ? get( new Key( Kind.POW, a, null, exponent ) ) : null;
+    } // end of power
+
+
+    /* Stores power as a^exponent and returns it */
+    static LargeInteger putPower (LargeInteger a, int exponent, LargeInteger power) {
+        if (isEnabled()) put( new Key( Kind.POW, a, null, exponent ), power );
+        return power;
+    } // end of putPower
+
+
+    /* Sets the maximum total number of digits held by the cache; 0 turns it off and empties it */
+    public static void setMaxDigits (long max) {
+        maxDigits = Math.max( max, 0 );
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.evict( maxDigits / STRIPES );
+            }
+        }
+    } // end of setMaxDigits
+
+
+    /* Removes every entry from the cache and sets the statistics back to zero */
+    public static void clear () {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+                stripe.digits = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    } // end of clear
+
+
+    /* Returns the number of lookups that found their result */
+    public static long hits () {
+        return hits.sum();
+    } // end of hits
+
+
+    /* Returns the number of lookups that did not find their result */
+    public static long misses () {
+        return misses.sum();
+    } // end of misses
+
+
+    /* Returns the number of entries dropped to stay within the bound */
+    public static long evictions () {
+        return evictions.sum();
+    } // end of evictions
+
+
+    /* Returns the total number of digits held by the cache */
+    public static long digits () {
+        long ret = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                ret += stripe.digits;
+            }
+        }
+        return ret;
+    } // end of digits
+
+
+    private static LargeInteger get (Key key) {
+        Stripe stripe = stripe( key );
+        LargeInteger ret;
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get( key );
+            ret = entry == null ? null : entry.result;
+        }
+        (ret == null ? misses : hits).increment();
+        return ret;
+    } // end of get
+
+
+    private static void put (Key key, LargeInteger result) {
+        long max = maxDigits / STRIPES;
+        Entry entry = new Entry( result, key.weight() + result.digits.length );
+        if (entry.weight > max) return;                          // would evict everything else in its stripe and still not fit
+
+        Stripe stripe = stripe( key );
+        synchronized (stripe) {
+            Entry previous = stripe.entries.put( key, entry );
+            if (previous != null) stripe.digits -= previous.weight;
+            stripe.digits += entry.weight;
+            stripe.evict( max );
+        }
+    } // end of put
+
+
+    private static Stripe stripe (Key key) {
+        int h = key.hash;
+        return stripes[ (h ^ (h >>> 16)) & (STRIPES - 1) ];
+    } // end of stripe
+
+
+
+    /* One of the independent maps, in access order for LRU eviction, with the number of digits it holds */
+    private static final class Stripe {
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+        long digits = 0;
+
+        /* Drops the least recently used entries until the stripe holds at most max digits. The caller holds the lock. */
+        void evict (long max) {
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (digits > max) {
+                digits -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        } // end of evict
+    }
+
+
+    /* A cached result with its weight: the number of digits of the result and of the operands it keeps alive */
+    private static final class Entry {
+        final LargeInteger result;
+        final long weight;
+
+        Entry (LargeInteger result, long weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+
+    /* An operation and its operands, compared by value. The hash of a product does not depend on the order of its operands. */
+    private static final class Key {
+        final Kind kind;
+        final LargeInteger a;
+        final LargeInteger b;                                   // null unless kind is MULTIPLY
+        final int exponent;                                     // 0 unless kind is POW
+        final int hash;
+
+        Key (Kind kind, LargeInteger a, LargeInteger b, int exponent) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+            this.exponent = exponent;
+            int h = a.hashCode() + (b == null ? 0 : b.hashCode());
+            this.hash = (h * 31 + kind.ordinal()) * 31 + exponent;
+        }
+
+        long weight () {
+            return a.digits.length + (b == null ? 0 : b.digits.length);
+        }
+
+        @Override
+        public int hashCode () {
+            return hash;
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            if (hash != other.hash || kind != other.kind || exponent != other.exponent) return false;
+            if (kind != Kind.MULTIPLY) return a.equals( other.a );
+            return (a.equals( other.a ) && b.equals( other.b )) || (a.equals( other.b ) && b.equals( other.a ));
+        }
+    }
+
+}  // end of the ProductCache class
@@ -0,0 +1,161 @@
+/* This class multiplies many numbers together, and computes factorials and binomial coefficients, on
+   limb arrays (see PackedLargeInteger).
+
+   Folding a product from left to right multiplies an ever growing accumulator by small numbers, so
+   every step is a very unbalanced product and the fast multiplication tiers never get to work. A product
+   tree multiplies the factors pairwise instead, then the pairwise products pairwise, and so on: the two
+   operands of every product have about the same size, and the largest products, which dominate the cost,
+   are the balanced ones that Karatsuba, Toom-Cook and the transform are made for. Factors that fit in a
+   limb are first multiplied together while their product still fits in one limb.
+
+   n! is computed with Luschny's prime swing: n! = ((n/2)!)^2 * swing(n), where swing(n) = n! / ((n/2)!)^2
+   is a product of prime powers that can be read directly from n, without any division. The binomial
+   coefficient C(n, k) is likewise a product of prime powers, whose exponents are given by Legendre's formula.
+   Both products go through the product tree. */
+class ProductTree {
+
+    /* Below this, factorials are computed in a long */
+    static final int SMALL_FACTORIAL = 20;
+
+
+
+    /* Returns the product of all the factors, or 1 if there are none */
+    static int[] product (int[][] factors, MultiplyThresholds thresholds) {
+        if (factors.length == 0) return new int[] { 1 };
+
+        // multiply together neighbouring factors of one limb as long as their product fits in a limb
+        int[][] packed = new int[factors.length + 1][];
+        int count = 0;
+        long limb = 1;
+        for (int[] factor : factors) {
+            if (factor.length == 1 && limb * factor[ 0 ] < PackedLargeInteger.BASE) {
+                limb *= factor[ 0 ];
+            } else if (factor.length == 1) {
+                packed[ count++ ] = new int[] { (int) limb };
+                limb = factor[ 0 ];
+            } else {
+                packed[ count++ ] = factor;
+            }
+        }
+        packed[ count++ ] = new int[] { (int) limb };
+
+        long[] lengths = new long[count + 1];            // lengths[i] is the number of limbs of the factors before i
+        for (int i = 0; i < count; i++) lengths[ i + 1 ] = lengths[ i ] + packed[ i ].length;
+        return product( packed, lengths, 0, count, thresholds );
+    } // end of product
+
+
+    /* Returns the product of the values, each of them between 0 and Long.MAX_VALUE */
+    static int[] product (long[] values, int count, MultiplyThresholds thresholds) {
+        int[][] factors = new int[count][];
+        for (int i = 0; i < count; i++) factors[ i ] = limbs( values[ i ] );
+        return product( factors, thresholds );
+    } // end of product
+
+
+    /* Returns n!, for n >= 0 */
+    static int[] factorial (int n, MultiplyThresholds thresholds) {
+        if (n < 0) throw new ArithmeticException( "factorial of a negative number" );
+        return factorial( n, sieve( n ), thresholds );
+    } // end of factorial
+
+
+    /* Returns the binomial coefficient C(n, k), the number of ways to choose k elements out of n,
+       or 0 if k < 0 or k > n. The exponent of a prime p in C(n, k) is the sum over the powers q of p of
+       floor(n / q) - floor(k / q) - floor((n - k) / q), each term being 0 or 1. */
+    static int[] binomial (int n, int k, MultiplyThresholds thresholds) {
+        if (n < 0) throw new ArithmeticException( "binomial coefficient of a negative number" );
+        if (k < 0 || k > n) return new int[] { 0 };
+        k = Math.min( k, n - k );
+
+        boolean[] composite = sieve( n );
+        long[] powers = new long[n / 2 + 2];
+        int count = 0;
+        for (int p = 2; p <= n; p++) {
+            if (composite[ p ]) continue;
+            if (p > n - k) {                                  // every prime above n - k divides C(n, k) once
+                powers[ count++ ] = p;
+                continue;
+            }
+            long power = 1;
+            for (long q = p; q <= n; q *= p) {
+                if (n / q - k / q - (n - k) / q == 1) power *= p;
+            }
+            if (power > 1) powers[ count++ ] = power;
+        }
+        return product( powers, count, thresholds );
+    } // end of binomial
+
+
+    /* Returns the product of factors[from] up to but not including factors[to], split where half of their limbs are on
+       either side, so that the two sub-products are about the same size */
+    private static int[] product (int[][] factors, long[] lengths, int from, int to, MultiplyThresholds thresholds) {
+        if (to - from == 1) return factors[ from ];
+        if (to - from == 2) return PackedLargeInteger.multiply( factors[ from ], factors[ from + 1 ], thresholds );
+        Cancellation.check();
+
+        long half = (lengths[ from ] + lengths[ to ]) / 2;
+        int mid = from + 1;
+        while (mid < to - 1 && lengths[ mid + 1 ] <= half) mid++;
+        return PackedLargeInteger.multiply( product( factors, lengths, from, mid, thresholds ),
+                                            product( factors, lengths, mid, to, thresholds ), thresholds );
+    } // end of product
+
+
+    /* Returns n! = ((n/2)!)^2 * swing(n), composite being a sieve up to at least n */
+    private static int[] factorial (int n, boolean[] composite, MultiplyThresholds thresholds) {
+        if (n <= SMALL_FACTORIAL) {
+            long ret = 1;
+            for (int i = 2; i <= n; i++) ret *= i;
+            return limbs( ret );
+        }
+        int[] half = factorial( n / 2, composite, thresholds );
+        return PackedLargeInteger.multiply( PackedLargeInteger.square( half, thresholds ), swing( n, composite, thresholds ), thresholds );
+    } // end of factorial
+
+
+    /* Returns swing(n) = n! / ((n/2)!)^2. The exponent of a prime p in it is the number of odd floor(n / p^i),
+       i >= 1, which is 1 for the primes above n/2, 0 for those above n/3, and floor(n / p) mod 2 for those
+       above the square root of n, whose square is above n. */
+    private static int[] swing (int n, boolean[] composite, MultiplyThresholds thresholds) {
+        long[] powers = new long[n / 2 + 2];
+        int count = 0;
+        int root = (int) Math.sqrt( n );
+        for (int p = 2; p <= n; p++) {
+            if (composite[ p ]) continue;
+            if (p > n / 2) {
+                powers[ count++ ] = p;
+            } else if (p > root) {
+                if (((n / p) & 1) == 1) powers[ count++ ] = p;
+            } else {
+                long power = 1;
+                for (int q = n / p; q > 0; q /= p) {
+                    if ((q & 1) == 1) power *= p;
+                }
+                if (power > 1) powers[ count++ ] = power;
+            }
+        }
+        return product( powers, count, thresholds );
+    } // end of swing
+
+
+    /* Returns the sieve of Eratosthenes up to n: composite[i] is false for the primes, and for 0 and 1 */
+    private static boolean[] sieve (int n) {
+        boolean[] composite = new boolean[n + 1];
+        for (long i = 2; i * i <= n; i++) {
+            if (composite[ (int) i ]) continue;
+            for (long j = i * i; j <= n; j += i) composite[ (int) j ] = true;
+        }
+        return composite;
+    } // end of sieve
+
+
+    /* Returns the limbs of value, for 0 <= value */
+    private static int[] limbs (long value) {
+        if (value < PackedLargeInteger.BASE) return new int[] { (int) value };
+        long high = value / PackedLargeInteger.BASE;
+        if (high < PackedLargeInteger.BASE) return new int[] { (int)( value % PackedLargeInteger.BASE ), (int) high };
+        return new int[] { (int)( value % PackedLargeInteger.BASE ), (int)( high % PackedLargeInteger.BASE ), (int)( high / PackedLargeInteger.BASE ) };
+    } // end of limbs
+
+}  // end of the ProductTree class
@@ -0,0 +1,116 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/* This class generates random numbers of a given number of digits, for benchmarks and tests.
+
+   Instead of drawing every digit on its own, it draws whole limbs: one bounded random long gives 18
+   decimal digits at once (two limbs of PackedLargeInteger), without any floating point. The digits of a
+   LargeInteger are then spread from the limbs eight at a time (see DecimalConversion). The most
+   significant digit is drawn between 1 and 9, so no draw has to be rejected and redone.
+
+   A RandomOperands is seeded, so the same seed always gives the same operands. Batches are generated in
+   parallel: every operand of a batch gets its own generator split from this one, in order, before any
+   of them runs, so a batch does not depend on the number of threads either, and the threads never share
+   a generator. A RandomOperands itself is not thread-safe, like SplittableRandom. */
+class RandomOperands {
+
+    private static final long TWO_LIMBS = (long) PackedLargeInteger.BASE * PackedLargeInteger.BASE;      // 10^18
+
+    private final SplittableRandom random;
+
+
+
+    /* Constructor for a generator whose operands are entirely determined by seed */
+    RandomOperands (long seed) {
+        random = new SplittableRandom( seed );
+    }
+
+
+    /* Constructor for an unseeded generator */
+    RandomOperands () {
+        random = new SplittableRandom();
+    }
+
+
+    private RandomOperands (SplittableRandom random) {
+        this.random = random;
+    }
+
+
+    /* Returns a random LargeInteger of exactly n digits */
+    LargeInteger nextLargeInteger (int n) {
+        return toLargeInteger( randomLimbs( random, n ) );
+    } // end of nextLargeInteger
+
+
+    /* Returns a random PackedLargeInteger of exactly n digits */
+    PackedLargeInteger nextPacked (int n) {
+        return new PackedLargeInteger( randomLimbs( random, n ) );
+    } // end of nextPacked
+
+
+    /* Returns count random LargeIntegers of exactly n digits each, generated in parallel */
+    LargeInteger[] nextLargeIntegers (int count, int n) {
+        SplittableRandom[] streams = split( count );
+        LargeInteger[] ret = new LargeInteger[count];
+        IntStream.range( 0, count ).parallel().forEach( i -> ret[ i ] = toLargeInteger( randomLimbs( streams[ i ], n ) ) );
+        return ret;
+    } // end of nextLargeIntegers
+
+
+    /* Returns count random PackedLargeIntegers of exactly n digits each, generated in parallel */
+    PackedLargeInteger[] nextPackedIntegers (int count, int n) {
+        SplittableRandom[] streams = split( count );
+        PackedLargeInteger[] ret = new PackedLargeInteger[count];
+        IntStream.range( 0, count ).parallel().forEach( i -> ret[ i ] = new PackedLargeInteger( randomLimbs( streams[ i ], n ) ) );
+        return ret;
+    } // end of nextPackedIntegers
+
+
+    /* Returns a new generator split from this one, for another thread */
+    RandomOperands split () {
+        return new RandomOperands( random.split() );
+    } // end of split
+
+
+    /* Returns the normalized limbs of a random number of exactly n digits, or of zero if n is 0, drawn from
+       random. Limbs are drawn two at a time as a long below 10^18, and the most significant limb between
+       10^(d - 1) and 10^d - 1, where d is its number of digits. */
+    static int[] randomLimbs (RandomGenerator random, int n) {
+        if (n == 0) return new int[] { 0 };
+        int nbLimbs = (n + PackedLargeInteger.BASE_DIGITS - 1) / PackedLargeInteger.BASE_DIGITS;
+        int[] limbs = new int[nbLimbs];
+
+        int i = 0;
+        for (; i + 2 < nbLimbs; i += 2) {
+            long twoLimbs = random.nextLong( TWO_LIMBS );
+            limbs[ i ] = (int)( twoLimbs % PackedLargeInteger.BASE );
+            limbs[ i + 1 ] = (int)( twoLimbs / PackedLargeInteger.BASE );
+        }
+        for (; i < nbLimbs - 1; i++) limbs[ i ] = random.nextInt( PackedLargeInteger.BASE );
+
+        int topDigits = n - (nbLimbs - 1) * PackedLargeInteger.BASE_DIGITS;
+        int low = PackedLargeInteger.POWERS_OF_TEN[ topDigits - 1 ];
+        int high = topDigits == PackedLargeInteger.BASE_DIGITS ? PackedLargeInteger.BASE : PackedLargeInteger.POWERS_OF_TEN[ topDigits ];
+        limbs[ nbLimbs - 1 ] = random.nextInt( low, high );
+        return limbs;
+    } // end of randomLimbs
+
+
+    /* Returns the LargeInteger whose digits are those of limbs */
+    static LargeInteger toLargeInteger (int[] limbs) {
+        LargeInteger ret = new LargeInteger( 0 );
+        ret.digits = DecimalConversion.fromLimbs( limbs, 0 );
+        return ret;
+    } // end of toLargeInteger
+
+
+    /* Returns count generators split from this one, in order */
+    private SplittableRandom[] split (int count) {
+        SplittableRandom[] ret = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) ret[ i ] = random.split();
+        return ret;
+    } // end of split
+
+}  // end of the RandomOperands class
@@ -0,0 +1,149 @@
+/* This class multiplies limb arrays (see PackedLargeInteger) with the Toom-Cook 3-way algorithm.
+
+   Each operand is split into three parts of k limbs, which are seen as the coefficients of a
+   polynomial of degree 2 evaluated at x = BASE^k. The product polynomial has degree 4, so it is
+   determined by its values at five points. We use 0, 1, -1, -2 and infinity, which only need
+   additions, doublings and exact divisions by 2 and 3 (Bodrato's sequence), and five products of
+   k-limb numbers instead of the nine of the schoolbook split. The five sub-products are handed back
+   to PackedLargeInteger.multiply, so small ones end up in Karatsuba or in the schoolbook product. */
+class ToomCook3 {
+
+    /* Values at -1 and -2 can be negative, so the evaluation and interpolation steps work on
+       signed numbers: a limb array holding the magnitude, and a sign. Zero is never negative. */
+    static final class Signed {
+        final int[] magnitude;
+        final boolean negative;
+
+        Signed (int[] magnitude, boolean negative) {
+            this.magnitude = magnitude;
+            this.negative = negative && !isZero( magnitude );
+        }
+    }
+
+
+
+    /* Returns a * b with one level of Toom-Cook 3-way. Like recursiveFastMultiplication, the operands
+       are swapped so that a is the longest one and is split into three parts of k limbs. If b is not
+       longer than k, it is not split at all, and a's three parts are multiplied by b separately. */
+    static int[] multiply (int[] a, int[] b, MultiplyThresholds thresholds) {
+        if (a.length < b.length) { int[] t = a; a = b; b = t; }     // ensure that a is the longest number
+        if (a.length < 3) return PackedLargeInteger.multiplySchoolbook( a, b );
+
+        int k = (a.length + 2) / 3;
+        int[] a0 = PackedLargeInteger.range( a, 0, k );
+        int[] a1 = PackedLargeInteger.range( a, k, 2 * k );
+        int[] a2 = PackedLargeInteger.range( a, 2 * k, a.length );
+
+        if (b.length <= k) {
+            int[] ret = PackedLargeInteger.multiply( a2, b, thresholds );
+            ret = PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( ret, k ), PackedLargeInteger.multiply( a1, b, thresholds ) );
+            return PackedLargeInteger.add( PackedLargeInteger.shiftLimbs( ret, k ), PackedLargeInteger.multiply( a0, b, thresholds ) );
+        }
+
+        int[] b0 = PackedLargeInteger.range( b, 0, k );
+        int[] b1 = PackedLargeInteger.range( b, k, 2 * k );
+        int[] b2 = PackedLargeInteger.range( b, 2 * k, b.length );
+
+        // evaluation at 0, 1, -1, -2 and infinity
+        Signed[] pa = evaluate( a0, a1, a2 );
+        Signed[] pb = evaluate( b0, b1, b2 );
+
+        Signed r0 = multiply( pa[ 0 ], pb[ 0 ], thresholds );
+        Signed r1 = multiply( pa[ 1 ], pb[ 1 ], thresholds );
+        Signed rMinus1 = multiply( pa[ 2 ], pb[ 2 ], thresholds );
+        Signed rMinus2 = multiply( pa[ 3 ], pb[ 3 ], thresholds );
+        Signed rInfinity = multiply( pa[ 4 ], pb[ 4 ], thresholds );
+
+        return interpolate( r0, r1, rMinus1, rMinus2, rInfinity, k );
+    } // end of multiply
+
+
+    /* Returns a * a with one level of Toom-Cook 3-way. a is evaluated once, and the five values are
+       squared instead of multiplied, which lets every tier below use its squaring variant. */
+    static int[] square (int[] a, MultiplyThresholds thresholds) {
+        if (a.length < 3) return PackedLargeInteger.multiplySchoolbook( a, a );
+
+        int k = (a.length + 2) / 3;
+        Signed[] p = evaluate( PackedLargeInteger.range( a, 0, k ), PackedLargeInteger.range( a, k, 2 * k ),
+                               PackedLargeInteger.range( a, 2 * k, a.length ) );
+
+        return interpolate( square( p[ 0 ], thresholds ), square( p[ 1 ], thresholds ), square( p[ 2 ], thresholds ),
+                            square( p[ 3 ], thresholds ), square( p[ 4 ], thresholds ), k );
+    } // end of square
+
+
+    /* Returns the values at 0, 1, -1, -2 and infinity of the polynomial m0 + m1 x + m2 x^2 */
+    static Signed[] evaluate (int[] m0, int[] m1, int[] m2) {
+        Signed p = positive( PackedLargeInteger.add( m0, m2 ) );
+        Signed pMinus1 = subtract( p, positive( m1 ) );
+        Signed t = add( pMinus1, positive( m2 ) );
+        Signed pMinus2 = subtract( add( t, t ), positive( m0 ) );          // (p(-1) + m2) * 2 - m0
+
+        return new Signed[] { positive( m0 ), add( p, positive( m1 ) ), pMinus1, pMinus2, positive( m2 ) };
+    } // end of evaluate
+
+
+    /* Returns the limbs of the product polynomial r0 + r1 x + r2 x^2 + r3 x^3 + r4 x^4 at x = BASE^k,
+       given its values at 0, 1, -1, -2 and infinity. Every coefficient is a sum of products of
+       non-negative parts, so none of them can be negative once the interpolation is complete. */
+    static int[] interpolate (Signed r0, Signed r1, Signed rMinus1, Signed rMinus2, Signed rInfinity, int k) {
+        Signed c3 = divideExact( subtract( rMinus2, r1 ), 3 );
+        Signed c1 = divideExact( subtract( r1, rMinus1 ), 2 );
+        Signed c2 = subtract( rMinus1, r0 );
+        c3 = add( divideExact( subtract( c2, c3 ), 2 ), add( rInfinity, rInfinity ) );
+        c2 = subtract( add( c2, c1 ), rInfinity );
+        c1 = subtract( c1, c3 );
+
+        int[] ret = PackedLargeInteger.shiftLimbs( rInfinity.magnitude, k );
+        ret = PackedLargeInteger.shiftLimbs( PackedLargeInteger.add( ret, c3.magnitude ), k );
+        ret = PackedLargeInteger.shiftLimbs( PackedLargeInteger.add( ret, c2.magnitude ), k );
+        ret = PackedLargeInteger.shiftLimbs( PackedLargeInteger.add( ret, c1.magnitude ), k );
+        return PackedLargeInteger.add( ret, r0.magnitude );
+    } // end of interpolate
+
+
+    /* Returns the non-negative number whose limbs are magnitude */
+    static Signed positive (int[] magnitude) {
+        return new Signed( magnitude, false );
+    } // end of positive
+
+
+    /* Returns x + y */
+    static Signed add (Signed x, Signed y) {
+        if (x.negative == y.negative) return new Signed( PackedLargeInteger.add( x.magnitude, y.magnitude ), x.negative );
+        if (PackedLargeInteger.compare( x.magnitude, y.magnitude ) >= 0)
+            return new Signed( PackedLargeInteger.subtract( x.magnitude, y.magnitude ), x.negative );
+        return new Signed( PackedLargeInteger.subtract( y.magnitude, x.magnitude ), y.negative );
+    } // end of add
+
+
+    /* Returns x - y */
+    static Signed subtract (Signed x, Signed y) {
+        return add( x, new Signed( y.magnitude, !y.negative ) );
+    } // end of subtract
+
+
+    /* Returns x * y */
+    static Signed multiply (Signed x, Signed y, MultiplyThresholds thresholds) {
+        return new Signed( PackedLargeInteger.multiply( x.magnitude, y.magnitude, thresholds ), x.negative != y.negative );
+    } // end of multiply
+
+
+    /* Returns x * x, which is never negative */
+    static Signed square (Signed x, MultiplyThresholds thresholds) {
+        return positive( PackedLargeInteger.square( x.magnitude, thresholds ) );
+    } // end of square
+
+
+    /* Returns x / d. Assumption: d divides x. */
+    static Signed divideExact (Signed x, int d) {
+        return new Signed( PackedLargeInteger.divideSmall( x.magnitude, d ), x.negative );
+    } // end of divideExact
+
+
+    /* Returns true if the normalized limb array a is zero */
+    static boolean isZero (int[] a) {
+        return a.length == 1 && a[ 0 ] == 0;
+    } // end of isZero
+
+}  // end of the ToomCook3 class
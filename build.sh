@@ -0,0 +1,12 @@
+#!/bin/sh
+# Compiles every class to the directory given as argument (classes by default). VectorKernels uses the
+# incubating Vector API, which javac only sees with --add-modules jdk.incubator.vector, so it is compiled in
+# a second step against the others; a JDK without the module simply leaves it out. Run with
+#   java -cp classes --add-modules jdk.incubator.vector TestLargeInteger
+# to use it, or without --add-modules to use the scalar loops (see ColumnKernels).
+set -e
+out=${1:-classes}
+cd "$(dirname "$0")"
+javac -d "$out" *.java
+javac -d "$out" -cp "$out" --add-modules jdk.incubator.vector vector/VectorKernels.java \
+    || echo "VectorKernels not compiled: the scalar loops will be used" >&2
@@ -0,0 +1,169 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/* This class holds the additions, subtractions and comparisons of PackedLargeInteger (limbs) and LargeInteger
+   (digits) written with the Vector API, which handles a whole vector of limbs or digits per instruction:
+   16 limbs or 64 digits with AVX-512.
+
+   A carry depends on the column below it, so it can not simply be computed lane by lane. Each block is done
+   in two passes instead. The first one sums the columns without carries, and tells which columns generate a
+   carry (they reach the base) and which ones propagate the carry they receive (they are at base - 1). The
+   second one resolves the carries of the whole block at once, as a carry-lookahead adder would: with one bit
+   per column in a long, adding the generating and propagating columns to the generating ones carries exactly
+   like the digits do, so the bits that flip are the columns that receive a carry. Those get 1 added, and
+   the base is subtracted wherever that reaches the base. There is no branch in the loop. Subtraction works
+   the same with borrows, and comparisons look for the highest differing lane of a whole block at once.
+
+   jdk.incubator.vector is an incubator module: this class only compiles with --add-modules jdk.incubator.vector,
+   after the other classes (see build.sh), and only loads when the program runs with the module too.
+   PackedLargeInteger creates it by name, through ColumnKernels, and PackedLargeInteger.VECTOR_KERNELS tells
+   whether it did; otherwise the scalar loops of PackedLargeInteger and LargeInteger are used. */
+final class VectorKernels implements ColumnKernels {
+
+    static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    private static final IntVector LIMB_BASE = IntVector.broadcast( INTS, PackedLargeInteger.BASE );
+    private static final IntVector LIMB_TOP = IntVector.broadcast( INTS, PackedLargeInteger.BASE - 1 );
+    private static final ByteVector TEN = ByteVector.broadcast( BYTES, (byte) 10 );
+    private static final ByteVector NINE = ByteVector.broadcast( BYTES, (byte) 9 );
+
+
+
+    /* Constructor, called by PackedLargeInteger through reflection */
+    public VectorKernels () {
+    }
+
+
+
+    /* Returns the number of limbs in a vector */
+    @Override
+    public int lanes () {
+        return INTS.length();
+    } // end of lanes
+
+
+    /* Writes the sum of the length limbs of a from aOff and of b from bOff, plus carry, to dst from dOff,
+       and returns the carry out of the last limb. dst may be a or b, at the same offset. */
+    @Override
+    public int add (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int carry) {
+        int lanes = INTS.length();
+        int i = 0;
+        for (int upper = INTS.loopBound( length ); i < upper; i += lanes) {
+            IntVector sum = IntVector.fromArray( INTS, a, aOff + i ).add( IntVector.fromArray( INTS, b, bOff + i ) );
+            long generate = sum.compare( VectorOperators.GE, LIMB_BASE ).toLong();          // bit k is limb k of the block
+            long propagate = sum.compare( VectorOperators.EQ, LIMB_TOP ).toLong();
+            long carries = lookahead( generate, propagate, carry );
+
+            IntVector column = sum.add( 1, VectorMask.fromLong( INTS, carries ) );
+            column.sub( LIMB_BASE, column.compare( VectorOperators.GE, LIMB_BASE ) ).intoArray( dst, dOff + i );
+            carry = carryOut( generate, propagate, carries, lanes );
+        }
+        return PackedLargeInteger.addColumnsScalar( a, aOff + i, b, bOff + i, dst, dOff + i, length - i, carry );
+    } // end of add
+
+
+    /* Writes the length limbs of a from aOff minus those of b from bOff, minus borrow, to dst from dOff, and
+       returns the borrow out of the last limb. dst may be a or b, at the same offset. */
+    @Override
+    public int subtract (int[] a, int aOff, int[] b, int bOff, int[] dst, int dOff, int length, int borrow) {
+        int lanes = INTS.length();
+        int i = 0;
+        for (int upper = INTS.loopBound( length ); i < upper; i += lanes) {
+            IntVector difference = IntVector.fromArray( INTS, a, aOff + i ).sub( IntVector.fromArray( INTS, b, bOff + i ) );
+            long generate = difference.compare( VectorOperators.LT, 0 ).toLong();
+            long propagate = difference.compare( VectorOperators.EQ, 0 ).toLong();
+            long borrows = lookahead( generate, propagate, borrow );
+
+            IntVector column = difference.sub( 1, VectorMask.fromLong( INTS, borrows ) );
+            column.add( LIMB_BASE, column.compare( VectorOperators.LT, 0 ) ).intoArray( dst, dOff + i );
+            borrow = carryOut( generate, propagate, borrows, lanes );
+        }
+        return PackedLargeInteger.subtractColumnsScalar( a, aOff + i, b, bOff + i, dst, dOff + i, length - i, borrow );
+    } // end of subtract
+
+
+    /* Returns the highest index below length at which a and b differ, or -1 if their first length limbs are equal */
+    @Override
+    public int lastMismatch (int[] a, int[] b, int length) {
+        int lanes = INTS.length();
+        int i = length - lanes;
+        for (; i >= 0; i -= lanes) {
+            VectorMask<Integer> different = IntVector.fromArray( INTS, a, i ).compare( VectorOperators.NE, IntVector.fromArray( INTS, b, i ) );
+            if (different.anyTrue()) return i + different.lastTrue();
+        }
+        for (int j = i + lanes - 1; j >= 0; j--) {
+            if (a[ j ] != b[ j ]) return j;
+        }
+        return -1;
+    } // end of lastMismatch
+
+
+    /* Writes the sum of the length digits of a that end right before aEnd and of those of b that end right before
+       bEnd, plus carry, to the length digits of dst that end right before dEnd, and returns the carry out of the
+       most significant digit. Digits are stored most significant first, so the blocks go from the end down, and
+       the lanes of a block are reversed into columns (see columns). dst may be a or b, with the same end. */
+    @Override
+    public int addDigits (byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int carry) {
+        int lanes = BYTES.length();
+        int i = 0;
+        for (int upper = BYTES.loopBound( length ); i < upper; i += lanes) {
+            ByteVector sum = ByteVector.fromArray( BYTES, a, aEnd - i - lanes ).add( ByteVector.fromArray( BYTES, b, bEnd - i - lanes ) );
+            long generate = columns( sum.compare( VectorOperators.GE, TEN ).toLong(), lanes );
+            long propagate = columns( sum.compare( VectorOperators.EQ, NINE ).toLong(), lanes );
+            long carries = lookahead( generate, propagate, carry );
+
+            ByteVector column = sum.add( (byte) 1, VectorMask.fromLong( BYTES, columns( carries, lanes ) ) );
+            column.sub( TEN, column.compare( VectorOperators.GE, TEN ) ).intoArray( dst, dEnd - i - lanes );
+            carry = carryOut( generate, propagate, carries, lanes );
+        }
+        return LargeInteger.addColumnsScalar( a, aEnd - i, b, bEnd - i, dst, dEnd - i, length - i, carry );
+    } // end of addDigits
+
+
+    /* Like addDigits, but writes a minus b minus borrow, and returns the borrow out of the most significant digit */
+    @Override
+    public int subtractDigits (byte[] a, int aEnd, byte[] b, int bEnd, byte[] dst, int dEnd, int length, int borrow) {
+        int lanes = BYTES.length();
+        int i = 0;
+        for (int upper = BYTES.loopBound( length ); i < upper; i += lanes) {
+            ByteVector difference = ByteVector.fromArray( BYTES, a, aEnd - i - lanes ).sub( ByteVector.fromArray( BYTES, b, bEnd - i - lanes ) );
+            long generate = columns( difference.compare( VectorOperators.LT, (byte) 0 ).toLong(), lanes );
+            long propagate = columns( difference.compare( VectorOperators.EQ, (byte) 0 ).toLong(), lanes );
+            long borrows = lookahead( generate, propagate, borrow );
+
+            ByteVector column = difference.sub( (byte) 1, VectorMask.fromLong( BYTES, columns( borrows, lanes ) ) );
+            column.add( TEN, column.compare( VectorOperators.LT, (byte) 0 ) ).intoArray( dst, dEnd - i - lanes );
+            borrow = carryOut( generate, propagate, borrows, lanes );
+        }
+        return LargeInteger.subtractColumnsScalar( a, aEnd - i, b, bEnd - i, dst, dEnd - i, length - i, borrow );
+    } // end of subtractDigits
+
+
+    /* Returns the columns that receive a carry, one bit per column from the lowest one, given those that generate
+       a carry, those that propagate it, and the carry into the lowest column. In binary, x = generate | propagate
+       plus y = generate carries out of exactly the same bits (both bits of generate are set, one bit of propagate),
+       so the carries into the bits of x + y + carry, i.e. the bits of the sum that differ from x ^ y, are the ones
+       we want. Bits above the block may overflow, which does not change the ones below. */
+    private static long lookahead (long generate, long propagate, int carry) {
+        long x = generate | propagate;
+        return (x + generate + carry) ^ x ^ generate;
+    } // end of lookahead
+
+
+    /* Returns the carry out of the highest of the lanes columns */
+    private static int carryOut (long generate, long propagate, long carries, int lanes) {
+        return (int)( ((generate | (propagate & carries)) >>> (lanes - 1)) & 1 );
+    } // end of carryOut
+
+
+    /* Returns the lane bits of a block of digits in column order, or the other way round: lane j of the block
+       is column lanes - 1 - j, as the most significant digit comes first */
+    private static long columns (long bits, int lanes) {
+        return Long.reverse( bits ) >>> (64 - lanes);
+    } // end of columns
+
+}  // end of the VectorKernels class